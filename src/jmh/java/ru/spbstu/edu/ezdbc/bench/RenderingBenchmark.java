@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.Expression;
+import ru.spbstu.edu.ezdbc.sql.expr.UnaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.Selectable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Append-based rendering vs. the String.format/Collectors.joining based rendering that preceded it (reproduced below as "legacy")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderingBenchmark {
+
+    @Param({"4", "64"})
+    private int conditions;
+
+    private SelectionQuery query;
+    private StringBuilder reusedBuffer;
+
+    @Setup
+    public void setUp() {
+        List<Selectable> selections = new ArrayList<>();
+        Expression filter = null;
+
+        for (int i = 0; i < conditions; i++) {
+            Identifier column = new Identifier("column_" + i);
+            selections.add(column);
+
+            AbstractLiteral<?> value = (i % 2 == 0) ? new IntLiteral(i * 1000) : new StringLiteral("value_" + i);
+            Expression condition = new BinaryExpression(column, LogicalOperator.EQUAL_TO, value);
+            if (i % 3 == 0) {
+                condition = new UnaryExpression(LogicalOperator.NOT, condition);
+            }
+
+            filter = (filter == null) ? condition : new BinaryExpression(filter, LogicalOperator.OR, condition);
+        }
+
+        query = new SelectionQuery("benchmark_table");
+        query.setSelections(selections);
+        query.setFilter(filter);
+
+        reusedBuffer = new StringBuilder(query.estimateSQLLength());
+    }
+
+    @Benchmark
+    public String legacyToSQLString() {
+        return Legacy.render(query);
+    }
+
+    @Benchmark
+    public String toSQLString() {
+        return query.toSQLString();
+    }
+
+    @Benchmark
+    public int appendToReusedBuffer() {
+        reusedBuffer.setLength(0);
+        query.appendTo(new SQLBuilder(reusedBuffer));
+        return reusedBuffer.length();
+    }
+
+    private static final class Legacy {
+
+        static String render(SelectionQuery query) {
+            String joinedSelections = query.getSelections().stream()
+                    .map(Legacy::render)
+                    .collect(Collectors.joining(", "));
+
+            StringBuilder sb = new StringBuilder("SELECT ")
+                    .append(joinedSelections)
+                    .append(" FROM ")
+                    .append(query.getTableName());
+
+            if (query.getFilter() != null) {
+                sb.append(" WHERE ");
+                sb.append(render(query.getFilter()));
+            }
+
+            return sb.toString();
+        }
+
+        static String render(Object node) {
+            if (node instanceof BinaryExpression binary) {
+                return String.format("%s %s %s", bracketed(binary.lhs()), binary.operator().toSQLString(), bracketed(binary.rhs()));
+            }
+            if (node instanceof UnaryExpression unary) {
+                return unary.operator().toSQLString() + ' ' + bracketed(unary.operand());
+            }
+            if (node instanceof AbstractLiteral<?> literal) {
+                String raw = literal.getValue().toString();
+                return literal.requiresQuotes() ? ('\'' + raw + '\'') : raw;
+            }
+            return ((Identifier) node).name();
+        }
+
+        static String bracketed(Expression expr) {
+            String sql = render(expr);
+            return (expr instanceof Identifier || expr instanceof AbstractLiteral<?>) ? sql : '(' + sql + ')';
+        }
+    }
+}
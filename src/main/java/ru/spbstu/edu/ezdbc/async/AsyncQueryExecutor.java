@@ -0,0 +1,247 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.async;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.query.AbstractSQLQuery;
+import ru.spbstu.edu.ezdbc.sql.query.FrozenQuery;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+import ru.spbstu.edu.ezdbc.url.Host;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs queries asynchronously, each on a connection of its own borrowed from a {@link DataSource}, while capping the amount of queries running
+ * against any single {@link Host} at once. This allows independent queries to be issued concurrently without the fan-out exhausting the
+ * database.
+ * <p>
+ * Tasks that exceed a host's limit wait in a per-host FIFO queue, and are only handed to the executor once a permit frees up. So waiting
+ * doesn't hold an executor thread, and at most the sum of the hosts' limits are ever submitted to it at once, which keeps the platform thread
+ * fallback of {@link QueryExecutors#defaultExecutor()} bounded. Failures complete the returned futures exceptionally with the original
+ * {@link SQLException} wrapped in a {@link CompletionException}.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class AsyncQueryExecutor {
+
+    private final Executor executor;
+    private final int maxConcurrentQueriesPerHost;
+    private final Map<Host, HostQueue> queues;
+
+    /**
+     * Constructs a new executor.
+     *
+     * @param executor the executor to run queries on (not {@code null})
+     * @param maxConcurrentQueriesPerHost maximum amount of queries running against a single host at once (must be positive)
+     * @throws NullPointerException if the provided executor is {@code null}
+     * @throws IllegalArgumentException if the provided limit is not positive
+     */
+    public AsyncQueryExecutor(Executor executor, int maxConcurrentQueriesPerHost) {
+        this.executor = Objects.requireNonNull(executor, "Executor is null");
+
+        if (maxConcurrentQueriesPerHost <= 0) {
+            throw new IllegalArgumentException("Invalid concurrency limit: " + maxConcurrentQueriesPerHost);
+        }
+        this.maxConcurrentQueriesPerHost = maxConcurrentQueriesPerHost;
+
+        queues = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs a new executor backed by {@link QueryExecutors#defaultExecutor()}.
+     *
+     * @param maxConcurrentQueriesPerHost maximum amount of queries running against a single host at once (must be positive)
+     * @throws IllegalArgumentException if the provided limit is not positive
+     */
+    public AsyncQueryExecutor(int maxConcurrentQueriesPerHost) {
+        this(QueryExecutors.defaultExecutor(), maxConcurrentQueriesPerHost);
+    }
+
+    public int getMaxConcurrentQueriesPerHost() {
+        return maxConcurrentQueriesPerHost;
+    }
+
+    /**
+     * Returns the amount of queries currently running against the provided host.
+     *
+     * @param host a DB host (not {@code null})
+     * @return the amount of running queries
+     */
+    public int getRunningQueryCount(Host host) {
+        HostQueue queue = queues.get(Objects.requireNonNull(host, "Host is null"));
+        return (queue == null) ? 0 : (maxConcurrentQueriesPerHost - queue.permits.availablePermits());
+    }
+
+    /**
+     * Executes a modification (or any other query whose result doesn't depend on its connection staying open).
+     *
+     * @param host the host that the data source connects to (not {@code null})
+     * @param dataSource the source of connections (not {@code null})
+     * @param query the query to execute (not {@code null})
+     * @param <R> the query's result type
+     * @return a future of the query's result
+     */
+    public <R> CompletableFuture<R> execute(Host host, DataSource dataSource, AbstractSQLQuery<R> query) {
+        Objects.requireNonNull(query, "Query is null");
+        if (query instanceof SelectionQuery) {
+            throw new IllegalArgumentException("Selections must be executed with a converter, as their connection is closed afterwards");
+        }
+        return submit(host, dataSource, query.executionSnapshot());
+    }
+
+    /**
+     * Executes a selection and converts its result before the connection is released.
+     *
+     * @param host the host that the data source connects to (not {@code null})
+     * @param dataSource the source of connections (not {@code null})
+     * @param query the query to execute (not {@code null})
+     * @param converter the converter for the query's result (not {@code null})
+     * @param <T> the converted result type
+     * @return a future of the converted result
+     */
+    public <T> CompletableFuture<T> execute(Host host, DataSource dataSource, SelectionQuery query, ResultSetConverter<T> converter) {
+        Objects.requireNonNull(query, "Query is null");
+        Objects.requireNonNull(converter, "Converter is null");
+
+        FrozenQuery<ResultSet> snapshot = query.freeze();
+        return submit(host, dataSource, connection -> converter.convertAndClose(snapshot.execute(connection)));
+    }
+
+    /**
+     * Executes a frozen selection and converts its result before the connection is released.
+     *
+     * @param host the host that the data source connects to (not {@code null})
+     * @param dataSource the source of connections (not {@code null})
+     * @param query the query to execute (not {@code null})
+     * @param converter the converter for the query's result (not {@code null})
+     * @param <T> the converted result type
+     * @return a future of the converted result
+     */
+    public <T> CompletableFuture<T> execute(Host host, DataSource dataSource, FrozenQuery<ResultSet> query, ResultSetConverter<T> converter) {
+        Objects.requireNonNull(query, "Query is null");
+        Objects.requireNonNull(converter, "Converter is null");
+        return submit(host, dataSource, connection -> converter.convertAndClose(query.execute(connection)));
+    }
+
+    /**
+     * Runs arbitrary work on a connection borrowed from the data source, subject to the same per-host limit as queries.
+     *
+     * @param host the host that the data source connects to (not {@code null})
+     * @param dataSource the source of connections (not {@code null})
+     * @param work the work to run (not {@code null})
+     * @param <R> the work's result type
+     * @return a future of the work's result
+     */
+    public <R> CompletableFuture<R> submit(Host host, DataSource dataSource, ThrowingFunction<Connection, R, SQLException> work) {
+        Objects.requireNonNull(host, "Host is null");
+        Objects.requireNonNull(dataSource, "Data source is null");
+        Objects.requireNonNull(work, "Work is null");
+
+        HostQueue queue = queues.computeIfAbsent(host, h -> new HostQueue(maxConcurrentQueriesPerHost));
+        Task<R> task = new Task<>(dataSource, work, new CompletableFuture<>());
+        queue.enqueue(task);
+        return task.future();
+    }
+
+    // Tasks waiting for one of a host's permits. Whoever enqueues or releases a permit drains the queue afterwards, so a task can't be left
+    // waiting while a permit is free.
+    private final class HostQueue {
+
+        private final Semaphore permits;
+        private final Queue<Task<?>> waiting;
+
+        HostQueue(int permitCount) {
+            permits = new Semaphore(permitCount);
+            waiting = new ConcurrentLinkedQueue<>();
+        }
+
+        void enqueue(Task<?> task) {
+            waiting.add(task);
+            drain();
+        }
+
+        private void drain() {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Task<?> task = waiting.poll();
+                if (task == null) {
+                    permits.release(); /* Taken by a concurrent drain */
+                    continue;
+                }
+                dispatch(task);
+            }
+        }
+
+        private void dispatch(Task<?> task) {
+            try {
+                executor.execute(() -> task.run(() -> {
+                    permits.release();
+                    drain();
+                }));
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                task.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private record Task<R>(DataSource dataSource, ThrowingFunction<Connection, R, SQLException> work, CompletableFuture<R> future) {
+
+        // The permit is released before the future completes, so that a completed query is never seen still holding it
+        void run(Runnable releasePermit) {
+            R result = null;
+            Throwable failure = null;
+            try (Connection connection = dataSource.getConnection()) {
+                result = work.apply(connection);
+            } catch (SQLException e) {
+                failure = new CompletionException(e);
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                releasePermit.run();
+            }
+
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
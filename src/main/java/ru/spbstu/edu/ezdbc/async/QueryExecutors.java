@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.async;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class QueryExecutors {
+
+    private QueryExecutors() {
+    }
+
+    // Lazy holder, so that nothing is created unless async execution is actually used
+    private static final class DefaultExecutorHolder {
+
+        static final ExecutorService INSTANCE = createDefaultExecutor();
+    }
+
+    // Shared executor used by async query execution when none is specified: virtual threads on Java 21+, cached daemon platform threads
+    // otherwise. Query execution is almost entirely waiting on the database, which is exactly what virtual threads are for. The cached pool
+    // starts a thread for every task that finds no idle one, so callers bound what they submit (AsyncQueryExecutor only submits tasks that
+    // hold a permit) instead of parking tasks on it.
+    public static ExecutorService defaultExecutor() {
+        return DefaultExecutorHolder.INSTANCE;
+    }
+
+    public static boolean virtualThreadsAvailable() {
+        return virtualThreadExecutorFactory() != null;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        MethodHandle factory = virtualThreadExecutorFactory();
+        if (factory != null) {
+            try {
+                return (ExecutorService) factory.invokeExact();
+            } catch (Throwable e) {
+                /* Fall through to platform threads */
+            }
+        }
+
+        return Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+
+    // Executors::newVirtualThreadPerTaskExecutor is looked up reflectively since we still compile against Java 17
+    private static MethodHandle virtualThreadExecutorFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "ezdbc-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
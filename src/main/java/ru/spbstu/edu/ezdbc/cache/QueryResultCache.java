@@ -0,0 +1,250 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.cache;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.TableModifications;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Opt-in cache of converted {@link SelectionQuery} results, keyed by the query's {@link ParameterizedSQL} (i.e. its SQL text together with the
+ * bound values) and the converter that produced the result. Entries expire after a fixed time-to-live, and the least recently used entry is
+ * evicted when the cache is full.
+ * <p>
+ * Whenever a modification query (or a batch insertion) on a table is executed through this library, all entries selected from that table are
+ * invalidated (see {@link TableModifications}). Modifications done by other clients or via plain JDBC are not seen, which is what the TTL is
+ * for. Converters should produce immutable results, since cached ones are shared between callers.
+ * <p>
+ * Invalidation happens as soon as the modification has been executed, not when it is committed. So while its transaction is still open, a
+ * concurrent reader on another connection can miss, read the not yet modified rows, and cache them again (until the TTL runs out). When
+ * modifying within explicit transactions, call {@link #invalidate(Identifier)} once more after the commit to rule that out.
+ * <p>
+ * This class is thread-safe. Results are loaded outside the lock, so concurrent misses on the same key may load it more than once. A result
+ * whose table got invalidated while it was loading is returned but not cached. Closing the cache stops invalidation tracking and clears it.
+ * A cache that is dropped without being closed does not leak, since invalidation tracking only references it weakly.
+ */
+public final class QueryResultCache implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(1);
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final Map<Identifier, Long> tableGenerations;
+    private final Consumer<Identifier> invalidationListener;
+
+    private long epoch; /* Bumped by invalidateAll, which also covers tables that have no generation yet */
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    /**
+     * Constructs a new cache and starts tracking modifications.
+     *
+     * @param capacity the maximum amount of cached results (must be positive)
+     * @param ttl the time-to-live of cached results (not {@code null}, must be positive)
+     * @throws NullPointerException if the provided TTL is {@code null}
+     * @throws IllegalArgumentException if the provided capacity or TTL is not positive
+     */
+    public QueryResultCache(int capacity, Duration ttl) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+
+        Objects.requireNonNull(ttl, "TTL is null");
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Invalid TTL: " + ttl);
+        }
+        ttlNanos = ttl.toNanos();
+
+        entries = new LinkedHashMap<>(16, 0.75f, true); /* Access order, so that the eldest entry is the least recently used one */
+        tableGenerations = new HashMap<>();
+
+        invalidationListener = this::invalidate;
+        TableModifications.addWeakListener(invalidationListener); /* A cache that is never closed can still be collected */
+    }
+
+    /**
+     * Constructs a new cache with the {@link QueryResultCache#DEFAULT_CAPACITY default capacity} and {@link QueryResultCache#DEFAULT_TTL
+     * default TTL}, and starts tracking modifications.
+     */
+    public QueryResultCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_TTL);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Duration getTTL() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public synchronized double getHitRatio() {
+        long requestCount = hitCount + missCount;
+        return (requestCount == 0) ? 0.0 : ((double) hitCount / requestCount);
+    }
+
+    /**
+     * Returns the cached result of the provided selection, executing it on the provided connection and caching the converted result on a miss.
+     *
+     * @param connection the connection to execute the query on in case of a miss (not {@code null})
+     * @param query the query (not {@code null})
+     * @param converter the converter for the query's result (not {@code null})
+     * @param <T> the converted result type
+     * @return the (possibly cached) converted result
+     * @throws SQLException if a database error occurs
+     */
+    public <T> T get(Connection connection, SelectionQuery query, ResultSetConverter<T> converter) throws SQLException {
+        Objects.requireNonNull(connection, "Connection is null");
+        Objects.requireNonNull(query, "Query is null");
+        Objects.requireNonNull(converter, "Converter is null");
+
+        Identifier tableIdentifier = query.getTableIdentifier();
+        Key key = new Key(tableIdentifier, query.toParameterizedSQL(), converter);
+        long startEpoch;
+        long generation;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAtNanos < 0) {
+                    hitCount++;
+                    @SuppressWarnings("unchecked") T result = (T) entry.result;
+                    return result;
+                }
+                entries.remove(key);
+                evictionCount++;
+            }
+            missCount++;
+            startEpoch = epoch;
+            generation = tableGenerations.getOrDefault(tableIdentifier, 0L);
+        }
+
+        T result;
+        try (PreparedStatement statement = key.sql.prepare(connection)) {
+            result = converter.convertAndClose(statement.executeQuery());
+        }
+
+        synchronized (this) {
+            if (epoch == startEpoch && tableGenerations.getOrDefault(tableIdentifier, 0L) == generation) {
+                entries.put(key, new Entry(result, System.nanoTime() + ttlNanos));
+                if (entries.size() > capacity) {
+                    Iterator<Entry> iterator = entries.values().iterator();
+                    iterator.next();
+                    iterator.remove();
+                    evictionCount++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates all results selected from the provided table.
+     *
+     * @param tableIdentifier the table's identifier (not {@code null})
+     */
+    public synchronized void invalidate(Identifier tableIdentifier) {
+        Objects.requireNonNull(tableIdentifier, "Table identifier is null");
+
+        tableGenerations.merge(tableIdentifier, 1L, Long::sum);
+        entries.keySet().removeIf(key -> {
+            boolean matches = key.tableIdentifier.equals(tableIdentifier);
+            if (matches) {
+                invalidationCount++;
+            }
+            return matches;
+        });
+    }
+
+    /**
+     * Invalidates all cached results. Counters are left intact.
+     */
+    public synchronized void invalidateAll() {
+        epoch++;
+        invalidationCount += entries.size();
+        entries.clear();
+    }
+
+    @Override
+    public void close() {
+        TableModifications.removeListener(invalidationListener);
+        synchronized (this) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        String fmt = "QueryResultCache[capacity=%d, size=%d, hitCount=%d, missCount=%d, evictionCount=%d, invalidationCount=%d]";
+        return fmt.formatted(capacity, entries.size(), hitCount, missCount, evictionCount, invalidationCount);
+    }
+
+    // Converters take part in the key since the same query may be converted differently (they are usually compared by identity)
+    private record Key(Identifier tableIdentifier, ParameterizedSQL sql, ResultSetConverter<?> converter) {
+    }
+
+    private record Entry(Object result, long expiresAtNanos) {
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import ru.spbstu.edu.ezdbc.url.URLBuilder;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingSupplier;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Lightweight connection pool exposed as a {@link DataSource}.
+ * <p>
+ * Idle connections are kept in a lock-free LIFO deque, so that the most recently used (and thus "warmest") connection is handed out first and
+ * the ones left unused for longer than {@link PoolSettings#idleTimeout()} drift to the tail, where a background task closes them (keeping at
+ * least {@link PoolSettings#minIdle()} open). The amount of connections in use is bounded by a fair semaphore. Connections are validated on
+ * borrow, and invalid ones are silently replaced.
+ * <p>
+ * Connections handed out by the pool are proxies: closing one returns the underlying connection to the pool. Its auto-commit mode, read-only
+ * flag and uncommitted work are reset on return. So are its transaction isolation, catalog, schema, holdability and network timeout, if the
+ * borrower changed any of them: they are restored to the values the connection was opened with.
+ * <p>
+ * Connections opened in the background to keep {@link PoolSettings#minIdle()} count towards {@link PoolSettings#maxSize()} just like
+ * borrowed ones, so the pool never holds more than that many physical connections.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @see PoolSettings
+ * @see PoolMetrics
+ */
+public final class ConnectionPool implements DataSource, AutoCloseable {
+
+    private final ThrowingSupplier<Connection, SQLException> connectionFactory;
+    private final PoolSettings settings;
+
+    private final ConcurrentLinkedDeque<IdleConnection> idle; /* Ordered by idle time, most recently returned first */
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections;
+    private final AtomicBoolean closed;
+    private final ScheduledExecutorService housekeeper;
+
+    private final LongAdder borrowCount;
+    private final LongAdder saturatedBorrowCount;
+    private final LongAdder timeoutCount;
+    private final LongAdder totalBorrowWaitNanos;
+    private final AtomicLong maxBorrowWaitNanos;
+
+    private volatile PrintWriter logWriter;
+
+    /**
+     * Constructs a new pool that opens connections via the provided factory. Does not open any connections until the first housekeeping run
+     * (for {@link PoolSettings#minIdle()}) or borrow.
+     *
+     * @param connectionFactory the source of new physical connections (not {@code null})
+     * @param settings the pool settings (not {@code null})
+     * @throws NullPointerException if either of the arguments is {@code null}
+     */
+    public ConnectionPool(ThrowingSupplier<Connection, SQLException> connectionFactory, PoolSettings settings) {
+        this.connectionFactory = Objects.requireNonNull(connectionFactory, "Connection factory is null");
+        this.settings = Objects.requireNonNull(settings, "Settings are null");
+
+        idle = new ConcurrentLinkedDeque<>();
+        permits = new Semaphore(settings.maxSize(), true);
+        totalConnections = new AtomicInteger();
+        closed = new AtomicBoolean();
+
+        borrowCount = new LongAdder();
+        saturatedBorrowCount = new LongAdder();
+        timeoutCount = new LongAdder();
+        totalBorrowWaitNanos = new LongAdder();
+        maxBorrowWaitNanos = new AtomicLong();
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ezdbc-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long periodMillis = Math.max(100, settings.idleTimeout().toMillis() / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Constructs a new pool that opens connections to the URL built by the provided builder via {@link DriverManager}. The URL is built once,
+     * so changing the builder afterwards does not affect the pool.
+     *
+     * @param urlBuilder the builder of the connection URL (not {@code null})
+     * @param info connection properties, e.g. {@code user} and {@code password} (may be {@code null})
+     * @param settings the pool settings (not {@code null})
+     * @throws NullPointerException if the URL builder or the settings are {@code null}
+     */
+    public ConnectionPool(URLBuilder urlBuilder, Properties info, PoolSettings settings) {
+        this(driverManagerFactory(Objects.requireNonNull(urlBuilder, "URL builder is null").build(), info), settings);
+    }
+
+    private static ThrowingSupplier<Connection, SQLException> driverManagerFactory(String url, Properties info) {
+        Properties infoCopy = new Properties();
+        if (info != null) {
+            infoCopy.putAll(info);
+        }
+        return () -> DriverManager.getConnection(url, infoCopy);
+    }
+
+    public PoolSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns a snapshot of this pool's metrics.
+     *
+     * @return current metrics (never {@code null})
+     */
+    public PoolMetrics getMetrics() {
+        int idleCount = idle.size();
+        int activeCount = settings.maxSize() - permits.availablePermits();
+        return new PoolMetrics(settings.maxSize(), totalConnections.get(), idleCount, activeCount, borrowCount.sum(), saturatedBorrowCount.sum(),
+                timeoutCount.sum(), totalBorrowWaitNanos.sum(), maxBorrowWaitNanos.get());
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting for up to {@link PoolSettings#borrowTimeout()} if the pool is saturated.
+     *
+     * @return a pooled connection, which returns to the pool when closed (never {@code null})
+     * @throws SQLTimeoutException if no connection became available in time
+     * @throws SQLException if the pool is closed, the wait was interrupted or a new connection could not be opened
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        ensureOpen();
+        acquirePermit();
+
+        try {
+            return lease(takeValidIdleOrCreate());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit() throws SQLException {
+        long start = System.nanoTime();
+
+        if (!permits.tryAcquire()) {
+            saturatedBorrowCount.increment();
+            try {
+                if (!permits.tryAcquire(settings.borrowTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                    timeoutCount.increment();
+                    throw new SQLTimeoutException("Timed out waiting for a connection after " + settings.borrowTimeout());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+        }
+
+        long waited = System.nanoTime() - start;
+        borrowCount.increment();
+        totalBorrowWaitNanos.add(waited);
+        maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    private PhysicalConnection takeValidIdleOrCreate() throws SQLException {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (isValid(candidate.physical.connection)) {
+                return candidate.physical;
+            }
+            closePhysically(candidate.physical);
+        }
+
+        // Every connection, including the ones housekeeping opens, is opened under a permit, so the permits bound the total as well
+        totalConnections.incrementAndGet();
+        try {
+            return open();
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private PhysicalConnection open() throws SQLException {
+        Connection connection = connectionFactory.get();
+        try {
+            return new PhysicalConnection(connection);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.close();
+            } catch (SQLException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(settings.validationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(PhysicalConnection physical) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new Lease(physical));
+    }
+
+    private void giveBack(PhysicalConnection physical, boolean sessionChanged) {
+        try {
+            if (closed.get() || physical.connection.isClosed()) {
+                closePhysically(physical);
+                return;
+            }
+
+            reset(physical.connection);
+            if (sessionChanged) {
+                physical.restoreSession();
+            }
+            idle.offerFirst(new IdleConnection(physical, System.nanoTime()));
+
+            if (closed.get()) { /* Lost the race with close(), which may have already drained the deque */
+                closeIdle();
+            }
+        } catch (SQLException e) {
+            closePhysically(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static void reset(Connection physical) throws SQLException {
+        if (!physical.getAutoCommit()) {
+            physical.rollback();
+            physical.setAutoCommit(true);
+        }
+        if (physical.isReadOnly()) {
+            physical.setReadOnly(false);
+        }
+        physical.clearWarnings();
+    }
+
+    private void closePhysically(PhysicalConnection physical) {
+        totalConnections.decrementAndGet();
+        try {
+            physical.connection.close();
+        } catch (SQLException e) {
+            log("Failed to close a pooled connection: " + e.getMessage());
+        }
+    }
+
+    private void housekeep() {
+        if (closed.get()) {
+            return;
+        }
+
+        // The oldest idle connections are at the tail of the deque (top-ups below are added at the head, so that this holds for them too)
+        long now = System.nanoTime();
+        long idleTimeoutNanos = settings.idleTimeout().toNanos();
+        Iterator<IdleConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && idle.size() > settings.minIdle()) {
+            IdleConnection candidate = iterator.next();
+            if (now - candidate.since < idleTimeoutNanos) {
+                break;
+            }
+            if (idle.removeLastOccurrence(candidate)) { /* Could've been borrowed in the meantime */
+                closePhysically(candidate.physical);
+            }
+        }
+
+        // Holding a permit while opening keeps borrowers from opening connections of their own past maxSize in the meantime
+        while (idle.size() < settings.minIdle() && !closed.get() && permits.tryAcquire()) {
+            try {
+                if (!tryReserveSlot() || !topUp()) {
+                    break;
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private boolean topUp() {
+        PhysicalConnection physical;
+        try {
+            physical = open();
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            log("Failed to open an idle connection: " + e.getMessage());
+            return false;
+        }
+
+        idle.offerFirst(new IdleConnection(physical, System.nanoTime()));
+        if (closed.get()) {
+            closeIdle(); /* close() could've drained the deque before the offer */
+        }
+        return true;
+    }
+
+    // Claims room for one more connection, unless the pool is already at its maximum size
+    private boolean tryReserveSlot() {
+        int total;
+        do {
+            total = totalConnections.get();
+            if (total >= settings.maxSize()) {
+                return false;
+            }
+        } while (!totalConnections.compareAndSet(total, total + 1));
+        return true;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    private void closeIdle() {
+        IdleConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            closePhysically(candidate.physical);
+        }
+    }
+
+    /**
+     * Closes the pool along with all idle connections. Borrowed connections are closed as they are returned.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            housekeeper.shutdownNow();
+            closeIdle();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    private void log(String message) {
+        PrintWriter writer = logWriter;
+        if (writer != null) {
+            writer.println(message);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections share the credentials provided on pool construction");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        logWriter = out;
+    }
+
+    /**
+     * Not supported beyond the default of no timeout: connections are opened by the connection factory, so set the timeout there (e.g. via
+     * the driver's connection properties).
+     *
+     * @throws SQLFeatureNotSupportedException if {@code seconds} is not 0
+     */
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLFeatureNotSupportedException {
+        if (seconds != 0) {
+            throw new SQLFeatureNotSupportedException("Login timeout must be set on the connection factory");
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool[settings=" + settings + ", metrics=" + getMetrics() + "]";
+    }
+
+    private record IdleConnection(PhysicalConnection physical, long since) {
+    }
+
+    // A physical connection along with the session state it was opened with. Getters some drivers don't implement leave the value unknown,
+    // in which case it isn't restored.
+    private static final class PhysicalConnection {
+
+        private final Connection connection;
+        private final int transactionIsolation;
+        private final int holdability;
+        private final String catalog;
+        private final String schema;
+        private final int networkTimeout; /* -1 if unknown */
+
+        private PhysicalConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            this.transactionIsolation = connection.getTransactionIsolation();
+            this.holdability = connection.getHoldability();
+            this.catalog = connection.getCatalog();
+
+            String schema = null;
+            try {
+                schema = connection.getSchema();
+            } catch (SQLFeatureNotSupportedException | AbstractMethodError e) {
+                // Pre-JDBC 4.1 driver
+            }
+            this.schema = schema;
+
+            int networkTimeout = -1;
+            try {
+                networkTimeout = connection.getNetworkTimeout();
+            } catch (SQLFeatureNotSupportedException | AbstractMethodError e) {
+                // Same
+            }
+            this.networkTimeout = networkTimeout;
+        }
+
+        private void restoreSession() throws SQLException {
+            connection.setTransactionIsolation(transactionIsolation);
+            connection.setHoldability(holdability);
+            if (catalog != null) {
+                connection.setCatalog(catalog);
+            }
+            if (schema != null) {
+                connection.setSchema(schema);
+            }
+            if (networkTimeout >= 0) {
+                connection.setNetworkTimeout(Runnable::run, networkTimeout);
+            }
+        }
+    }
+
+    // Forwards everything to the physical connection, except for close() which returns it to the pool (once). Notes whether the borrower
+    // changed any of the session state that PhysicalConnection restores.
+    private final class Lease implements InvocationHandler {
+
+        private static final Set<String> SESSION_SETTERS =
+                Set.of("setTransactionIsolation", "setHoldability", "setCatalog", "setSchema", "setNetworkTimeout");
+
+        private final PhysicalConnection physical;
+        private final AtomicBoolean returned;
+        private volatile boolean sessionChanged;
+
+        private Lease(PhysicalConnection physical) {
+            this.physical = physical;
+            this.returned = new AtomicBoolean();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (returned.compareAndSet(false, true)) {
+                        giveBack(physical, sessionChanged);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned.get() || physical.connection.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical.connection + "]";
+                }
+                default -> {
+                    if (returned.get()) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    if (SESSION_SETTERS.contains(method.getName())) {
+                        sessionChanged = true;
+                    }
+                }
+            }
+
+            try {
+                return method.invoke(physical.connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
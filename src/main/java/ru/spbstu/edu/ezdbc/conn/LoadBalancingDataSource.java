@@ -0,0 +1,373 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import ru.spbstu.edu.ezdbc.url.Host;
+import ru.spbstu.edu.ezdbc.url.URLBuilder;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Client-side load balancer that treats every {@link Host} as a separate endpoint with a data source of its own.
+ * <p>
+ * For every endpoint, an exponentially weighted moving average (EWMA) of latency and the amount of in-flight requests are tracked. New
+ * requests are routed via "power of two choices": two endpoints are picked at random, and the one with the lower {@code ewma * (inFlight + 1)}
+ * wins. This avoids the herding of "always pick the best" while still steering traffic away from slow or overloaded hosts. Endpoints that have
+ * not been measured yet score zero, so they get probed first.
+ * <p>
+ * Latency is measured per {@link LoadBalancingDataSource#execute(ThrowingFunction) execution}, whether the work succeeded or not. For connections
+ * obtained via {@link LoadBalancingDataSource#getConnection()}, only the time to acquire the connection is sampled, since how long the caller
+ * holds it says nothing about the endpoint; such connections still count as in flight until closed. Only a failure to connect
+ * counts as a sample of {@link LoadBalancingDataSource#FAILURE_PENALTY_NANOS}, after which connecting is retried once on the other candidate.
+ * The work itself is never retried.
+ * <p>
+ * The average decays towards zero while an endpoint gets no new samples, halving every {@link LoadBalancingDataSource#DECAY_HALF_LIFE_NANOS}.
+ * So an endpoint that was penalized (or just slow) once is probed again after a while instead of being avoided forever.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class LoadBalancingDataSource implements DataSource, AutoCloseable {
+
+    public static final double DEFAULT_EWMA_ALPHA = 0.2;
+    public static final long FAILURE_PENALTY_NANOS = 10_000_000_000L; // 10 s
+    public static final long DECAY_HALF_LIFE_NANOS = 10_000_000_000L; // 10 s
+
+    private final List<Endpoint> endpoints;
+    private final double ewmaAlpha;
+
+    private volatile PrintWriter logWriter;
+    private volatile int loginTimeout;
+
+    /**
+     * Constructs a new load balancer over the provided per-host data sources.
+     *
+     * @param dataSources data sources by host (neither {@code null} nor empty)
+     * @param ewmaAlpha the weight of the newest latency sample (in {@code (0, 1]})
+     * @throws NullPointerException if the map or any of its keys or values is {@code null}
+     * @throws IllegalArgumentException if the map is empty or alpha is out of range
+     */
+    public LoadBalancingDataSource(Map<Host, ? extends DataSource> dataSources, double ewmaAlpha) {
+        Objects.requireNonNull(dataSources, "Data sources are null");
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("No endpoints specified");
+        }
+        if (!(ewmaAlpha > 0.0 && ewmaAlpha <= 1.0)) {
+            throw new IllegalArgumentException("Invalid EWMA alpha: " + ewmaAlpha + " (allowed range: (0, 1])");
+        }
+
+        List<Endpoint> list = new ArrayList<>(dataSources.size());
+        dataSources.forEach((host, dataSource) -> list.add(new Endpoint(Objects.requireNonNull(host), Objects.requireNonNull(dataSource))));
+        this.endpoints = List.copyOf(list);
+        this.ewmaAlpha = ewmaAlpha;
+    }
+
+    /**
+     * Constructs a new load balancer with a {@link ConnectionPool} for each host of the provided URL builder. Each pool connects to a copy of
+     * the builder with that single host.
+     *
+     * @param urlBuilder the builder of the connection URL, with at least one host (not {@code null})
+     * @param info connection properties, e.g. {@code user} and {@code password} (may be {@code null})
+     * @param settings settings for each of the per-host pools (not {@code null})
+     * @throws IllegalArgumentException if the builder has no hosts
+     */
+    public LoadBalancingDataSource(URLBuilder urlBuilder, Properties info, PoolSettings settings) {
+        this(poolsPerHost(urlBuilder, info, settings), DEFAULT_EWMA_ALPHA);
+    }
+
+    private static Map<Host, ConnectionPool> poolsPerHost(URLBuilder urlBuilder, Properties info, PoolSettings settings) {
+        Objects.requireNonNull(urlBuilder, "URL builder is null");
+
+        Map<Host, ConnectionPool> pools = new LinkedHashMap<>();
+        try {
+            for (Host host : urlBuilder.getHosts()) {
+                if (!pools.containsKey(host)) {
+                    URLBuilder singleHost = urlBuilder.copy().clearHosts().addHost(host);
+                    pools.put(host, new ConnectionPool(singleHost, info, settings));
+                }
+            }
+        } catch (RuntimeException e) {
+            pools.values().forEach(ConnectionPool::close); /* Their housekeepers would run forever otherwise */
+            throw e;
+        }
+        return pools;
+    }
+
+    /**
+     * Borrows a connection from the best of two randomly picked endpoints. The time it took to acquire the connection counts as a latency
+     * sample for that endpoint, and the connection counts as in flight until it's closed.
+     *
+     * @return a connection (never {@code null})
+     * @throws SQLException if neither candidate endpoint could provide a connection
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Lease lease = lease(pickCandidates());
+        lease.endpoint().sample(lease.acquiredNanos() - lease.startNanos(), ewmaAlpha);
+        return ConnectionProxies.withCloseCallback(lease.connection(), lease.endpoint()::release);
+    }
+
+    /**
+     * Runs work on a connection from the best of two randomly picked endpoints, using the work's duration as the latency sample. Connecting
+     * falls back to the other candidate once, the work itself is not retried.
+     *
+     * @param work the work to run, e.g. {@code query::executePrepared} (not {@code null})
+     * @param <R> the work's result type
+     * @return the work's result
+     * @throws SQLException if neither candidate endpoint could provide a connection, or if the work failed
+     */
+    public <R> R execute(ThrowingFunction<Connection, R, SQLException> work) throws SQLException {
+        Objects.requireNonNull(work, "Work is null");
+
+        Lease lease = lease(pickCandidates());
+        try (Connection connection = lease.connection()) {
+            return work.apply(connection);
+        } finally {
+            lease.end(ewmaAlpha); /* SQL errors from the work say nothing about the endpoint's health */
+        }
+    }
+
+    private Lease lease(Endpoint[] candidates) throws SQLException {
+        try {
+            return lease(candidates[0]);
+        } catch (SQLException e) {
+            if (candidates[1] == candidates[0]) {
+                throw e;
+            }
+            try {
+                return lease(candidates[1]);
+            } catch (SQLException retryFailure) {
+                retryFailure.addSuppressed(e);
+                throw retryFailure;
+            }
+        }
+    }
+
+    private Lease lease(Endpoint endpoint) throws SQLException {
+        long start = endpoint.begin();
+        try {
+            Connection connection = endpoint.dataSource.getConnection();
+            return new Lease(endpoint, connection, start, System.nanoTime());
+        } catch (SQLException | RuntimeException e) {
+            endpoint.end(FAILURE_PENALTY_NANOS, ewmaAlpha);
+            throw e;
+        }
+    }
+
+    // The better of two random endpoints goes first, the other one is the fallback
+    private Endpoint[] pickCandidates() {
+        int size = endpoints.size();
+        if (size == 1) {
+            Endpoint only = endpoints.get(0);
+            return new Endpoint[]{only, only};
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        return (a.score() <= b.score()) ? new Endpoint[]{a, b} : new Endpoint[]{b, a};
+    }
+
+    /**
+     * Returns a snapshot of every endpoint's stats, in the order the endpoints were specified.
+     *
+     * @return endpoint stats (never {@code null})
+     */
+    public List<EndpointStats> getEndpointStats() {
+        List<EndpointStats> stats = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            stats.add(new EndpointStats(endpoint.host, endpoint.ewmaNanos(), endpoint.inFlight.get(), endpoint.requestCount.sum()));
+        }
+        return Collections.unmodifiableList(stats);
+    }
+
+    /**
+     * Closes every per-host data source that is {@link AutoCloseable}.
+     *
+     * @throws SQLException if one of them failed to close (the rest are closed regardless)
+     */
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = new SQLException("Failed to close endpoint data sources");
+                    }
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Endpoints share the credentials provided on construction");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Point-in-time stats of a single endpoint.
+     *
+     * @param host the endpoint's host
+     * @param ewmaLatencyNanos the moving average of latency ({@code 0} if not measured yet)
+     * @param inFlight the amount of requests currently in flight
+     * @param requestCount the total amount of requests routed to the endpoint
+     */
+    public record EndpointStats(Host host, double ewmaLatencyNanos, int inFlight, long requestCount) {
+    }
+
+    private record Lease(Endpoint endpoint, Connection connection, long startNanos, long acquiredNanos) {
+
+        // Samples the whole round-trip, from before acquiring the connection until now
+        void end(double alpha) {
+            endpoint.end(System.nanoTime() - startNanos, alpha);
+        }
+    }
+
+    // The average as of a point in time, decaying from there on
+    private record Ewma(double nanos, long atNanos) {
+
+        double decayedTo(long nowNanos) {
+            return nanos * Math.pow(0.5, (double) (nowNanos - atNanos) / DECAY_HALF_LIFE_NANOS);
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final Host host;
+        private final DataSource dataSource;
+        private final AtomicInteger inFlight;
+        private final AtomicReference<Ewma> ewma;
+        private final LongAdder requestCount;
+
+        private Endpoint(Host host, DataSource dataSource) {
+            this.host = host;
+            this.dataSource = dataSource;
+            inFlight = new AtomicInteger();
+            ewma = new AtomicReference<>(new Ewma(0.0, System.nanoTime()));
+            requestCount = new LongAdder();
+        }
+
+        double ewmaNanos() {
+            return ewma.get().decayedTo(System.nanoTime());
+        }
+
+        double score() {
+            return ewmaNanos() * (inFlight.get() + 1);
+        }
+
+        long begin() {
+            inFlight.incrementAndGet();
+            requestCount.increment();
+            return System.nanoTime();
+        }
+
+        void end(long sampleNanos, double alpha) {
+            release();
+            sample(sampleNanos, alpha);
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+
+        void sample(long sampleNanos, double alpha) {
+            long now = System.nanoTime();
+            ewma.getAndUpdate(previous -> {
+                double current = previous.decayedTo(now);
+                double next = (current == 0.0) ? sampleNanos : (alpha * sampleNanos + (1.0 - alpha) * current);
+                return new Ewma(next, now);
+            });
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+/**
+ * Point-in-time snapshot of {@link ConnectionPool} metrics.
+ *
+ * @param maxSize the pool's maximum size
+ * @param totalConnections the amount of currently open physical connections
+ * @param idleConnections the amount of connections currently waiting in the pool
+ * @param activeConnections the amount of connections currently borrowed
+ * @param borrowCount the total amount of successful borrows
+ * @param saturatedBorrowCount the amount of borrows that found every connection taken and had to wait
+ * @param timeoutCount the amount of borrows that gave up waiting
+ * @param totalBorrowWaitNanos the total time spent waiting for permission to borrow
+ * @param maxBorrowWaitNanos the longest wait for permission to borrow
+ */
+public record PoolMetrics(int maxSize, int totalConnections, int idleConnections, int activeConnections, long borrowCount,
+                          long saturatedBorrowCount, long timeoutCount, long totalBorrowWaitNanos, long maxBorrowWaitNanos) {
+
+    public double saturation() {
+        return (double) activeConnections / maxSize;
+    }
+
+    public double averageBorrowWaitNanos() {
+        return (borrowCount == 0) ? 0.0 : ((double) totalBorrowWaitNanos / borrowCount);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Sizing and timing settings of a {@link ConnectionPool}.
+ *
+ * @param minIdle the amount of idle connections kept open at all times (non-negative, not greater than {@code maxSize})
+ * @param maxSize the maximum amount of connections (both idle and borrowed) open at once (positive)
+ * @param idleTimeout how long a connection above {@code minIdle} may stay idle before being closed (positive)
+ * @param borrowTimeout how long a borrower waits for a connection when the pool is saturated (non-negative)
+ * @param validationTimeoutSeconds timeout for {@link java.sql.Connection#isValid(int)} when validating on borrow (non-negative, {@code 0}
+ *                                 means no timeout)
+ */
+public record PoolSettings(int minIdle, int maxSize, Duration idleTimeout, Duration borrowTimeout, int validationTimeoutSeconds) {
+
+    public static final PoolSettings DEFAULT = new PoolSettings(0, 10, Duration.ofMinutes(10), Duration.ofSeconds(30), 5);
+
+    public PoolSettings {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Invalid max size: " + maxSize);
+        }
+        if (minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid min idle: " + minIdle + " (allowed range: [0, " + maxSize + "])");
+        }
+
+        Objects.requireNonNull(idleTimeout, "Idle timeout is null");
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("Invalid idle timeout: " + idleTimeout);
+        }
+
+        Objects.requireNonNull(borrowTimeout, "Borrow timeout is null");
+        if (borrowTimeout.isNegative()) {
+            throw new IllegalArgumentException("Invalid borrow timeout: " + borrowTimeout);
+        }
+
+        if (validationTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("Invalid validation timeout: " + validationTimeoutSeconds);
+        }
+    }
+
+    public PoolSettings withMinIdle(int minIdle) {
+        return new PoolSettings(minIdle, maxSize, idleTimeout, borrowTimeout, validationTimeoutSeconds);
+    }
+
+    public PoolSettings withMaxSize(int maxSize) {
+        return new PoolSettings(minIdle, maxSize, idleTimeout, borrowTimeout, validationTimeoutSeconds);
+    }
+
+    public PoolSettings withIdleTimeout(Duration idleTimeout) {
+        return new PoolSettings(minIdle, maxSize, idleTimeout, borrowTimeout, validationTimeoutSeconds);
+    }
+
+    public PoolSettings withBorrowTimeout(Duration borrowTimeout) {
+        return new PoolSettings(minIdle, maxSize, idleTimeout, borrowTimeout, validationTimeoutSeconds);
+    }
+
+    public PoolSettings withValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        return new PoolSettings(minIdle, maxSize, idleTimeout, borrowTimeout, validationTimeoutSeconds);
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.query.AbstractSQLQuery;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+import ru.spbstu.edu.ezdbc.url.Host;
+import ru.spbstu.edu.ezdbc.url.URLBuilder;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Splits query executions between a primary and its read replicas: {@link SelectionQuery selections} go to the replicas, everything else
+ * (modifications, batch insertions, etc.) goes to the primary.
+ * <p>
+ * Since replicas usually lag behind the primary, reads that follow a write within the configured stickiness window are sent to the primary
+ * instead, so that the writer observes its own writes. The window is tracked per thread for the router's own methods, and per session for
+ * {@link Session sessions} (useful when a logical unit of work hops between threads, e.g. with {@link java.util.concurrent.CompletableFuture}).
+ * A zero window disables stickiness entirely.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class ReadWriteRouter implements AutoCloseable {
+
+    private final DataSource primary;
+    private final DataSource replicas;
+    private final long stickinessNanos;
+    private final ThreadLocal<WriteMark> threadWriteMarks;
+
+    private final LongAdder replicaReads;
+    private final LongAdder primaryReads;
+    private final LongAdder writes;
+
+    /**
+     * Constructs a new router.
+     *
+     * @param primary the source of connections to the primary (not {@code null})
+     * @param replicas the source of connections to the replicas (not {@code null}, may be the same as the primary)
+     * @param stickiness how long reads stick to the primary after a write (not {@code null}, not negative)
+     * @throws NullPointerException if any of the arguments is {@code null}
+     * @throws IllegalArgumentException if the stickiness is negative
+     */
+    public ReadWriteRouter(DataSource primary, DataSource replicas, Duration stickiness) {
+        this.primary = Objects.requireNonNull(primary, "Primary is null");
+        this.replicas = Objects.requireNonNull(replicas, "Replicas are null");
+
+        Objects.requireNonNull(stickiness, "Stickiness is null");
+        if (stickiness.isNegative()) {
+            throw new IllegalArgumentException("Invalid stickiness: " + stickiness);
+        }
+        stickinessNanos = stickiness.toNanos();
+
+        threadWriteMarks = ThreadLocal.withInitial(WriteMark::new);
+        replicaReads = new LongAdder();
+        primaryReads = new LongAdder();
+        writes = new LongAdder();
+    }
+
+    /**
+     * Constructs a new router from a multi-host URL builder: the first host is considered the primary, and the rest are the replicas, which
+     * are balanced with a {@link LoadBalancingDataSource}. Each host gets a {@link ConnectionPool} of its own. If the builder has a single
+     * host, all queries go to it.
+     *
+     * @param urlBuilder the builder of the connection URL, with at least one host (not {@code null})
+     * @param info connection properties, e.g. {@code user} and {@code password} (may be {@code null})
+     * @param settings settings for each of the per-host pools (not {@code null})
+     * @param stickiness how long reads stick to the primary after a write (not {@code null}, not negative)
+     * @throws IllegalArgumentException if the builder has no hosts or the stickiness is negative
+     */
+    public ReadWriteRouter(URLBuilder urlBuilder, Properties info, PoolSettings settings, Duration stickiness) {
+        this(poolsPerRole(urlBuilder, info, settings), stickiness);
+    }
+
+    private ReadWriteRouter(DataSource[] primaryAndReplicas, Duration stickiness) {
+        this(primaryAndReplicas[0], primaryAndReplicas[1], stickiness);
+    }
+
+    private static DataSource[] poolsPerRole(URLBuilder urlBuilder, Properties info, PoolSettings settings) {
+        List<Host> hosts = Objects.requireNonNull(urlBuilder, "URL builder is null").getHosts();
+        if (hosts.isEmpty()) {
+            throw new IllegalArgumentException("No hosts specified");
+        }
+
+        ConnectionPool primary = new ConnectionPool(urlBuilder.copy().clearHosts().addHost(hosts.get(0)), info, settings);
+        if (hosts.size() == 1) {
+            return new DataSource[]{primary, primary};
+        }
+
+        Map<Host, ConnectionPool> replicas = new LinkedHashMap<>();
+        for (Host host : hosts.subList(1, hosts.size())) {
+            replicas.putIfAbsent(host, new ConnectionPool(urlBuilder.copy().clearHosts().addHost(host), info, settings));
+        }
+        return new DataSource[]{primary, new LoadBalancingDataSource(replicas, LoadBalancingDataSource.DEFAULT_EWMA_ALPHA)};
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplicas() {
+        return replicas;
+    }
+
+    public Duration getStickiness() {
+        return Duration.ofNanos(stickinessNanos);
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    public long getWriteCount() {
+        return writes.sum();
+    }
+
+    /**
+     * Opens a new session, which tracks read-your-writes stickiness independently of threads.
+     *
+     * @return a new session (never {@code null})
+     */
+    public Session openSession() {
+        return new Session(new WriteMark());
+    }
+
+    /**
+     * Executes a non-selection query on the primary, making the current thread's reads sticky.
+     *
+     * @param query the query to execute (not {@code null})
+     * @param <R> the query's result type
+     * @return the query's result
+     * @throws SQLException if a database error occurs
+     * @throws IllegalArgumentException if the query is a selection
+     */
+    public <R> R execute(AbstractSQLQuery<R> query) throws SQLException {
+        return write(threadWriteMarks.get(), query);
+    }
+
+    /**
+     * Executes a selection on a replica (or on the primary, if the current thread has written recently) and converts its result before the
+     * connection is released.
+     *
+     * @param query the query to execute (not {@code null})
+     * @param converter the converter for the query's result (not {@code null})
+     * @param <T> the converted result type
+     * @return the converted result
+     * @throws SQLException if a database error occurs
+     */
+    public <T> T execute(SelectionQuery query, ResultSetConverter<T> converter) throws SQLException {
+        return read(threadWriteMarks.get(), query, converter);
+    }
+
+    /**
+     * Closes the primary and replica data sources if they are {@link AutoCloseable}.
+     *
+     * @throws SQLException if either of them failed to close
+     */
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (DataSource dataSource : (replicas == primary) ? List.of(primary) : List.of(primary, replicas)) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = new SQLException("Failed to close data sources");
+                    }
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private <R> R write(WriteMark mark, AbstractSQLQuery<R> query) throws SQLException {
+        Objects.requireNonNull(query, "Query is null");
+        if (query instanceof SelectionQuery) {
+            throw new IllegalArgumentException("Selections must be executed with a converter, as their connection is closed afterwards");
+        }
+
+        writes.increment();
+        try {
+            return run(primary, query::executePrepared);
+        } finally {
+            // Even a failed write may have been applied, so stay on the safe side
+            mark.touch();
+        }
+    }
+
+    private <T> T read(WriteMark mark, SelectionQuery query, ResultSetConverter<T> converter) throws SQLException {
+        Objects.requireNonNull(query, "Query is null");
+        Objects.requireNonNull(converter, "Converter is null");
+
+        DataSource target;
+        if (mark.isWithin(stickinessNanos)) {
+            primaryReads.increment();
+            target = primary;
+        } else {
+            replicaReads.increment();
+            target = replicas;
+        }
+        return run(target, connection -> converter.convertAndClose(query.executePrepared(connection)));
+    }
+
+    private static <R> R run(DataSource dataSource, ThrowingFunction<Connection, R, SQLException> work) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return work.apply(connection);
+        }
+    }
+
+    /**
+     * A logical unit of work whose reads stick to the primary after its own writes, regardless of the threads it runs on. Sessions are cheap
+     * and don't hold any connections.
+     */
+    public final class Session {
+
+        private final WriteMark writeMark;
+
+        private Session(WriteMark writeMark) {
+            this.writeMark = writeMark;
+        }
+
+        /**
+         * Executes a non-selection query on the primary, making this session's reads sticky.
+         *
+         * @param query the query to execute (not {@code null})
+         * @param <R> the query's result type
+         * @return the query's result
+         * @throws SQLException if a database error occurs
+         * @throws IllegalArgumentException if the query is a selection
+         */
+        public <R> R execute(AbstractSQLQuery<R> query) throws SQLException {
+            return write(writeMark, query);
+        }
+
+        /**
+         * Executes a selection on a replica (or on the primary, if this session has written recently) and converts its result before the
+         * connection is released.
+         *
+         * @param query the query to execute (not {@code null})
+         * @param converter the converter for the query's result (not {@code null})
+         * @param <T> the converted result type
+         * @return the converted result
+         * @throws SQLException if a database error occurs
+         */
+        public <T> T execute(SelectionQuery query, ResultSetConverter<T> converter) throws SQLException {
+            return read(writeMark, query, converter);
+        }
+    }
+
+    private static final class WriteMark {
+
+        private volatile boolean written;
+        private volatile long lastWriteNanos;
+
+        void touch() {
+            lastWriteNanos = System.nanoTime();
+            written = true;
+        }
+
+        boolean isWithin(long windowNanos) {
+            return written && (System.nanoTime() - lastWriteNanos < windowNanos);
+        }
+    }
+}
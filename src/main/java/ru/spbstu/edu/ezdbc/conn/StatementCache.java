@@ -0,0 +1,234 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.query.AbstractSQLQuery;
+import ru.spbstu.edu.ezdbc.sql.query.FrozenQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-connection cache of {@link PreparedStatement}s keyed by their SQL text. Since parameterized queries of the same shape render into the same
+ * text (see {@link ParameterizedSQL}), hot queries only get prepared once per connection. When the cache is full, the least recently used
+ * statement is evicted and closed.
+ * <p>
+ * Statements handed out by this cache are owned by it and must <b>not</b> be closed by the client. A {@link java.sql.ResultSet} obtained from a
+ * cached statement must be consumed before the same query shape is executed again, as re-execution closes it.
+ * <p>
+ * This class is mutable and not thread-safe (neither are JDBC connections in general). Closing the cache closes all cached statements, but not
+ * the underlying connection.
+ */
+public final class StatementCache implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Connection connection;
+    private final int capacity;
+    private final Map<String, PreparedStatement> statements;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructs a new cache over the provided connection.
+     *
+     * @param connection the connection to prepare statements with (not {@code null})
+     * @param capacity the maximum amount of cached statements (must be positive)
+     * @throws NullPointerException if the provided connection is {@code null}
+     * @throws IllegalArgumentException if the provided capacity is not positive
+     */
+    public StatementCache(Connection connection, int capacity) {
+        this.connection = Objects.requireNonNull(connection, "Connection is null");
+
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.capacity = capacity;
+
+        statements = new LinkedHashMap<>(16, 0.75f, true); /* Access order, so that the eldest entry is the least recently used one */
+    }
+
+    /**
+     * Constructs a new cache over the provided connection with the {@link StatementCache#DEFAULT_CAPACITY default capacity}.
+     *
+     * @param connection the connection to prepare statements with (not {@code null})
+     * @throws NullPointerException if the provided connection is {@code null}
+     */
+    public StatementCache(Connection connection) {
+        this(connection, DEFAULT_CAPACITY);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns a cached statement for the provided SQL text, preparing (and caching) a new one on a miss.
+     *
+     * @param sql the SQL text (not {@code null})
+     * @return a prepared statement owned by this cache (never {@code null})
+     * @throws SQLException if the statement could not be prepared or an evicted statement could not be closed
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        Objects.requireNonNull(sql, "SQL is null");
+
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && !statement.isClosed()) {
+            hitCount++;
+            return statement;
+        }
+
+        missCount++;
+        statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+
+        if (statements.size() > capacity) {
+            evictEldest();
+        }
+
+        return statement;
+    }
+
+    /**
+     * Returns a cached statement for the provided parameterized SQL with all of its parameters bound.
+     *
+     * @param sql the parameterized SQL (not {@code null})
+     * @return a prepared statement owned by this cache (never {@code null})
+     * @throws SQLException if the statement could not be prepared or bound
+     */
+    public PreparedStatement prepare(ParameterizedSQL sql) throws SQLException {
+        Objects.requireNonNull(sql, "SQL is null");
+
+        PreparedStatement statement = prepare(sql.text());
+        statement.clearParameters();
+        sql.bind(statement);
+        return statement;
+    }
+
+    /**
+     * Executes the provided query via a cached statement.
+     *
+     * @param query the query to execute (not {@code null})
+     * @param <R> the query's result type
+     * @return the query's result
+     * @throws SQLException if a database error occurs
+     */
+    public <R> R execute(AbstractSQLQuery<R> query) throws SQLException {
+        Objects.requireNonNull(query, "Query is null");
+
+        PreparedStatement statement = prepare(query.toParameterizedSQL());
+        return query.executePrepared(statement);
+    }
+
+    /**
+     * Executes the provided frozen query via a cached statement.
+     *
+     * @param query the query to execute (not {@code null})
+     * @param <R> the query's result type
+     * @return the query's result
+     * @throws SQLException if a database error occurs
+     */
+    public <R> R execute(FrozenQuery<R> query) throws SQLException {
+        Objects.requireNonNull(query, "Query is null");
+
+        PreparedStatement statement = prepare(query.getParameterizedSQL());
+        return query.execute(statement);
+    }
+
+    /**
+     * Closes and removes all cached statements. Counters are left intact.
+     *
+     * @throws SQLException if one of the statements failed to close (the rest are closed regardless)
+     */
+    public void clear() throws SQLException {
+        SQLException failure = null;
+
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        statements.clear();
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        clear();
+    }
+
+    private void evictEldest() throws SQLException {
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        PreparedStatement eldest = iterator.next();
+        iterator.remove();
+        evictionCount++;
+
+        eldest.close();
+    }
+
+    @Override
+    public String toString() {
+        String fmt = "StatementCache[capacity=%d, size=%d, hitCount=%d, missCount=%d, evictionCount=%d]";
+        return fmt.formatted(capacity, statements.size(), hitCount, missCount, evictionCount);
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.load;
+
+import ru.spbstu.edu.ezdbc.async.QueryExecutors;
+import ru.spbstu.edu.ezdbc.rs.consume.DelimitedExporter.Format;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.query.BatchInsertionQuery;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Loads CSV/TSV files (as written by DelimitedExporter) into a table. Loading is a two-stage pipeline: a parser task tokenizes the input in
+// place and converts fields into typed literals, handing full batches over a small bounded queue to the calling thread, which inserts them as
+// BatchInsertionQuery JDBC batches and commits every commitInterval rows. So parsing the next batch overlaps with writing the previous one.
+//
+// NULLs are empty unquoted CSV fields and \N TSV fields, as DelimitedExporter writes them. The connection's auto-commit mode is turned off
+// for the load and restored afterwards. If anything fails, the parser is stopped (and waited for), the current transaction is rolled back
+// (earlier commits stay), and the failure is rethrown; parsing failures are reported as IllegalStateExceptions naming the record.
+public final class BulkLoader {
+
+    // A null executor means QueryExecutors.defaultExecutor(), a null progress listener means no progress reports (they follow every commit)
+    public record Settings(Format format, boolean skipHeader, int batchSize, int commitInterval, int bufferSize, int queueCapacity, Executor executor,
+                           Consumer<LoadStats> progressListener) {
+
+        public static final Settings DEFAULT = new Settings(Format.CSV, true, 1000, 100_000, 4 << 20, 4, null, null);
+
+        public Settings {
+            Objects.requireNonNull(format);
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+            }
+            if (commitInterval <= 0) {
+                throw new IllegalArgumentException("Invalid commit interval: " + commitInterval);
+            }
+            if (bufferSize <= 0) {
+                throw new IllegalArgumentException("Invalid buffer size: " + bufferSize);
+            }
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+            }
+        }
+
+        public Settings withFormat(Format format) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withSkipHeader(boolean skipHeader) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withBatchSize(int batchSize) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withCommitInterval(int commitInterval) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withBufferSize(int bufferSize) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withQueueCapacity(int queueCapacity) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withExecutor(Executor executor) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+
+        public Settings withProgressListener(Consumer<LoadStats> progressListener) {
+            return new Settings(format, skipHeader, batchSize, commitInterval, bufferSize, queueCapacity, executor, progressListener);
+        }
+    }
+
+    private static final List<List<AbstractLiteral<?>>> END_OF_INPUT = List.of();
+
+    // Unquoted identifiers are stored upper-cased by some databases and lower-cased by others
+    private static final List<Function<String, String>> CASE_FOLDINGS = List.of(
+            Function.identity(),
+            name -> name.toUpperCase(Locale.ROOT),
+            name -> name.toLowerCase(Locale.ROOT)
+    );
+
+    private final Identifier tableIdentifier;
+    private final List<Identifier> columns;
+    private final List<FieldType> types;
+    private final Settings settings;
+
+    // Columns are in the order of the fields in a record
+    public BulkLoader(Identifier tableIdentifier, List<Identifier> columns, List<FieldType> types, Settings settings) {
+        this.tableIdentifier = Objects.requireNonNull(tableIdentifier);
+        this.columns = List.copyOf(columns);
+        this.types = List.copyOf(types);
+        this.settings = Objects.requireNonNull(settings);
+
+        if (this.columns.isEmpty() || this.columns.size() != this.types.size()) {
+            throw new IllegalArgumentException("Expected a type for each of the columns, got " + this.types.size() + " for " + this.columns.size());
+        }
+    }
+
+    // Looks the columns' field types up in the database metadata. The identifier may be qualified with a schema, otherwise the connection's
+    // current schema is searched. Names are escaped, as getColumns takes LIKE patterns (where '_' is a wildcard).
+    public static List<FieldType> resolveTypes(Connection connection, Identifier tableIdentifier, List<Identifier> columns) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String escape = metaData.getSearchStringEscape();
+
+        String name = tableIdentifier.name();
+        int dot = name.lastIndexOf('.');
+        String schema = (dot >= 0) ? name.substring(0, dot) : connection.getSchema();
+        String table = name.substring(dot + 1);
+
+        Map<String, Integer> sqlTypes = new HashMap<>();
+        for (Function<String, String> caseFolding : CASE_FOLDINGS) {
+            String schemaPattern = (schema == null) ? null : escapePattern((dot >= 0) ? caseFolding.apply(schema) : schema, escape);
+            try (ResultSet rs = metaData.getColumns(null, schemaPattern, escapePattern(caseFolding.apply(table), escape), null)) {
+                while (rs.next()) {
+                    sqlTypes.put(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), rs.getInt("DATA_TYPE"));
+                }
+            }
+            if (!sqlTypes.isEmpty()) {
+                break; /* Found under this case */
+            }
+        }
+
+        List<FieldType> types = new ArrayList<>(columns.size());
+        for (Identifier column : columns) {
+            Integer sqlType = sqlTypes.get(column.name().toLowerCase(Locale.ROOT));
+            if (sqlType == null) {
+                throw new SQLException("No column " + column.name() + " in table " + tableIdentifier.name());
+            }
+            types.add(FieldType.of(sqlType));
+        }
+        return types;
+    }
+
+    private static String escapePattern(String name, String escape) {
+        if (escape == null || escape.isEmpty()) {
+            return name;
+        }
+        return name.replace(escape, escape + escape).replace("_", escape + "_").replace("%", escape + "%");
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    public LoadStats load(Connection connection, Path file) throws SQLException, IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(connection, channel);
+        }
+    }
+
+    public LoadStats load(Connection connection, ReadableByteChannel channel) throws SQLException, IOException {
+        Objects.requireNonNull(connection);
+        Objects.requireNonNull(channel);
+
+        long start = System.nanoTime();
+        Parser parser = new Parser(new DelimitedRecordReader(channel, settings.format(), settings.bufferSize()));
+        Executor executor = (settings.executor() != null) ? settings.executor() : QueryExecutors.defaultExecutor();
+        executor.execute(parser);
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        long rowCount = 0;
+        long batchCount = 0;
+        long commitCount = 0;
+        long uncommitted = 0;
+        BatchInsertionQuery query = new BatchInsertionQuery(tableIdentifier, columns); /* Reused for every batch */
+        query.setBatchSize(settings.batchSize());
+        try {
+            while (true) {
+                List<List<AbstractLiteral<?>>> batch = parser.takeBatch();
+                if (batch == END_OF_INPUT) {
+                    break;
+                }
+
+                query.clearRows();
+                for (List<AbstractLiteral<?>> row : batch) {
+                    query.addRow(row);
+                }
+                query.executePrepared(connection);
+
+                rowCount += batch.size();
+                uncommitted += batch.size();
+                batchCount++;
+                if (uncommitted >= settings.commitInterval()) {
+                    connection.commit();
+                    commitCount++;
+                    uncommitted = 0;
+                    reportProgress(new LoadStats(rowCount, batchCount, commitCount, Duration.ofNanos(System.nanoTime() - start)));
+                }
+            }
+
+            parser.rethrowFailure();
+            if (uncommitted > 0) {
+                connection.commit();
+                commitCount++;
+            }
+        } catch (SQLException | IOException | RuntimeException | Error e) {
+            parser.stop();
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        LoadStats stats = new LoadStats(rowCount, batchCount, commitCount, Duration.ofNanos(System.nanoTime() - start));
+        reportProgress(stats);
+        return stats;
+    }
+
+    private void reportProgress(LoadStats stats) {
+        if (settings.progressListener() != null) {
+            settings.progressListener().accept(stats);
+        }
+    }
+
+    // The first stage: reads and converts records into batches of literal rows
+    private final class Parser implements Runnable {
+
+        private final DelimitedRecordReader reader;
+        private final BlockingQueue<List<List<AbstractLiteral<?>>>> batches;
+        private final AtomicBoolean claimed = new AtomicBoolean(); /* By either run or stop, whichever comes first */
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean stopped;
+        private volatile Throwable failure;
+
+        Parser(DelimitedRecordReader reader) {
+            this.reader = reader;
+            batches = new ArrayBlockingQueue<>(settings.queueCapacity());
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return; /* Stopped before it got to run */
+            }
+
+            try {
+                if (settings.skipHeader()) {
+                    reader.next();
+                }
+
+                List<List<AbstractLiteral<?>>> batch = new ArrayList<>(settings.batchSize());
+                while (!stopped && reader.next()) {
+                    batch.add(convertRecord());
+                    if (batch.size() == settings.batchSize()) {
+                        hand(batch);
+                        batch = new ArrayList<>(settings.batchSize());
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    hand(batch);
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                hand(END_OF_INPUT);
+                finished.countDown();
+            }
+        }
+
+        private List<AbstractLiteral<?>> convertRecord() {
+            if (reader.getFieldCount() != types.size()) {
+                throw new IllegalStateException("Record " + reader.getRecordNumber() + " has " + reader.getFieldCount() + " fields, expected " + types.size());
+            }
+
+            AbstractLiteral<?>[] row = new AbstractLiteral<?>[types.size()];
+            for (int i = 0; i < row.length; i++) {
+                try {
+                    row[i] = types.get(i).parse(reader, i);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Invalid field " + (i + 1) + " in record " + reader.getRecordNumber() + ": " + e.getMessage(), e);
+                }
+            }
+            return List.of(row);
+        }
+
+        // Blocks while the queue is full (that is backpressure from the writer), unless the load got stopped
+        private void hand(List<List<AbstractLiteral<?>>> batch) {
+            try {
+                while (!batches.offer(batch, 10, TimeUnit.MILLISECONDS)) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+                if (failure == null) {
+                    failure = e;
+                }
+                batches.clear(); /* Make sure the writer gets to see the end */
+                batches.offer(END_OF_INPUT);
+            }
+        }
+
+        List<List<AbstractLiteral<?>>> takeBatch() throws SQLException {
+            try {
+                return batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for parsed rows", e);
+            }
+        }
+
+        void rethrowFailure() throws IOException {
+            Throwable t = failure;
+            if (t instanceof IOException e) {
+                throw e;
+            } else if (t instanceof RuntimeException e) {
+                throw e;
+            } else if (t instanceof Error e) {
+                throw e;
+            } else if (t != null) {
+                throw new IllegalStateException(t);
+            }
+        }
+
+        // Waits for a running parser to notice, so that it's no longer reading once the caller closes the channel
+        void stop() {
+            stopped = true;
+            if (claimed.compareAndSet(false, true)) {
+                return; /* Never started, and now never will */
+            }
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
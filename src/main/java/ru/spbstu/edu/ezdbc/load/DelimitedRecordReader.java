@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.load;
+
+import ru.spbstu.edu.ezdbc.rs.consume.DelimitedExporter.Format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Tokenizer for the formats written by DelimitedExporter. Records are parsed in place: fields are just ranges of the read buffer, and are only
+// decoded (integers without any intermediate String) when asked for. Records crossing the end of the buffer are moved to its start before
+// reading on, and the buffer grows if a single record doesn't fit. Not thread-safe.
+final class DelimitedRecordReader {
+
+    private final ReadableByteChannel channel;
+    private final Format format;
+    private final byte delimiter;
+
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    private int fieldCount;
+    private int[] starts;
+    private int[] ends;
+    private boolean[] quoted;
+    private boolean[] escaped;
+    private long recordNumber;
+
+    DelimitedRecordReader(ReadableByteChannel channel, Format format, int bufferSize) {
+        this.channel = channel;
+        this.format = format;
+        delimiter = (byte) ((format == Format.CSV) ? ',' : '\t');
+
+        buffer = new byte[bufferSize];
+        starts = new int[16];
+        ends = new int[16];
+        quoted = new boolean[16];
+        escaped = new boolean[16];
+    }
+
+    // 1-based number of the current record (blank CSV lines excluded)
+    long getRecordNumber() {
+        return recordNumber;
+    }
+
+    int getFieldCount() {
+        return fieldCount;
+    }
+
+    // Moves to the next record, returning false at the end of input. Blank lines are skipped in CSV only: an empty TSV line is a record with a
+    // single empty string (NULL would be \N), so it is kept.
+    boolean next() throws IOException {
+        while (true) {
+            int end = parseRecord(position);
+            if (end < 0) {
+                if (endOfInput) {
+                    return false; /* Only reachable with nothing left */
+                }
+                refill();
+                continue;
+            }
+
+            position = end;
+            if (format == Format.CSV && fieldCount == 1 && starts[0] == ends[0] && !quoted[0]) {
+                continue; /* Blank line */
+            }
+            recordNumber++;
+            return true;
+        }
+    }
+
+    // CSV NULLs are empty unquoted fields (an empty string is ""), TSV ones are \N (an empty field is an empty string)
+    boolean isNull(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        if (format == Format.CSV) {
+            return start == end && !quoted[field];
+        }
+        return end - start == 2 && buffer[start] == '\\' && buffer[start + 1] == 'N';
+    }
+
+    String getString(int field) {
+        int start = starts[field];
+        int end = ends[field];
+        if (!escaped[field]) {
+            return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        byte[] unescaped = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (format == Format.CSV) {
+                if (b == '"') {
+                    i++; /* Doubled quote */
+                }
+            } else if (b == '\\' && i + 1 < end) {
+                b = switch (buffer[++i]) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> buffer[i];
+                };
+            }
+            unescaped[length++] = b;
+        }
+        return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+    }
+
+    long parseLong(int field) {
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i++] == '-';
+        }
+        if (i == end) {
+            throw numberFormatException(field);
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw numberFormatException(field);
+            }
+            /* Accumulated negatively, so that Long.MIN_VALUE fits */
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw numberFormatException(field);
+            }
+            value = value * 10 - digit;
+        }
+
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw numberFormatException(field);
+            }
+            return -value;
+        }
+        return value;
+    }
+
+    private NumberFormatException numberFormatException(int field) {
+        return new NumberFormatException("Not an integer: \"" + getString(field) + "\"");
+    }
+
+    // Returns the position right after the record starting at the provided one, or -1 if it isn't complete yet
+    private int parseRecord(int from) {
+        fieldCount = 0;
+        int i = from;
+        if (i >= limit) {
+            return -1;
+        }
+
+        while (true) {
+            ensureFieldCapacity();
+            int field = fieldCount++;
+            quoted[field] = false;
+            escaped[field] = false;
+
+            if (format == Format.CSV && i < limit && buffer[i] == '"') {
+                quoted[field] = true;
+                starts[field] = ++i;
+                while (true) {
+                    if (i >= limit) {
+                        if (endOfInput) {
+                            throw new IllegalStateException("Unterminated quoted field in record " + (recordNumber + 1));
+                        }
+                        return -1;
+                    }
+                    if (buffer[i] == '"') {
+                        if (i + 1 >= limit && !endOfInput) {
+                            return -1; /* Can't tell an escaped quote yet */
+                        }
+                        if (i + 1 < limit && buffer[i + 1] == '"') {
+                            escaped[field] = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                ends[field] = i++;
+            } else {
+                starts[field] = i;
+                while (i < limit && buffer[i] != delimiter && buffer[i] != '\n' && buffer[i] != '\r') {
+                    if (buffer[i] == '\\' && format == Format.TSV) {
+                        escaped[field] = true;
+                    }
+                    i++;
+                }
+                ends[field] = i;
+            }
+
+            if (i >= limit) {
+                return endOfInput ? i : -1;
+            }
+
+            byte b = buffer[i];
+            if (b == delimiter) {
+                i++;
+            } else if (b == '\n') {
+                return i + 1;
+            } else if (b == '\r') {
+                if (i + 1 >= limit && !endOfInput) {
+                    return -1; /* Can't tell CRLF yet */
+                }
+                return (i + 1 < limit && buffer[i + 1] == '\n') ? (i + 2) : (i + 1);
+            } else {
+                throw new IllegalStateException("Unexpected character after closing quote in record " + (recordNumber + 1));
+            }
+        }
+    }
+
+    private void refill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void ensureFieldCapacity() {
+        if (fieldCount == starts.length) {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            quoted = Arrays.copyOf(quoted, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.load;
+
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.BooleanLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.DoubleLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.FloatLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.LongLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.ObjectLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveDoubleLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveIntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveLongLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.TimestampLiteral;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalTime;
+import java.util.Locale;
+
+// How a field is parsed and which literal (and thus which typed setter) it is bound as. The parsers accept what DelimitedExporter writes.
+public enum FieldType {
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    DECIMAL,
+    BOOLEAN,
+    STRING,
+    DATE,
+    TIME,
+    TIMESTAMP,
+    OTHER;
+
+    // Types without a dedicated parser (UUID, JSON, intervals, ...) are OTHER, bound via setObject(..., Types.OTHER) rather than as strings,
+    // so that the driver lets the database convert the text instead of rejecting a VARCHAR parameter
+    public static FieldType of(int sqlType) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> INT;
+            case Types.BIGINT -> LONG;
+            case Types.REAL -> FLOAT;
+            case Types.FLOAT, Types.DOUBLE -> DOUBLE;
+            case Types.DECIMAL, Types.NUMERIC -> DECIMAL;
+            case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR, Types.CLOB, Types.NCLOB -> STRING;
+            case Types.DATE -> DATE;
+            case Types.TIME -> TIME;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            default -> OTHER;
+        };
+    }
+
+    // Typed NULL, so that it is bound with the right SQL type
+    AbstractLiteral<?> nullLiteral() {
+        return switch (this) {
+            case INT -> new IntLiteral(null);
+            case LONG -> new LongLiteral(null);
+            case FLOAT -> new FloatLiteral(null);
+            case DOUBLE -> new DoubleLiteral(null);
+            case DECIMAL -> new ObjectLiteral(null, Types.DECIMAL);
+            case BOOLEAN -> new ObjectLiteral(null, Types.BOOLEAN);
+            case STRING -> new StringLiteral(null);
+            case DATE -> new ObjectLiteral(null, Types.DATE);
+            case TIME -> new ObjectLiteral(null, Types.TIME);
+            case TIMESTAMP -> new TimestampLiteral(null);
+            case OTHER -> new ObjectLiteral(null, Types.OTHER);
+        };
+    }
+
+    AbstractLiteral<?> parse(DelimitedRecordReader reader, int field) {
+        if (reader.isNull(field)) {
+            return nullLiteral();
+        }
+
+        return switch (this) {
+            case INT -> PrimitiveIntLiteral.of(Math.toIntExact(reader.parseLong(field)));
+            case LONG -> PrimitiveLongLiteral.of(reader.parseLong(field));
+            case FLOAT -> new FloatLiteral(Float.parseFloat(reader.getString(field)));
+            case DOUBLE -> PrimitiveDoubleLiteral.of(Double.parseDouble(reader.getString(field)));
+            case DECIMAL -> new ObjectLiteral(new BigDecimal(reader.getString(field)), Types.DECIMAL);
+            case BOOLEAN -> BooleanLiteral.of(parseBoolean(reader.getString(field)));
+            case STRING -> new StringLiteral(reader.getString(field));
+            case DATE -> new ObjectLiteral(Date.valueOf(reader.getString(field)), Types.DATE);
+            case TIME -> new ObjectLiteral(LocalTime.parse(reader.getString(field)), Types.TIME); /* java.sql.Time would drop the fraction */
+            case TIMESTAMP -> new TimestampLiteral(Timestamp.valueOf(reader.getString(field)));
+            case OTHER -> new ObjectLiteral(reader.getString(field), Types.OTHER);
+        };
+    }
+
+    // Strict, unlike Boolean.parseBoolean, so that garbage is reported instead of loaded as false
+    private static boolean parseBoolean(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "t", "1" -> true;
+            case "false", "f", "0" -> false;
+            default -> throw new IllegalArgumentException("Not a boolean: " + value);
+        };
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+
+// A single materialized column: values live in a growable array of the column's own type (see subclasses), and NULLs in a bitmap that is only
+// allocated once the first NULL shows up
+public abstract sealed class Column permits IntColumn, LongColumn, DoubleColumn, StringColumn, ObjectColumn {
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    private final String name;
+    private final int sqlType;
+
+    private long[] nullBitmap;
+    private int nullCount;
+    int size;
+
+    Column(String name, int sqlType) {
+        this.name = Objects.requireNonNull(name);
+        this.sqlType = sqlType;
+    }
+
+    public final String getName() {
+        return name;
+    }
+
+    // One of java.sql.Types, as reported by the ResultSet's metadata
+    public final int getSQLType() {
+        return sqlType;
+    }
+
+    public final int size() {
+        return size;
+    }
+
+    public final int getNullCount() {
+        return nullCount;
+    }
+
+    public final boolean isNull(int row) {
+        Objects.checkIndex(row, size);
+        return nullBitmap != null && (row >>> 6) < nullBitmap.length && (nullBitmap[row >>> 6] & (1L << row)) != 0;
+    }
+
+    // Reads the provided column of the current row and appends it
+    abstract void appendFrom(ResultSet rs, int column) throws SQLException;
+
+    // Shrinks the backing arrays to the column's size, once all rows are in
+    abstract void trimToSize();
+
+    // Approximate amount of memory held by the column's arrays (not counting the objects they reference, except for StringColumn's dictionary)
+    public abstract long estimateFootprintBytes();
+
+    final void markNull(int row) {
+        int word = row >>> 6;
+        if (nullBitmap == null) {
+            nullBitmap = new long[Math.max(word + 1, (DEFAULT_CAPACITY >>> 6))];
+        } else if (word >= nullBitmap.length) {
+            nullBitmap = Arrays.copyOf(nullBitmap, Math.max(word + 1, nullBitmap.length * 2));
+        }
+        nullBitmap[word] |= 1L << row;
+        nullCount++;
+    }
+
+    final long nullBitmapFootprintBytes() {
+        return (nullBitmap == null) ? 0 : (8L * nullBitmap.length);
+    }
+
+    static int grownCapacity(int capacity) {
+        return Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1));
+    }
+
+    @Override
+    public String toString() {
+        return "%s[name=%s, size=%d, nullCount=%d]".formatted(getClass().getSimpleName(), name, size, nullCount);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.columnar;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// Materializes all remaining rows of a ResultSet column by column, picking each column's representation from its SQL type:
+//  - TINYINT, SMALLINT, INTEGER (and exact numerics of up to 9 digits with no fraction) go into int[]
+//  - BIGINT (and exact numerics of up to 18 digits with no fraction) go into long[]
+//  - REAL, FLOAT, DOUBLE go into double[]
+//  - character types are dictionary-encoded
+//  - anything else (including wider or fractional DECIMAL/NUMERIC, which would lose precision as a double) is kept as is
+// Compared to a List<Map<String, Object>>, a row of primitives costs just its values (no boxing, maps or entries), and scanning a column walks
+// a single contiguous array.
+public final class ColumnarConverter implements ResultSetConverter<ColumnarTable> {
+
+    private final int initialCapacity;
+
+    // The initial capacity is best set to the expected amount of rows (or the fetch size), to avoid re-growing columns
+    public ColumnarConverter(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Invalid initial capacity: " + initialCapacity);
+        }
+        this.initialCapacity = initialCapacity;
+    }
+
+    public ColumnarConverter() {
+        this(Column.DEFAULT_CAPACITY);
+    }
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    @Override
+    public ColumnarTable convert(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        Column[] columns = new Column[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = createColumn(metaData, i + 1);
+        }
+
+        int rowCount = 0;
+        while (rs.next()) {
+            for (int i = 0; i < columnCount; i++) {
+                columns[i].appendFrom(rs, i + 1);
+            }
+            rowCount++;
+        }
+
+        List<Column> result = new ArrayList<>(columnCount);
+        for (Column column : columns) {
+            column.trimToSize();
+            result.add(column);
+        }
+        return new ColumnarTable(result, rowCount);
+    }
+
+    private Column createColumn(ResultSetMetaData metaData, int column) throws SQLException {
+        String name = metaData.getColumnLabel(column);
+        int sqlType = metaData.getColumnType(column);
+
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> new IntColumn(name, sqlType, initialCapacity);
+            case Types.BIGINT -> new LongColumn(name, sqlType, initialCapacity);
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> new DoubleColumn(name, sqlType, initialCapacity);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR ->
+                    new StringColumn(name, sqlType, initialCapacity);
+            case Types.DECIMAL, Types.NUMERIC -> createExactNumericColumn(metaData, column, name, sqlType);
+            default -> new ObjectColumn(name, sqlType, initialCapacity);
+        };
+    }
+
+    private Column createExactNumericColumn(ResultSetMetaData metaData, int column, String name, int sqlType) throws SQLException {
+        int precision = metaData.getPrecision(column);
+        if (metaData.getScale(column) != 0 || precision <= 0) {
+            return new ObjectColumn(name, sqlType, initialCapacity); /* Unknown precision is treated as unbounded */
+        }
+
+        if (precision <= 9) {
+            return new IntColumn(name, sqlType, initialCapacity);
+        }
+        return (precision <= 18) ? new LongColumn(name, sqlType, initialCapacity) : new ObjectColumn(name, sqlType, initialCapacity);
+    }
+}
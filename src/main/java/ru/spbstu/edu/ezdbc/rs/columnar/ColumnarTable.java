@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.columnar;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Immutable result of ColumnarConverter: a fixed amount of rows stored column by column
+public final class ColumnarTable {
+
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByName;
+    private final int rowCount;
+
+    ColumnarTable(List<Column> columns, int rowCount) {
+        this.columns = List.copyOf(columns);
+        this.rowCount = rowCount;
+        columnsByName = this.columns.stream()
+                .collect(Collectors.toUnmodifiableMap(c -> normalize(c.getName()), Function.identity(), (first, duplicate) -> first));
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    // Case-insensitive, like JDBC column labels
+    public Column getColumn(String name) {
+        Column column = columnsByName.get(normalize(Objects.requireNonNull(name)));
+        if (column == null) {
+            throw new NoSuchElementException("No such column: " + name);
+        }
+        return column;
+    }
+
+    public IntColumn getIntColumn(String name) {
+        return getColumn(name, IntColumn.class);
+    }
+
+    public LongColumn getLongColumn(String name) {
+        return getColumn(name, LongColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(String name) {
+        return getColumn(name, DoubleColumn.class);
+    }
+
+    public StringColumn getStringColumn(String name) {
+        return getColumn(name, StringColumn.class);
+    }
+
+    public ObjectColumn getObjectColumn(String name) {
+        return getColumn(name, ObjectColumn.class);
+    }
+
+    public long estimateFootprintBytes() {
+        return columns.stream().mapToLong(Column::estimateFootprintBytes).sum();
+    }
+
+    private <C extends Column> C getColumn(String name, Class<C> type) {
+        Column column = getColumn(name);
+        if (!type.isInstance(column)) {
+            throw new ClassCastException("Column " + name + " is a " + column.getClass().getSimpleName() + ", not a " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarTable[rowCount=%d, columns=%s]".formatted(rowCount, columns);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.DoubleStream;
+
+public final class DoubleColumn extends Column {
+
+    private double[] values;
+
+    DoubleColumn(String name, int sqlType, int initialCapacity) {
+        super(name, sqlType);
+        values = new double[initialCapacity];
+    }
+
+    // NULLs read as 0 (see isNull)
+    public double getDouble(int row) {
+        Objects.checkIndex(row, size);
+        return values[row];
+    }
+
+    // Sequential scan over all values (NULLs included as 0) without copying
+    public DoubleStream stream() {
+        return Arrays.stream(values, 0, size);
+    }
+
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    void appendFrom(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        if (rs.wasNull()) {
+            markNull(size);
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, grownCapacity(values.length));
+        }
+        values[size++] = value;
+    }
+
+    @Override
+    void trimToSize() {
+        if (values.length != size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+
+    @Override
+    public long estimateFootprintBytes() {
+        return 8L * values.length + nullBitmapFootprintBytes();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Dictionary-encoded strings: every distinct value is stored once, and rows only hold its int code (-1 for NULL)
+public final class StringColumn extends Column {
+
+    public static final int NULL_CODE = -1;
+
+    // String and its backing byte[] headers, plus the String's fields
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    // HashMap node, its table slot and the boxed code
+    private static final long MAP_ENTRY_BYTES = 56;
+
+    private int[] codes;
+    private final ArrayList<String> dictionary;
+    private Map<String, Integer> codesByValue; /* Only needed while appending, dropped by trimToSize */
+
+    StringColumn(String name, int sqlType, int initialCapacity) {
+        super(name, sqlType);
+        codes = new int[initialCapacity];
+        dictionary = new ArrayList<>();
+        codesByValue = new HashMap<>();
+    }
+
+    public String getString(int row) {
+        int code = getCode(row);
+        return (code == NULL_CODE) ? null : dictionary.get(code);
+    }
+
+    // Codes can be compared/grouped by instead of the strings themselves
+    public int getCode(int row) {
+        Objects.checkIndex(row, size);
+        return codes[row];
+    }
+
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    @Override
+    void appendFrom(ResultSet rs, int column) throws SQLException {
+        String value = rs.getString(column);
+        int code = NULL_CODE;
+        if (value == null) {
+            markNull(size);
+        } else {
+            code = codesByValue.computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+        }
+
+        if (size == codes.length) {
+            codes = Arrays.copyOf(codes, grownCapacity(codes.length));
+        }
+        codes[size++] = code;
+    }
+
+    @Override
+    void trimToSize() {
+        if (codes.length != size) {
+            codes = Arrays.copyOf(codes, size);
+        }
+        dictionary.trimToSize();
+        codesByValue = null;
+    }
+
+    // Unlike other columns, also counts the dictionary strings, since they are owned by the column rather than shared with the caller
+    @Override
+    public long estimateFootprintBytes() {
+        long bytes = 4L * codes.length + nullBitmapFootprintBytes();
+        bytes += 4L * dictionary.size(); /* Compressed references */
+        for (String value : dictionary) {
+            bytes += STRING_OVERHEAD_BYTES + 2L * value.length(); /* Worst case, UTF-16 coder */
+        }
+        if (codesByValue != null) {
+            bytes += MAP_ENTRY_BYTES * codesByValue.size();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.consume;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+// Exports all remaining rows of a ResultSet as RFC 4180 CSV (CRLF line breaks, fields quoted only when needed, quotes doubled) or as TSV
+// (LF line breaks, with backslash escapes for tabs, line breaks and backslashes), optionally gzipped. NULLs are written as empty unquoted
+// fields in CSV (empty strings as "") and as \N in TSV.
+//
+// Rows are encoded as UTF-8 straight into a large buffer that is only written to the channel when full, so there are no intermediate strings
+// for integers, dates and timestamps, nor per-cell stringifiers. Each consume call writes a complete document (a complete gzip member, if
+// gzipped), but the channel itself is left open. An exporter reuses its buffer and must not be used by multiple threads at once.
+public final class DelimitedExporter implements ResultSetConsumer {
+
+    public enum Format {
+        CSV((byte) ',', "\r\n"),
+        TSV((byte) '\t', "\n");
+
+        private final byte delimiter;
+        private final String lineSeparator;
+
+        Format(byte delimiter, String lineSeparator) {
+            this.delimiter = delimiter;
+            this.lineSeparator = lineSeparator;
+        }
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20; // 1 MiB
+
+    private static final int MAX_UTF8_BYTES_PER_CHAR = 4; // For a surrogate pair, i.e. 2 chars at once
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final boolean header;
+    private final boolean gzip;
+    private final ByteBuffer buffer;
+    private final byte[] digits;
+
+    private WritableByteChannel target;
+    private long rowCount;
+    private long byteCount;
+
+    public DelimitedExporter(WritableByteChannel channel, Format format, boolean header, boolean gzip, int bufferSize) {
+        this.channel = Objects.requireNonNull(channel);
+        this.format = Objects.requireNonNull(format);
+        this.header = header;
+        this.gzip = gzip;
+
+        if (bufferSize < 64) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize + " (must be at least 64)");
+        }
+        /* Direct buffers spare a copy when writing to a FileChannel, while gzip needs an array to compress */
+        buffer = gzip ? ByteBuffer.allocate(bufferSize) : ByteBuffer.allocateDirect(bufferSize);
+        digits = new byte[20];
+    }
+
+    public DelimitedExporter(WritableByteChannel channel, Format format) {
+        this(channel, format, true, false, DEFAULT_BUFFER_SIZE);
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    // Totals over all consume calls
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // Uncompressed
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public void consume(ResultSet rs) throws SQLException {
+        Objects.requireNonNull(rs);
+
+        GzipMember gzipStream = null;
+        try {
+            if (gzip) {
+                gzipStream = new GzipMember(Channels.newOutputStream(channel), buffer.capacity());
+                target = Channels.newChannel(gzipStream);
+            } else {
+                target = channel;
+            }
+
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            int[] types = new int[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                types[i] = metaData.getColumnType(i + 1);
+            }
+
+            if (header) {
+                for (int i = 0; i < columnCount; i++) {
+                    if (i > 0) {
+                        writeByte(format.delimiter);
+                    }
+                    writeText(metaData.getColumnLabel(i + 1));
+                }
+                writeAscii(format.lineSeparator);
+            }
+
+            while (rs.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    if (i > 0) {
+                        writeByte(format.delimiter);
+                    }
+                    writeCell(rs, i + 1, types[i]);
+                }
+                writeAscii(format.lineSeparator);
+                rowCount++;
+            }
+
+            flush();
+            if (gzipStream != null) {
+                gzipStream.finish(); /* Not close(), which would close the channel */
+                gzipStream.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (gzipStream != null) {
+                gzipStream.end(); /* Also after a failure, where the member is left unfinished on purpose */
+            }
+            buffer.clear();
+            target = null;
+        }
+    }
+
+    private void writeCell(ResultSet rs, int column, int type) throws SQLException, IOException {
+        switch (type) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> {
+                int value = rs.getInt(column);
+                if (!rs.wasNull()) {
+                    writeLong(value);
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.BIGINT -> {
+                long value = rs.getLong(column);
+                if (!rs.wasNull()) {
+                    writeLong(value);
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                double value = rs.getDouble(column);
+                if (!rs.wasNull()) {
+                    writeAscii(Double.toString(value));
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.DECIMAL, Types.NUMERIC -> {
+                BigDecimal value = rs.getBigDecimal(column);
+                if (value != null) {
+                    writeAscii(value.toPlainString());
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.BOOLEAN, Types.BIT -> {
+                boolean value = rs.getBoolean(column);
+                if (!rs.wasNull()) {
+                    writeBytes(value ? TRUE : FALSE);
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.DATE -> {
+                Date value = rs.getDate(column);
+                if (value != null) {
+                    writeDate(value.toLocalDate());
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.TIME -> {
+                Time value = rs.getTime(column);
+                if (value != null) {
+                    writeTime(value.toLocalTime());
+                } else {
+                    writeNull();
+                }
+            }
+            case Types.TIMESTAMP -> {
+                Timestamp value = rs.getTimestamp(column);
+                if (value != null) {
+                    LocalDateTime dateTime = value.toLocalDateTime();
+                    writeDate(dateTime.toLocalDate());
+                    writeByte((byte) ' ');
+                    writeTime(dateTime.toLocalTime());
+                } else {
+                    writeNull();
+                }
+            }
+            default -> {
+                String value = rs.getString(column);
+                if (value != null) {
+                    writeText(value);
+                } else {
+                    writeNull();
+                }
+            }
+        }
+    }
+
+    // An empty TSV field is an empty string, so NULLs are spelled out as \N like COPY does
+    private void writeNull() throws IOException {
+        if (format == Format.TSV) {
+            writeAscii("\\N");
+        }
+    }
+
+    // yyyy-MM-dd, with the year written like LocalDate#toString does (at least 4 digits, '+' beyond 9999)
+    private void writeDate(LocalDate date) throws IOException {
+        writeYear(date.getYear());
+        writeByte((byte) '-');
+        writeTwoDigits(date.getMonthValue());
+        writeByte((byte) '-');
+        writeTwoDigits(date.getDayOfMonth());
+    }
+
+    // HH:mm:ss with as many fraction digits as needed (at most 9)
+    private void writeTime(LocalTime time) throws IOException {
+        writeTwoDigits(time.getHour());
+        writeByte((byte) ':');
+        writeTwoDigits(time.getMinute());
+        writeByte((byte) ':');
+        writeTwoDigits(time.getSecond());
+
+        int nanos = time.getNano();
+        if (nanos != 0) {
+            int digitCount = 9;
+            while (nanos % 10 == 0) {
+                nanos /= 10;
+                digitCount--;
+            }
+            writeByte((byte) '.');
+            ensureRemaining(digitCount);
+            for (int i = digitCount - 1; i >= 0; i--) {
+                digits[i] = (byte) ('0' + nanos % 10);
+                nanos /= 10;
+            }
+            buffer.put(digits, 0, digitCount);
+            byteCount += digitCount;
+        }
+    }
+
+    private void writeYear(int year) throws IOException {
+        int absYear = Math.abs(year);
+        if (absYear >= 1000) {
+            if (year > 9999) {
+                writeByte((byte) '+');
+            }
+            writeLong(year);
+            return;
+        }
+
+        if (year < 0) {
+            writeByte((byte) '-');
+        }
+        writeTwoDigits(absYear / 100);
+        writeTwoDigits(absYear % 100);
+    }
+
+    private void writeTwoDigits(int value) throws IOException {
+        ensureRemaining(2);
+        buffer.put((byte) ('0' + value / 10)).put((byte) ('0' + value % 10));
+        byteCount += 2;
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+
+        ensureRemaining(20);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            byteCount++;
+            value = -value;
+        }
+
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        buffer.put(digits, start, digits.length - start);
+        byteCount += digits.length - start;
+    }
+
+    // Quotes/escapes as needed by the format, and encodes as UTF-8
+    private void writeText(String value) throws IOException {
+        if (format == Format.CSV) {
+            boolean quoted = needsQuotes(value);
+            if (quoted) {
+                writeByte((byte) '"');
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writeByte((byte) '"');
+                }
+                i = writeChar(value, i);
+            }
+            if (quoted) {
+                writeByte((byte) '"');
+            }
+            return;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\t' -> writeAscii("\\t");
+                case '\n' -> writeAscii("\\n");
+                case '\r' -> writeAscii("\\r");
+                case '\\' -> writeAscii("\\\\");
+                default -> i = writeChar(value, i);
+            }
+        }
+    }
+
+    // Empty strings are quoted so that they don't read back as NULLs
+    private static boolean needsQuotes(String value) {
+        if (value.isEmpty()) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Writes the char at the provided index (or the surrogate pair starting there) as UTF-8, returning the index of the last char written
+    private int writeChar(String value, int index) throws IOException {
+        ensureRemaining(MAX_UTF8_BYTES_PER_CHAR);
+        int start = buffer.position();
+        char c = value.charAt(index);
+
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | (c >> 6))).put((byte) (0x80 | (c & 0x3F)));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(++index));
+            buffer.put((byte) (0xF0 | (codePoint >> 18)))
+                    .put((byte) (0x80 | ((codePoint >> 12) & 0x3F)))
+                    .put((byte) (0x80 | ((codePoint >> 6) & 0x3F)))
+                    .put((byte) (0x80 | (codePoint & 0x3F)));
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?'); /* Unpaired surrogate, like String#getBytes does */
+        } else {
+            buffer.put((byte) (0xE0 | (c >> 12))).put((byte) (0x80 | ((c >> 6) & 0x3F))).put((byte) (0x80 | (c & 0x3F)));
+        }
+
+        byteCount += buffer.position() - start;
+        return index;
+    }
+
+    // For strings known to be ASCII only
+    private void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            writeByte((byte) value.charAt(i));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+        byteCount += bytes.length;
+    }
+
+    private void writeByte(byte b) throws IOException {
+        ensureRemaining(1);
+        buffer.put(b);
+        byteCount++;
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // finish() writes the trailer but, unlike close(), neither closes the channel nor releases the deflater's native memory
+    private static final class GzipMember extends GZIPOutputStream {
+
+        GzipMember(OutputStream out, int size) throws IOException {
+            super(out, size);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+}
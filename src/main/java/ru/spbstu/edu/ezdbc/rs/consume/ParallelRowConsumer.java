@@ -0,0 +1,330 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.consume;
+
+import ru.spbstu.edu.ezdbc.async.QueryExecutors;
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowableHandler;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingConsumer;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Pipelined alternative to PerRowResultSetConsumer: the fetching thread only extracts each row into an immutable snapshot (via the snapshotter)
+// and queues it, while a fixed amount of workers run the (expensive) processor on snapshots concurrently. This way fetching the next rows
+// overlaps with processing the previous ones.
+//
+// Processing results are handed to the completer one at a time (never concurrently), either in row order or as soon as they are ready. At most
+// queueCapacity rows are in flight (queued, being processed or awaiting ordered completion) at once; beyond that fetching blocks, so memory
+// stays bounded no matter how far processing falls behind.
+//
+// Without an error handler, the first failure stops fetching and processing and is rethrown from consume (wrapped in an SQLException unless
+// it is one). With an error handler, processing/completion failures are handed to it (one at a time) and the rest of the rows are processed as
+// usual. Fetching failures are always rethrown.
+public final class ParallelRowConsumer<S, R> implements ResultSetConsumer {
+
+    public enum Completion {
+        ORDERED,
+        UNORDERED
+    }
+
+    // A null executor means QueryExecutors.defaultExecutor(), a null error handler means "fail fast"
+    public record Settings(int parallelism, int queueCapacity, Completion completion, Executor executor, ThrowableHandler<Exception> errorHandler) {
+
+        public static final Settings DEFAULT = new Settings(Runtime.getRuntime().availableProcessors(), 1024, Completion.UNORDERED, null, null);
+
+        public Settings {
+            if (parallelism <= 0) {
+                throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+            }
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("Invalid queue capacity: " + queueCapacity);
+            }
+            Objects.requireNonNull(completion);
+        }
+
+        public Settings withParallelism(int parallelism) {
+            return new Settings(parallelism, queueCapacity, completion, executor, errorHandler);
+        }
+
+        public Settings withQueueCapacity(int queueCapacity) {
+            return new Settings(parallelism, queueCapacity, completion, executor, errorHandler);
+        }
+
+        public Settings withCompletion(Completion completion) {
+            return new Settings(parallelism, queueCapacity, completion, executor, errorHandler);
+        }
+
+        public Settings withExecutor(Executor executor) {
+            return new Settings(parallelism, queueCapacity, completion, executor, errorHandler);
+        }
+
+        public Settings withErrorHandler(ThrowableHandler<Exception> errorHandler) {
+            return new Settings(parallelism, queueCapacity, completion, executor, errorHandler);
+        }
+    }
+
+    private final ResultSetConverter<S> snapshotter;
+    private final ThrowingFunction<S, R, Exception> processor;
+    private final ThrowingConsumer<R, Exception> completer;
+    private final Settings settings;
+
+    public ParallelRowConsumer(ResultSetConverter<S> snapshotter, ThrowingFunction<S, R, Exception> processor, ThrowingConsumer<R, Exception> completer,
+                               Settings settings) {
+        this.snapshotter = Objects.requireNonNull(snapshotter);
+        this.processor = Objects.requireNonNull(processor);
+        this.completer = Objects.requireNonNull(completer);
+        this.settings = Objects.requireNonNull(settings);
+    }
+
+    // For processing that has no result to complete
+    public static <S> ParallelRowConsumer<S, Void> of(ResultSetConverter<S> snapshotter, ThrowingConsumer<S, Exception> worker, Settings settings) {
+        Objects.requireNonNull(worker);
+        return new ParallelRowConsumer<>(snapshotter, snapshot -> {
+            worker.consume(snapshot);
+            return null;
+        }, result -> {
+        }, settings);
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    @Override
+    public void consume(ResultSet rs) throws SQLException {
+        Objects.requireNonNull(rs);
+
+        Run run = new Run();
+        run.start();
+
+        try {
+            long sequence = 0;
+            while (!run.isStopped() && rs.next()) {
+                S snapshot = snapshotter.convert(rs);
+                if (!run.acquireWindowSlot()) {
+                    break;
+                }
+                run.tasks.add(new Task<>(sequence++, snapshot));
+            }
+        } catch (SQLException | RuntimeException | Error e) {
+            run.fail(e);
+            run.finish();
+            throw e;
+        }
+
+        run.finish();
+        Exception failure = run.failure.get();
+        if (failure instanceof SQLException e) {
+            throw e;
+        } else if (failure != null) {
+            throw new SQLException("Row processing failed", failure);
+        }
+    }
+
+    private record Task<S>(long sequence, S snapshot) {
+    }
+
+    // State of a single consume call
+    private final class Run {
+
+        private static final Object FAILED = new Object();
+        private static final Task<?> POISON = new Task<>(-1, null);
+
+        final BlockingQueue<Task<?>> tasks;
+        final AtomicReference<Exception> failure;
+        private final Semaphore window;
+        private final CountDownLatch workersDone;
+        private final Object completionLock;
+        private final Map<Long, Object> pendingResults; /* Ordered completion only */
+        private long nextSequenceToComplete;
+        private volatile Throwable fatal;
+
+        Run() {
+            tasks = new LinkedBlockingQueue<>(); /* Bounded by the window */
+            failure = new AtomicReference<>();
+            window = new Semaphore(settings.queueCapacity());
+            workersDone = new CountDownLatch(settings.parallelism());
+            completionLock = new Object();
+            pendingResults = new HashMap<>();
+        }
+
+        void start() {
+            Executor executor = (settings.executor() != null) ? settings.executor() : QueryExecutors.defaultExecutor();
+            for (int i = 0; i < settings.parallelism(); i++) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException e) {
+                    for (int j = i; j < settings.parallelism(); j++) {
+                        workersDone.countDown();
+                    }
+                    fail(e);
+                    break;
+                }
+            }
+        }
+
+        boolean isStopped() {
+            return failure.get() != null || fatal != null;
+        }
+
+        // Waits for room in the window, giving up if processing has failed in the meantime (e.g. if all workers died)
+        boolean acquireWindowSlot() throws SQLException {
+            try {
+                while (!window.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                    if (isStopped()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                throw new SQLException("Interrupted while waiting for row processing", e);
+            }
+        }
+
+        // Stops the workers once they are done with the queue, and waits for that
+        void finish() {
+            for (int i = 0; i < settings.parallelism(); i++) {
+                tasks.add(POISON);
+            }
+
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    workersDone.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (fatal instanceof Error e) {
+                throw e;
+            }
+        }
+
+        void fail(Throwable t) {
+            if (t instanceof Exception e) {
+                failure.compareAndSet(null, e);
+            } else {
+                fatal = t;
+            }
+        }
+
+        // Every taken task gets completed, whatever the processor throws, so that its window slot is released and ordered completion never
+        // waits for a sequence number that is never coming. Errors stop the run instead of killing the worker.
+        private void work() {
+            try {
+                while (true) {
+                    Task<?> task = tasks.take();
+                    if (task == POISON) {
+                        return;
+                    }
+
+                    @SuppressWarnings("unchecked") S snapshot = (S) task.snapshot();
+                    Object result = FAILED;
+                    if (!isStopped()) {
+                        try {
+                            result = processor.apply(snapshot);
+                        } catch (Throwable t) {
+                            onError(t);
+                        }
+                    }
+                    complete(task.sequence(), result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            } catch (Throwable t) {
+                fail(t); /* Not expected, as neither complete nor onError throw */
+            } finally {
+                workersDone.countDown();
+            }
+        }
+
+        private void complete(long sequence, Object result) {
+            synchronized (completionLock) {
+                if (settings.completion() == Completion.UNORDERED) {
+                    completeOne(result);
+                    return;
+                }
+
+                pendingResults.put(sequence, result);
+                while (pendingResults.containsKey(nextSequenceToComplete)) {
+                    completeOne(pendingResults.remove(nextSequenceToComplete++));
+                }
+            }
+        }
+
+        private void completeOne(Object result) {
+            try {
+                if (result != FAILED && !isStopped()) {
+                    @SuppressWarnings("unchecked") R typedResult = (R) result;
+                    completer.consume(typedResult);
+                }
+            } catch (Throwable t) {
+                onError(t);
+            } finally {
+                window.release();
+            }
+        }
+
+        // Errors, and whatever the error handler itself throws, always stop the run
+        private void onError(Throwable t) {
+            ThrowableHandler<Exception> errorHandler = settings.errorHandler();
+            if (errorHandler == null || !(t instanceof Exception e)) {
+                fail(t);
+                return;
+            }
+
+            try {
+                synchronized (completionLock) {
+                    errorHandler.handle(e);
+                }
+            } catch (Throwable handlerFailure) {
+                handlerFailure.addSuppressed(e);
+                fail(handlerFailure);
+            }
+        }
+    }
+}
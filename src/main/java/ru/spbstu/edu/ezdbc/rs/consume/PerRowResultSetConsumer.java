@@ -28,15 +28,32 @@ package ru.spbstu.edu.ezdbc.rs.consume;
 import ru.spbstu.edu.ezdbc.util.fn.ThrowingConsumer;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 
 public class PerRowResultSetConsumer implements ResultSetConsumer {
 
     private final ThrowingConsumer<ResultSet, SQLException> rowConsumer;
+    private final List<String> labels;
+    private final IndexedRowConsumer indexedRowConsumer;
 
     public PerRowResultSetConsumer(ThrowingConsumer<ResultSet, SQLException> rowConsumer) {
         this.rowConsumer = Objects.requireNonNull(rowConsumer);
+        labels = null;
+        indexedRowConsumer = null;
+    }
+
+    // Labels are resolved to column indices once per ResultSet (on its first row), so that rows are read by index instead of making the driver
+    // look every label up for every cell
+    public PerRowResultSetConsumer(List<String> labels, IndexedRowConsumer rowConsumer) {
+        this.labels = List.copyOf(labels);
+        indexedRowConsumer = Objects.requireNonNull(rowConsumer);
+        this.rowConsumer = rs -> indexedRowConsumer.consume(rs, resolveColumnIndices(rs, this.labels)); /* No reuse for a single row */
     }
 
     public ThrowingConsumer<ResultSet, SQLException> getRowConsumer() {
@@ -46,8 +63,37 @@ public class PerRowResultSetConsumer implements ResultSetConsumer {
     @Override
     public void consume(ResultSet rs) throws SQLException {
         Objects.requireNonNull(rs);
+
+        if (indexedRowConsumer == null) {
+            while (rs.next()) {
+                rowConsumer.consume(rs);
+            }
+            return;
+        }
+
+        int[] columnIndices = null;
         while (rs.next()) {
-            rowConsumer.consume(rs);
+            if (columnIndices == null) {
+                columnIndices = resolveColumnIndices(rs, labels);
+            }
+            indexedRowConsumer.consume(rs, columnIndices);
+        }
+    }
+
+    // Labels are matched case-insensitively, the leftmost column winning. Anything the metadata doesn't know about is left to the driver.
+    public static int[] resolveColumnIndices(ResultSet rs, List<String> labels) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        Map<String, Integer> indicesByLabel = new HashMap<>();
+        for (int column = metaData.getColumnCount(); column >= 1; column--) {
+            indicesByLabel.put(metaData.getColumnLabel(column).toLowerCase(Locale.ROOT), column);
+        }
+
+        int[] columnIndices = new int[labels.size()];
+        for (int i = 0; i < columnIndices.length; i++) {
+            String label = labels.get(i);
+            Integer column = indicesByLabel.get(label.toLowerCase(Locale.ROOT));
+            columnIndices[i] = (column != null) ? column : rs.findColumn(label);
         }
+        return columnIndices;
     }
 }
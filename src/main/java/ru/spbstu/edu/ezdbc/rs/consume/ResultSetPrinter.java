@@ -26,22 +26,32 @@
 package ru.spbstu.edu.ezdbc.rs.consume;
 
 import java.io.PrintStream;
-import java.util.StringJoiner;
+import java.util.List;
 import java.util.function.Function;
 
+// Prints one line per row, built in a buffer reused across rows (so a printer must not be used by multiple threads at once)
 public class ResultSetPrinter extends PerRowResultSetConsumer {
 
     public ResultSetPrinter(PrintStream out, Function<Object, String> stringifier, String delim, String prefix, String suffix, String... labels) {
-        super(resultSet -> {
-            StringJoiner joiner = new StringJoiner(delim, prefix, suffix);
+        this(out, stringifier, delim, prefix, suffix, new StringBuilder(), labels);
+    }
+
+    private ResultSetPrinter(PrintStream out, Function<Object, String> stringifier, String delim, String prefix, String suffix, StringBuilder line,
+                             String... labels) {
+        super(List.of(labels), (resultSet, columnIndices) -> {
+            line.setLength(0);
+            line.append(prefix);
 
-            for (String label : labels) {
-                Object obj = resultSet.getObject(label);
-                String objAsString = stringifier.apply(obj);
-                joiner.add(objAsString);
+            for (int i = 0; i < columnIndices.length; i++) {
+                if (i > 0) {
+                    line.append(delim);
+                }
+                Object obj = resultSet.getObject(columnIndices[i]);
+                line.append(stringifier.apply(obj));
             }
 
-            out.println(joiner);
+            line.append(suffix);
+            out.println(line);
         });
     }
 
@@ -25,9 +25,17 @@
 
 package ru.spbstu.edu.ezdbc.rs.convert;
 
+import ru.spbstu.edu.ezdbc.util.UncheckedSQLException;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @FunctionalInterface
 public interface ResultSetConverter<T> {
@@ -57,4 +65,34 @@ public interface ResultSetConverter<T> {
             return Optional.empty();
         }
     }
+
+    // Lazily applies this converter to every remaining row, one row at a time, so only the current row is ever held in memory. Closing the
+    // stream closes the ResultSet. Converters may map a row to null, so the stream may hold nulls. SQLExceptions are rethrown as
+    // UncheckedSQLException.
+    default Stream<T> stream(ResultSet rs) {
+        Objects.requireNonNull(rs);
+
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(convert(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+    }
 }
@@ -0,0 +1,344 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.convert;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Factories of per-row converters that map the current row onto a record (via its canonical constructor) or a bean (via its no-arg constructor
+// and setters). Columns are matched to properties by label, ignoring case and underscores (so "user_id" matches "userId").
+//
+// Column indices are resolved from the metadata and compiled into a single MethodHandle tree of typed getters (getInt, getLong, getDouble,
+// etc.) feeding the constructor/setters, so converting a row is one invokeExact call on that composed handle, with no reflection, boxing of
+// primitives or argument arrays. The handle can't be a constant (it depends on the layout), but the JVM compiles a dedicated form for a handle
+// invoked this often, so there is no per-getter dispatch left. Compiled plans are cached per column layout (labels and types), so every
+// query with the same select list reuses one, and only the metadata of a new ResultSet is read. The target classes must be accessible via the
+// provided lookup (the public lookup by default).
+//
+// A SQL NULL can't be stored in a primitive property, so reading one fails with an SQLException instead of silently becoming 0 or false; use
+// a boxed type for nullable columns. Overloaded bean setters are resolved like JavaBeans do: the one taking the type of the property's getter
+// wins, and without such a getter the property is ambiguous and rejected.
+public final class RowMappers {
+
+    private static final MethodHandles.Lookup JDBC_LOOKUP = MethodHandles.publicLookup();
+    private static final MethodHandle REQUIRE_NOT_NULL;
+    private static final Map<Class<?>, String> TYPED_GETTERS = Map.ofEntries(
+            Map.entry(boolean.class, "getBoolean"),
+            Map.entry(byte.class, "getByte"),
+            Map.entry(short.class, "getShort"),
+            Map.entry(int.class, "getInt"),
+            Map.entry(long.class, "getLong"),
+            Map.entry(float.class, "getFloat"),
+            Map.entry(double.class, "getDouble"),
+            Map.entry(String.class, "getString"),
+            Map.entry(BigDecimal.class, "getBigDecimal"),
+            Map.entry(byte[].class, "getBytes"),
+            Map.entry(Date.class, "getDate"),
+            Map.entry(Time.class, "getTime"),
+            Map.entry(Timestamp.class, "getTimestamp")
+    );
+
+    static {
+        try {
+            REQUIRE_NOT_NULL = MethodHandles.lookup().findStatic(RowMappers.class, "requireNotNull",
+                    MethodType.methodType(void.class, ResultSet.class, int.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private RowMappers() {
+    }
+
+    public static <T extends Record> ResultSetConverter<T> ofRecord(Class<T> type) {
+        return ofRecord(type, MethodHandles.publicLookup());
+    }
+
+    public static <T extends Record> ResultSetConverter<T> ofRecord(Class<T> type, MethodHandles.Lookup lookup) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(lookup);
+
+        RecordComponent[] components = type.getRecordComponents();
+        List<Property> properties = new ArrayList<>(components.length);
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            properties.add(new Property(components[i].getName(), components[i].getType(), null));
+            parameterTypes[i] = components[i].getType();
+        }
+
+        MethodHandle constructor;
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Canonical constructor of " + type.getName() + " is not accessible", e);
+        }
+
+        return new MappingConverter<>(type, properties, true, columns -> {
+            // (ResultSet, ..., ResultSet) -> T, with each argument filtered through its column's getter, then collapsed into a single argument
+            MethodHandle[] getters = new MethodHandle[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                getters[i] = getter(properties.get(i), columns[i], type);
+            }
+            MethodHandle filtered = MethodHandles.filterArguments(constructor, 0, getters);
+            return MethodHandles.permuteArguments(filtered, MethodType.methodType(type, ResultSet.class), new int[columns.length]);
+        });
+    }
+
+    public static <T> ResultSetConverter<T> ofBean(Class<T> type) {
+        return ofBean(type, MethodHandles.publicLookup());
+    }
+
+    public static <T> ResultSetConverter<T> ofBean(Class<T> type, MethodHandles.Lookup lookup) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(lookup);
+
+        // getMethods() has no particular order, so setters are grouped by property (sorted, to keep plans stable) before picking overloads
+        Map<String, List<Method>> settersByProperty = new TreeMap<>();
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            boolean isSetter = name.length() > 3 && name.startsWith("set")
+                    && method.getParameterCount() == 1
+                    && method.getReturnType() == void.class
+                    && !Modifier.isStatic(method.getModifiers());
+            if (isSetter) {
+                settersByProperty.computeIfAbsent(normalize(name.substring(3)), key -> new ArrayList<>()).add(method);
+            }
+        }
+
+        List<Property> properties = new ArrayList<>(settersByProperty.size());
+        for (List<Method> candidates : settersByProperty.values()) {
+            Method setter = pickSetter(type, candidates);
+            try {
+                properties.add(new Property(setter.getName().substring(3), setter.getParameterTypes()[0], lookup.unreflect(setter)));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Setter " + setter.getName() + " of " + type.getName() + " is not accessible", e);
+            }
+        }
+
+        MethodHandle constructor;
+        try {
+            constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("No-arg constructor of " + type.getName() + " is not accessible", e);
+        }
+
+        return new MappingConverter<>(type, properties, false, columns -> {
+            // Built back to front: (T, ResultSet) -> T that runs every setter (filtered through its column's getter) and returns the bean
+            MethodHandle body = MethodHandles.dropArguments(MethodHandles.identity(type), 1, ResultSet.class);
+            for (int i = properties.size() - 1; i >= 0; i--) {
+                if (columns[i] != MappingConverter.NO_COLUMN) {
+                    MethodHandle setter = properties.get(i).setter.asType(MethodType.methodType(void.class, type, properties.get(i).type));
+                    body = MethodHandles.foldArguments(body, MethodHandles.filterArguments(setter, 1, getter(properties.get(i), columns[i], type)));
+                }
+            }
+            return MethodHandles.foldArguments(body, MethodHandles.dropArguments(constructor, 0, ResultSet.class));
+        });
+    }
+
+    // Among overloaded setters of one property, the one matching the getter's type (getX or isX) wins
+    private static Method pickSetter(Class<?> type, List<Method> candidates) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        String name = candidates.get(0).getName().substring(3);
+        for (String prefix : List.of("get", "is")) {
+            try {
+                Class<?> propertyType = type.getMethod(prefix + name).getReturnType();
+                for (Method candidate : candidates) {
+                    if (candidate.getParameterTypes()[0] == propertyType) {
+                        return candidate;
+                    }
+                }
+            } catch (NoSuchMethodException ignored) {
+                // Try the other prefix
+            }
+        }
+        throw new IllegalArgumentException("Ambiguous setters for property " + name + " of " + type.getName() + ": " + candidates);
+    }
+
+    // (ResultSet) -> property type, reading the provided column with the most specific getter available
+    private static MethodHandle getter(Property property, int column, Class<?> owner) {
+        Class<?> type = property.type;
+        try {
+            String name = TYPED_GETTERS.get(type);
+            MethodHandle getter;
+            if (name != null) {
+                getter = JDBC_LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(type, int.class));
+                getter = MethodHandles.insertArguments(getter, 1, column);
+            } else {
+                getter = JDBC_LOOKUP.findVirtual(ResultSet.class, "getObject", MethodType.methodType(Object.class, int.class, Class.class));
+                Class<?> boxed = MethodType.methodType(type).wrap().returnType();
+                getter = MethodHandles.insertArguments(getter, 1, column, boxed).asType(MethodType.methodType(boxed, ResultSet.class));
+            }
+
+            if (type.isPrimitive()) {
+                getter = rejectingNull(getter, column, "property " + property.name + " of " + owner.getName());
+            }
+            return getter.asType(MethodType.methodType(type, ResultSet.class));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e); /* ResultSet methods are always there */
+        }
+    }
+
+    // Reads the value first and checks wasNull second, as JDBC requires, then returns the value
+    private static MethodHandle rejectingNull(MethodHandle getter, int column, String target) {
+        Class<?> valueType = getter.type().returnType();
+        MethodHandle check = MethodHandles.insertArguments(REQUIRE_NOT_NULL, 1, column, target);
+        MethodHandle returnValue = MethodHandles.dropArguments(MethodHandles.identity(valueType), 1, ResultSet.class);
+        return MethodHandles.foldArguments(MethodHandles.foldArguments(returnValue, 1, check), 0, getter);
+    }
+
+    private static void requireNotNull(ResultSet rs, int column, String target) throws SQLException {
+        if (rs.wasNull()) {
+            throw new SQLException("Column " + column + " is NULL, but " + target + " is primitive");
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Property(String name, Class<?> type, MethodHandle setter) {
+    }
+
+    @FunctionalInterface
+    private interface Compiler {
+
+        MethodHandle compile(int[] columns);
+    }
+
+    private static final class MappingConverter<T> implements ResultSetConverter<T> {
+
+        static final int NO_COLUMN = 0; // JDBC column indices are 1-based
+        private static final int MAX_CACHED_LAYOUTS = 64;
+
+        private final Class<T> type;
+        private final List<Property> properties;
+        private final boolean allRequired;
+        private final Compiler compiler;
+        private final Map<Layout, MethodHandle> plansByLayout;
+
+        private volatile LastPlan lastPlan;
+
+        MappingConverter(Class<T> type, List<Property> properties, boolean allRequired, Compiler compiler) {
+            this.type = type;
+            this.properties = List.copyOf(properties);
+            this.allRequired = allRequired;
+            this.compiler = compiler;
+            plansByLayout = new ConcurrentHashMap<>();
+        }
+
+        @Override
+        public T convert(ResultSet rs) throws SQLException {
+            LastPlan last = lastPlan;
+            MethodHandle handle;
+            if (last != null && last.resultSet.get() == rs) {
+                handle = last.handle; /* Same ResultSet as the previous row, don't even look at the metadata */
+            } else {
+                handle = plan(rs.getMetaData());
+                lastPlan = new LastPlan(new WeakReference<>(rs), handle);
+            }
+
+            try {
+                @SuppressWarnings("unchecked") T item = (T) (Object) handle.invokeExact(rs);
+                return item;
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new SQLException(t);
+            }
+        }
+
+        private MethodHandle plan(ResultSetMetaData metaData) throws SQLException {
+            Layout layout = Layout.of(metaData);
+            MethodHandle handle = plansByLayout.get(layout);
+            if (handle == null) {
+                handle = compile(layout);
+                if (plansByLayout.size() >= MAX_CACHED_LAYOUTS) {
+                    plansByLayout.clear(); /* Only ad hoc select lists get here, there is no point in anything smarter */
+                }
+                plansByLayout.putIfAbsent(layout, handle);
+            }
+            return handle;
+        }
+
+        private MethodHandle compile(Layout layout) throws SQLException {
+            Map<String, Integer> columnsByName = new HashMap<>();
+            for (int column = layout.labels.size(); column >= 1; column--) {
+                columnsByName.put(normalize(layout.labels.get(column - 1)), column); /* The leftmost duplicate wins */
+            }
+
+            int[] columns = new int[properties.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columnsByName.getOrDefault(normalize(properties.get(i).name), NO_COLUMN);
+                if (allRequired && columns[i] == NO_COLUMN) {
+                    throw new SQLException("No column for property " + properties.get(i).name + " of " + type.getName());
+                }
+            }
+
+            return compiler.compile(columns).asType(MethodType.methodType(Object.class, ResultSet.class));
+        }
+
+        private record Layout(List<String> labels, List<Integer> types) {
+
+            static Layout of(ResultSetMetaData metaData) throws SQLException {
+                int columnCount = metaData.getColumnCount();
+                List<String> labels = new ArrayList<>(columnCount);
+                List<Integer> types = new ArrayList<>(columnCount);
+                for (int column = 1; column <= columnCount; column++) {
+                    labels.add(metaData.getColumnLabel(column));
+                    types.add(metaData.getColumnType(column));
+                }
+                return new Layout(labels, types);
+            }
+        }
+
+        // The last ResultSet is referenced weakly, so that it can be collected once the caller is done with it
+        private record LastPlan(WeakReference<ResultSet> resultSet, MethodHandle handle) {
+        }
+    }
+}
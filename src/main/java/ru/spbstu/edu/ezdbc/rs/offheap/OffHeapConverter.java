@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.offheap;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.rs.offheap.OffHeapResultBuffer.ColumnType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+// Materializes all remaining rows of a ResultSet into an OffHeapResultBuffer, which must be closed by the caller. Column types are picked from
+// the metadata: integer types up to INTEGER are stored as ints, BIGINT as longs, approximate numerics as doubles, BOOLEAN/BIT as booleans,
+// binaries as bytes, and everything else (including dates and exact decimals) as its string form.
+public final class OffHeapConverter implements ResultSetConverter<OffHeapResultBuffer> {
+
+    public static final int DEFAULT_PAGE_SIZE = 1 << 20; // 1 MiB
+
+    private final int pageSize;
+
+    public OffHeapConverter(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize);
+        }
+        this.pageSize = pageSize;
+    }
+
+    public OffHeapConverter() {
+        this(DEFAULT_PAGE_SIZE);
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public OffHeapResultBuffer convert(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int columnCount = metaData.getColumnCount();
+
+        List<String> labels = new ArrayList<>(columnCount);
+        ColumnType[] types = new ColumnType[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels.add(metaData.getColumnLabel(i + 1));
+            types[i] = columnType(metaData.getColumnType(i + 1));
+        }
+
+        OffHeapResultBuffer buffer = new OffHeapResultBuffer(labels, List.of(types), pageSize);
+        try {
+            RowEncoder encoder = new RowEncoder(types);
+            while (rs.next()) {
+                buffer.appendRow(encoder.encode(rs));
+            }
+            buffer.trimToSize();
+        } catch (SQLException | RuntimeException | Error e) {
+            buffer.close();
+            throw e;
+        }
+        return buffer;
+    }
+
+    private static ColumnType columnType(int sqlType) {
+        return switch (sqlType) {
+            case Types.BOOLEAN, Types.BIT -> ColumnType.BOOLEAN;
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> ColumnType.INT;
+            case Types.BIGINT -> ColumnType.LONG;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> ColumnType.DOUBLE;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> ColumnType.BYTES;
+            default -> ColumnType.STRING;
+        };
+    }
+
+    // Encodes rows into a reusable heap buffer first, so that the row's size is known before picking a page for it
+    private static final class RowEncoder {
+
+        private final ColumnType[] types;
+        private final int nullBitmapLength;
+        private ByteBuffer scratch;
+
+        RowEncoder(ColumnType[] types) {
+            this.types = types;
+            nullBitmapLength = (types.length + 7) >>> 3;
+            scratch = ByteBuffer.allocate(Math.max(256, nullBitmapLength + 8 * types.length));
+        }
+
+        ByteBuffer encode(ResultSet rs) throws SQLException {
+            scratch.clear();
+            for (int i = 0; i < nullBitmapLength; i++) {
+                scratch.put((byte) 0);
+            }
+
+            for (int i = 0; i < types.length; i++) {
+                int column = i + 1;
+                switch (types[i]) {
+                    case BOOLEAN -> {
+                        boolean value = rs.getBoolean(column);
+                        if (!markIfNull(rs, i)) {
+                            ensureRemaining(1).put((byte) (value ? 1 : 0));
+                        }
+                    }
+                    case INT -> {
+                        int value = rs.getInt(column);
+                        if (!markIfNull(rs, i)) {
+                            ensureRemaining(4).putInt(value);
+                        }
+                    }
+                    case LONG -> {
+                        long value = rs.getLong(column);
+                        if (!markIfNull(rs, i)) {
+                            ensureRemaining(8).putLong(value);
+                        }
+                    }
+                    case DOUBLE -> {
+                        double value = rs.getDouble(column);
+                        if (!markIfNull(rs, i)) {
+                            ensureRemaining(8).putDouble(value);
+                        }
+                    }
+                    case STRING -> {
+                        String value = rs.getString(column);
+                        if (value == null) {
+                            markNull(i);
+                        } else {
+                            putLengthPrefixed(value.getBytes(StandardCharsets.UTF_8));
+                        }
+                    }
+                    case BYTES -> {
+                        byte[] value = rs.getBytes(column);
+                        if (value == null) {
+                            markNull(i);
+                        } else {
+                            putLengthPrefixed(value);
+                        }
+                    }
+                }
+            }
+
+            return scratch.flip();
+        }
+
+        private boolean markIfNull(ResultSet rs, int i) throws SQLException {
+            if (rs.wasNull()) {
+                markNull(i);
+                return true;
+            }
+            return false;
+        }
+
+        private void markNull(int i) {
+            scratch.put(i >>> 3, (byte) (scratch.get(i >>> 3) | (1 << (i & 7))));
+        }
+
+        private void putLengthPrefixed(byte[] bytes) {
+            ensureRemaining(RowCursor.varIntLength(bytes.length) + bytes.length);
+            int length = bytes.length;
+            while ((length & ~0x7F) != 0) {
+                scratch.put((byte) ((length & 0x7F) | 0x80));
+                length >>>= 7;
+            }
+            scratch.put((byte) length);
+            scratch.put(bytes);
+        }
+
+        private ByteBuffer ensureRemaining(int length) {
+            if (scratch.remaining() < length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + length));
+                scratch = grown.put(scratch.flip());
+            }
+            return scratch;
+        }
+    }
+}
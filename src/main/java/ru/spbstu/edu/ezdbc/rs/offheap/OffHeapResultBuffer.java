@@ -0,0 +1,217 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// Rows materialized outside the heap (see OffHeapConverter), so that even huge results add next to nothing to GC pressure. Rows are packed
+// into direct ByteBuffer pages in a compact binary format (a null bitmap, then fixed-width primitives and length-prefixed UTF-8 strings/bytes)
+// and never straddle pages. Only row addresses (8 bytes per row) live on the heap.
+//
+// Rows are read via RowCursor flyweights, any amount of which can be used concurrently (one per thread). Each open cursor holds a lease on
+// the pages: closing the buffer makes every further read fail with an IllegalStateException, but the pages are only freed once the last open
+// cursor is closed too, so a read racing with close never touches freed memory. Cursors must therefore be closed.
+//
+// Conversion ends with trimToSize and cursors are handed out under the same lock, so a cursor sees every row even if the buffer was passed
+// to its thread without any synchronization of its own.
+public final class OffHeapResultBuffer implements AutoCloseable {
+
+    public enum ColumnType {
+        BOOLEAN(1),
+        INT(4),
+        LONG(8),
+        DOUBLE(8),
+        STRING(-1),
+        BYTES(-1);
+
+        private final int width; // Negative for variable-width types
+
+        ColumnType(int width) {
+            this.width = width;
+        }
+
+        boolean isFixedWidth() {
+            return width > 0;
+        }
+
+        int width() {
+            return width;
+        }
+    }
+
+    private final List<String> labels;
+    private final List<ColumnType> types;
+    private final int pageSize;
+
+    private final List<ByteBuffer> pages;
+    private long[] rowAddresses; /* Page index in the upper half, offset in the lower one */
+    private int rowCount;
+    private long usedBytes;
+    private long allocatedBytes;
+    private int openCursors; /* Guarded by this */
+    private volatile boolean closed;
+
+    OffHeapResultBuffer(List<String> labels, List<ColumnType> types, int pageSize) {
+        this.labels = List.copyOf(labels);
+        this.types = List.copyOf(types);
+        this.pageSize = pageSize;
+
+        pages = new ArrayList<>();
+        rowAddresses = new long[64];
+    }
+
+    public int getColumnCount() {
+        return labels.size();
+    }
+
+    // Columns are 1-based, like in JDBC
+    public String getColumnLabel(int column) {
+        return labels.get(column - 1);
+    }
+
+    public ColumnType getColumnType(int column) {
+        return types.get(column - 1);
+    }
+
+    public int findColumn(String label) {
+        Objects.requireNonNull(label);
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i).equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new NoSuchElementException("No such column: " + label.toLowerCase(Locale.ROOT));
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public synchronized RowCursor cursor() {
+        checkOpen();
+        openCursors++;
+        return new RowCursor(this);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // Frees the pages right away if no cursors are open, or as soon as the last one is closed otherwise
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (openCursors == 0) {
+            free();
+        }
+    }
+
+    // Called by RowCursor#close, once per cursor
+    synchronized void release() {
+        if (--openCursors == 0 && closed) {
+            free();
+        }
+    }
+
+    private void free() {
+        for (ByteBuffer page : pages) {
+            DirectBuffers.free(page);
+        }
+        pages.clear();
+        rowAddresses = new long[0];
+        allocatedBytes = 0;
+    }
+
+    // Copies an encoded row (from position 0 to the limit of the provided buffer) into the last page, or into a new one if it doesn't fit
+    void appendRow(ByteBuffer encodedRow) {
+        int length = encodedRow.limit();
+        ByteBuffer page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (page == null || page.remaining() < length) {
+            page = ByteBuffer.allocateDirect(Math.max(pageSize, length));
+            pages.add(page);
+            allocatedBytes += page.capacity();
+        }
+
+        if (rowCount == rowAddresses.length) {
+            rowAddresses = Arrays.copyOf(rowAddresses, rowAddresses.length * 2);
+        }
+        rowAddresses[rowCount++] = ((long) (pages.size() - 1) << 32) | page.position();
+
+        page.put(encodedRow.position(0));
+        usedBytes += length;
+    }
+
+    synchronized void trimToSize() {
+        rowAddresses = Arrays.copyOf(rowAddresses, rowCount);
+    }
+
+    ByteBuffer page(long address) {
+        return pages.get((int) (address >>> 32));
+    }
+
+    long rowAddress(int row) {
+        Objects.checkIndex(row, rowCount);
+        return rowAddresses[row];
+    }
+
+    List<ColumnType> types() {
+        return types;
+    }
+
+    void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Buffer is closed");
+        }
+    }
+
+    @Override
+    public String toString() {
+        String fmt = "OffHeapResultBuffer[columns=%s, rowCount=%d, pageCount=%d, usedBytes=%d, allocatedBytes=%d, closed=%b]";
+        return fmt.formatted(labels, rowCount, pages.size(), usedBytes, allocatedBytes, closed);
+    }
+}
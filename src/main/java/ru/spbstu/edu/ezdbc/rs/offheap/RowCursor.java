@@ -0,0 +1,252 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.offheap;
+
+import ru.spbstu.edu.ezdbc.rs.offheap.OffHeapResultBuffer.ColumnType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// A flyweight over a single row of an OffHeapResultBuffer at a time: moving it only decodes where the row's values are, and values are read
+// straight from the page on access. A cursor holds a lease on the buffer's pages until it's closed (see OffHeapResultBuffer#close). Cursors
+// are cheap, but not thread-safe. Columns are 1-based, like in JDBC.
+public final class RowCursor implements AutoCloseable {
+
+    private final OffHeapResultBuffer buffer;
+    private final List<ColumnType> types;
+    private final int[] offsets; /* Absolute offsets of the current row's values within its page */
+    private final int nullBitmapLength;
+
+    private ByteBuffer page;
+    private int pageOffset;
+    private int row;
+    private byte[] scratch;
+    private boolean closed;
+
+    RowCursor(OffHeapResultBuffer buffer) {
+        this.buffer = buffer;
+        types = buffer.types();
+        offsets = new int[types.size()];
+        nullBitmapLength = (types.size() + 7) >>> 3;
+        row = -1;
+        scratch = new byte[64];
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    // Sequential access: moves to the next row, like ResultSet#next
+    public boolean next() {
+        if (row + 1 >= buffer.getRowCount()) {
+            row = buffer.getRowCount();
+            page = null;
+            return false;
+        }
+        moveTo(row + 1);
+        return true;
+    }
+
+    // Random access to a 0-based row
+    public RowCursor moveTo(int row) {
+        checkOpen();
+        long address = buffer.rowAddress(row);
+        this.row = row;
+        page = buffer.page(address);
+        pageOffset = (int) address;
+
+        int offset = pageOffset + nullBitmapLength;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = offset;
+            if (!isNullAt(i)) {
+                ColumnType type = types.get(i);
+                if (type.isFixedWidth()) {
+                    offset += type.width();
+                } else {
+                    int length = readVarInt(offset);
+                    offset += varIntLength(length) + length;
+                }
+            }
+        }
+        return this;
+    }
+
+    public boolean isNull(int column) {
+        checkPositioned();
+        return isNullAt(column - 1);
+    }
+
+    public boolean getBoolean(int column) {
+        int i = valueIndex(column);
+        return (i >= 0) && page.get(offsets[i]) != 0;
+    }
+
+    public int getInt(int column) {
+        int i = valueIndex(column);
+        if (i < 0) {
+            return 0;
+        }
+        return switch (types.get(i)) {
+            case INT -> page.getInt(offsets[i]);
+            case BOOLEAN -> page.get(offsets[i]);
+            default -> throw typeMismatch(column, "int");
+        };
+    }
+
+    public long getLong(int column) {
+        int i = valueIndex(column);
+        if (i < 0) {
+            return 0L;
+        }
+        return switch (types.get(i)) {
+            case LONG -> page.getLong(offsets[i]);
+            case INT -> page.getInt(offsets[i]);
+            case BOOLEAN -> page.get(offsets[i]);
+            default -> throw typeMismatch(column, "long");
+        };
+    }
+
+    public double getDouble(int column) {
+        int i = valueIndex(column);
+        if (i < 0) {
+            return 0.0;
+        }
+        return switch (types.get(i)) {
+            case DOUBLE -> page.getDouble(offsets[i]);
+            case LONG -> page.getLong(offsets[i]);
+            case INT -> page.getInt(offsets[i]);
+            case BOOLEAN -> page.get(offsets[i]);
+            default -> throw typeMismatch(column, "double");
+        };
+    }
+
+    // Any column can be read as a string
+    public String getString(int column) {
+        int i = valueIndex(column);
+        if (i < 0) {
+            return null;
+        }
+        return switch (types.get(i)) {
+            case STRING -> {
+                int length = readVarInt(offsets[i]);
+                page.get(offsets[i] + varIntLength(length), scratch(length), 0, length);
+                yield new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            case BYTES -> throw typeMismatch(column, "String");
+            case BOOLEAN -> String.valueOf(page.get(offsets[i]) != 0);
+            case INT -> String.valueOf(page.getInt(offsets[i]));
+            case LONG -> String.valueOf(page.getLong(offsets[i]));
+            case DOUBLE -> String.valueOf(page.getDouble(offsets[i]));
+        };
+    }
+
+    public byte[] getBytes(int column) {
+        int i = valueIndex(column);
+        if (i < 0) {
+            return null;
+        }
+        if (types.get(i) != ColumnType.BYTES) {
+            throw typeMismatch(column, "byte[]");
+        }
+
+        int length = readVarInt(offsets[i]);
+        byte[] bytes = new byte[length];
+        page.get(offsets[i] + varIntLength(length), bytes, 0, length);
+        return bytes;
+    }
+
+    // Returns the 0-based index of the column, or -1 if its value is NULL
+    private int valueIndex(int column) {
+        checkPositioned();
+        int i = column - 1;
+        if (i < 0 || i >= offsets.length) {
+            throw new IndexOutOfBoundsException("Invalid column: " + column);
+        }
+        return isNullAt(i) ? -1 : i;
+    }
+
+    private boolean isNullAt(int i) {
+        return (page.get(pageOffset + (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+
+    // Releases the cursor's lease on the pages. Idempotent
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            page = null;
+            buffer.release();
+        }
+    }
+
+    // A single volatile read: the pages stay allocated while this cursor is open, so a read that passes it is safe even if the buffer is
+    // closed concurrently
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Cursor is closed");
+        }
+        buffer.checkOpen();
+    }
+
+    private void checkPositioned() {
+        checkOpen();
+        if (page == null) {
+            throw new IllegalStateException("Cursor is not on a row");
+        }
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private int readVarInt(int offset) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = page.get(offset++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    static int varIntLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private IllegalStateException typeMismatch(int column, String javaType) {
+        return new IllegalStateException("Column " + column + " of type " + types.get(column - 1) + " can't be read as " + javaType);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql;
+
+import ru.spbstu.edu.ezdbc.url.Protocol;
+import ru.spbstu.edu.ezdbc.url.URLBuilder;
+
+import java.util.Map;
+import java.util.Objects;
+
+// Database-specific bits of SQL rendering and execution that queries consult instead of hardcoding one flavor: paging syntax, statement
+// size limits, identifier quoting and driver switches that make batches faster. GENERIC sticks to the most portable choices.
+public enum Dialect {
+
+    // LIMIT/OFFSET, 65535 placeholders, `quoted`. rewriteBatchedStatements turns JDBC batches into multi-row inserts on the driver side.
+    MYSQL(65_535, Integer.MAX_VALUE, '`', '`', true, Map.of("rewriteBatchedStatements", "true")),
+
+    // LIMIT/OFFSET. The driver counts placeholders in a signed short. reWriteBatchedInserts does the same trick as MySQL's switch.
+    POSTGRESQL(32_767, Integer.MAX_VALUE, '"', '"', true, Map.of("reWriteBatchedInserts", "true")),
+
+    // OFFSET/FETCH (12c+). No multi-row VALUES, so batches stay single-row and rely on the driver's array binding.
+    ORACLE(65_535, 1, '"', '"', false, Map.of()),
+
+    // OFFSET/FETCH (requires ORDER BY), [quoted]. 2100 parameters per request, two of which the driver's sp_prepexec/sp_executesql call takes for
+    // itself, and at most 1000 rows per VALUES constructor. useBulkCopyForBatchInsert is left out, as bulk copy skips triggers and
+    // CHECK/FK constraints by default.
+    SQL_SERVER(2_098, 1_000, '[', ']', true, Map.of()),
+
+    // PostgreSQL-derived. Single-row inserts are particularly slow on a columnar store, so multi-row VALUES is a must.
+    REDSHIFT(32_767, Integer.MAX_VALUE, '"', '"', true, Map.of()),
+
+    // ANSI quoting, LIMIT/OFFSET and a parameter limit every database above can handle
+    GENERIC(2_000, Integer.MAX_VALUE, '"', '"', false, Map.of());
+
+    private final int maxBindParameters;
+    private final int maxRowsPerInsert;
+    private final char openingQuote;
+    private final char closingQuote;
+    private final boolean prefersMultiRowValues;
+    private final Map<String, String> bulkProperties;
+
+    Dialect(int maxBindParameters, int maxRowsPerInsert, char openingQuote, char closingQuote, boolean prefersMultiRowValues,
+            Map<String, String> bulkProperties) {
+        this.maxBindParameters = maxBindParameters;
+        this.maxRowsPerInsert = maxRowsPerInsert;
+        this.openingQuote = openingQuote;
+        this.closingQuote = closingQuote;
+        this.prefersMultiRowValues = prefersMultiRowValues;
+        this.bulkProperties = bulkProperties;
+    }
+
+    public static Dialect of(Protocol protocol) {
+        return switch (Objects.requireNonNull(protocol)) {
+            case MYSQL, MYSQL_LOADBALANCE, MYSQL_REPLICATION, MYSQL_SRV, MYSQL_SRV_LOADBALANCE, MYSQL_SRV_REPLICATION -> MYSQL;
+            case ORACLE_THIN -> ORACLE;
+            case POSTGRESQL -> POSTGRESQL;
+            case REDSHIFT -> REDSHIFT;
+            case SQL_SERVER -> SQL_SERVER;
+        };
+    }
+
+    // Upper bound on '?' placeholders in a single statement
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    // Upper bound on rows in a single INSERT ... VALUES statement (1 if multi-row VALUES isn't supported at all)
+    public int getMaxRowsPerInsert() {
+        return maxRowsPerInsert;
+    }
+
+    public boolean supportsMultiRowValues() {
+        return maxRowsPerInsert > 1;
+    }
+
+    // Upper bound on expressions in a single IN list (Oracle rejects longer ones with ORA-01795)
+    public int getMaxInListSize() {
+        return (this == ORACLE) ? 1_000 : Integer.MAX_VALUE;
+    }
+
+    // Whether a whole array can be bound as a single parameter and matched via "= ANY(?)"
+    public boolean supportsArrayParameters() {
+        return this == POSTGRESQL;
+    }
+
+    // Whether batches should be sent as multi-row VALUES statements rather than single-row JDBC batches
+    public boolean prefersMultiRowValues() {
+        return prefersMultiRowValues;
+    }
+
+    public char getOpeningQuote() {
+        return openingQuote;
+    }
+
+    public char getClosingQuote() {
+        return closingQuote;
+    }
+
+    // Wraps name into this dialect's quotes, doubling any closing quote inside it (see SQLBuilder#appendQuoted)
+    public String quote(String name) {
+        Objects.requireNonNull(name);
+        return new SQLBuilder(new StringBuilder(name.length() + 2), null, this).appendQuoted(name).toString();
+    }
+
+    // Driver properties that speed up batch execution. Both MySQL's and PostgreSQL's rewrite batches into multi-row statements, so
+    // executeBatch then reports Statement.SUCCESS_NO_INFO instead of per-row update counts.
+    public Map<String, String> getBulkProperties() {
+        return bulkProperties;
+    }
+
+    public URLBuilder applyBulkProperties(URLBuilder builder) {
+        Objects.requireNonNull(builder);
+        bulkProperties.forEach(builder::setProperty);
+        return builder;
+    }
+
+    // Paging clause appended after ORDER BY (offset 0 => first rows only)
+    public void appendLimitClause(SQLBuilder sb, int limit, long offset) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Invalid offset: " + offset);
+        }
+
+        switch (this) {
+            case ORACLE -> {
+                if (offset > 0) {
+                    sb.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ");
+                } else {
+                    sb.append(" FETCH FIRST ");
+                }
+                sb.append(limit).append(" ROWS ONLY");
+            }
+            case SQL_SERVER -> sb.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ").append(limit).append(" ROWS ONLY");
+            default -> {
+                sb.append(" LIMIT ").append(limit);
+                if (offset > 0) {
+                    sb.append(" OFFSET ").append(offset);
+                }
+            }
+        }
+    }
+
+    public void appendLimitClause(SQLBuilder sb, int limit) {
+        appendLimitClause(sb, limit, 0);
+    }
+}
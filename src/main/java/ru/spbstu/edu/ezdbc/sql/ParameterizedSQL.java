@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql;
+
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+
+// SQL text with '?' placeholders + the literals to bind to them (in placeholder order). Queries of the same shape produce the same text, which
+// lets the server (and the driver) reuse a single plan regardless of the actual values.
+public record ParameterizedSQL(String text, List<AbstractLiteral<?>> parameters) {
+
+    public ParameterizedSQL {
+        Objects.requireNonNull(text);
+        parameters = List.copyOf(parameters);
+    }
+
+    public static ParameterizedSQL of(SQLConvertible convertible, Dialect dialect) {
+        Objects.requireNonNull(convertible);
+
+        SQLBuilder sb = SQLBuilder.parameterized(convertible.estimateSQLLength(), dialect);
+        convertible.appendTo(sb);
+        return new ParameterizedSQL(sb.toString(), sb.getParameters());
+    }
+
+    public static ParameterizedSQL of(SQLConvertible convertible) {
+        return of(convertible, Dialect.GENERIC);
+    }
+
+    public void bind(PreparedStatement statement) throws SQLException {
+        Objects.requireNonNull(statement);
+
+        int index = 1; // JDBC parameter indices are 1-based
+        for (AbstractLiteral<?> parameter : parameters) {
+            parameter.bind(statement, index++);
+        }
+    }
+
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        return bindOrClose(connection.prepareStatement(text));
+    }
+
+    public PreparedStatement prepare(Connection connection, int resultSetType, int resultSetConcurrency) throws SQLException {
+        return bindOrClose(connection.prepareStatement(text, resultSetType, resultSetConcurrency));
+    }
+
+    private PreparedStatement bindOrClose(PreparedStatement statement) throws SQLException {
+        try {
+            bind(statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql;
+
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// Append-only SQL text buffer shared by an entire query tree while it renders itself (see SQLConvertible#appendTo). In parameterized mode,
+// literals are written as '?' placeholders and collected in placeholder order instead of being inlined. Quoted identifiers use the
+// dialect's quotes (GENERIC unless specified).
+public final class SQLBuilder {
+
+    private static final char PLACEHOLDER = '?';
+
+    private final StringBuilder sb;
+    private final List<AbstractLiteral<?>> parameters; // null => literals are inlined
+    private final Dialect dialect;
+
+    public SQLBuilder(StringBuilder sb, List<AbstractLiteral<?>> parameters, Dialect dialect) {
+        this.sb = Objects.requireNonNull(sb);
+        this.parameters = parameters;
+        this.dialect = Objects.requireNonNull(dialect);
+    }
+
+    public SQLBuilder(StringBuilder sb, List<AbstractLiteral<?>> parameters) {
+        this(sb, parameters, Dialect.GENERIC);
+    }
+
+    public SQLBuilder(StringBuilder sb) {
+        this(sb, null);
+    }
+
+    public static SQLBuilder inline(int capacity, Dialect dialect) {
+        return new SQLBuilder(new StringBuilder(capacity), null, dialect);
+    }
+
+    public static SQLBuilder inline(int capacity) {
+        return inline(capacity, Dialect.GENERIC);
+    }
+
+    public static SQLBuilder parameterized(int capacity, Dialect dialect) {
+        return new SQLBuilder(new StringBuilder(capacity), new ArrayList<>(), dialect);
+    }
+
+    public static SQLBuilder parameterized(int capacity) {
+        return parameterized(capacity, Dialect.GENERIC);
+    }
+
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    public boolean isParameterized() {
+        return parameters != null;
+    }
+
+    public List<AbstractLiteral<?>> getParameters() {
+        return parameters;
+    }
+
+    public int length() {
+        return sb.length();
+    }
+
+    public SQLBuilder append(SQLConvertible convertible) {
+        convertible.appendTo(this);
+        return this;
+    }
+
+    public SQLBuilder appendJoined(Iterable<? extends SQLConvertible> items, String delimiter) {
+        boolean first = true;
+        for (SQLConvertible item : items) {
+            if (!first) {
+                sb.append(delimiter);
+            }
+            item.appendTo(this);
+            first = false;
+        }
+        return this;
+    }
+
+    // Joins items into the following form: (item1, item2, item3)
+    public SQLBuilder appendPacked(Iterable<? extends SQLConvertible> items) {
+        sb.append('(');
+        appendJoined(items, ", ");
+        sb.append(')');
+        return this;
+    }
+
+    public SQLBuilder appendParameter(AbstractLiteral<?> literal) {
+        parameters.add(Objects.requireNonNull(literal));
+        sb.append(PLACEHOLDER);
+        return this;
+    }
+
+    // Wraps name into the dialect's quotes, doubling any closing quote inside it
+    public SQLBuilder appendQuoted(CharSequence name) {
+        char closingQuote = dialect.getClosingQuote();
+        sb.append(dialect.getOpeningQuote());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == closingQuote) {
+                sb.append(c);
+            }
+            sb.append(c);
+        }
+        sb.append(closingQuote);
+        return this;
+    }
+
+    public SQLBuilder append(CharSequence s) {
+        sb.append(s);
+        return this;
+    }
+
+    public SQLBuilder append(char c) {
+        sb.append(c);
+        return this;
+    }
+
+    public SQLBuilder append(int i) {
+        sb.append(i);
+        return this;
+    }
+
+    public SQLBuilder append(long l) {
+        sb.append(l);
+        return this;
+    }
+
+    public SQLBuilder append(float f) {
+        sb.append(f);
+        return this;
+    }
+
+    public SQLBuilder append(double d) {
+        sb.append(d);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
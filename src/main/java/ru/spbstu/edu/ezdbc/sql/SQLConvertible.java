@@ -25,7 +25,44 @@
 
 package ru.spbstu.edu.ezdbc.sql;
 
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+
+import java.util.List;
+
 public interface SQLConvertible {
 
-    String toSQLString();
+    // Renders straight into the shared buffer, so that an entire query tree ends up in one StringBuilder with no intermediate Strings
+    void appendTo(SQLBuilder sb);
+
+    // Rough upper bound on the rendered length, used to presize the buffer. Doesn't have to be exact, only cheap.
+    int estimateSQLLength();
+
+    default void appendTo(StringBuilder sb) {
+        appendTo(new SQLBuilder(sb));
+    }
+
+    default String toSQLString() {
+        return toSQLString(Dialect.GENERIC);
+    }
+
+    default String toSQLString(Dialect dialect) {
+        SQLBuilder sb = SQLBuilder.inline(estimateSQLLength(), dialect);
+        appendTo(sb);
+        return sb.toString();
+    }
+
+    static int estimateSQLLength(Iterable<? extends SQLConvertible> items, int delimiterLength) {
+        int length = 0;
+        for (SQLConvertible item : items) {
+            length += item.estimateSQLLength() + delimiterLength;
+        }
+        return length;
+    }
+
+    // Same as toSQLString, except that literals are rendered as '?' placeholders and appended to the given list in placeholder order
+    default String toParameterizedSQLString(List<AbstractLiteral<?>> parameters) {
+        SQLBuilder sb = new SQLBuilder(new StringBuilder(estimateSQLLength()), parameters);
+        appendTo(sb);
+        return sb.toString();
+    }
 }
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.LongArrayLiteral;
+
+import java.util.Objects;
+
+// operand = ANY(?), with all keys bound as one array parameter. Unlike an IN list, the text is the same for any amount of keys, so a single
+// prepared statement serves all lookups. PostgreSQL only.
+public record AnyExpression(Expression operand, LongArrayLiteral keys) implements Expression {
+
+    public AnyExpression {
+        Objects.requireNonNull(operand);
+        Objects.requireNonNull(keys);
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        Expressions.append(sb, this);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return Expressions.estimateSQLLength(this);
+    }
+}
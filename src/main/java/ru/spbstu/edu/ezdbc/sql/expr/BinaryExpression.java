@@ -25,6 +25,7 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
 
 import java.util.Objects;
@@ -41,12 +42,14 @@ public record BinaryExpression(Expression lhs, LogicalOperator operator, Express
         }
     }
 
+    // Operands are rendered left to right, so parameters end up in placeholder order
     @Override
-    public String toSQLString() {
-        return String.format("%s %s %s",
-                Expression.toBracketedSQLStringIfNeeded(lhs),
-                operator.toSQLString(),
-                Expression.toBracketedSQLStringIfNeeded(rhs)
-        );
+    public void appendTo(SQLBuilder sb) {
+        Expressions.append(sb, this);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return Expressions.estimateSQLLength(this);
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+// Always-true and always-false conditions. Rendered as tautologies rather than TRUE/FALSE, which not every database accepts in a WHERE clause,
+// and never parameterized, so that they don't add bind parameters.
+public enum BooleanConstant implements Expression {
+    TRUE("1 = 1"),
+    FALSE("1 = 0");
+
+    private final String syntax;
+
+    BooleanConstant(String syntax) {
+        this.syntax = syntax;
+    }
+
+    public static BooleanConstant of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public BooleanConstant negate() {
+        return this == TRUE ? FALSE : TRUE;
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        sb.append(syntax);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return syntax.length();
+    }
+
+    @Override
+    public String toSQLString() {
+        return syntax;
+    }
+}
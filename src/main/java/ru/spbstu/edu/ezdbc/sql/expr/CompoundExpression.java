@@ -0,0 +1,75 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// operand1 AND operand2 AND ... (or OR), rendered flat instead of the nested brackets a chain of BinaryExpressions would get
+public record CompoundExpression(LogicalOperator operator, List<Expression> operands) implements Expression {
+
+    public CompoundExpression {
+        Objects.requireNonNull(operator);
+        if (operator != LogicalOperator.AND && operator != LogicalOperator.OR) {
+            throw new IllegalArgumentException("Compound expression requires AND or OR, got " + operator);
+        }
+
+        operands = List.copyOf(operands);
+        if (operands.isEmpty()) {
+            throw new IllegalArgumentException("Compound expression requires at least one operand");
+        }
+    }
+
+    public static CompoundExpression and(Expression... operands) {
+        return of(LogicalOperator.AND, Arrays.asList(operands));
+    }
+
+    public static CompoundExpression or(Expression... operands) {
+        return of(LogicalOperator.OR, Arrays.asList(operands));
+    }
+
+    // Operands that are junctions of the same operator themselves (compound or binary) are merged into this one
+    public static CompoundExpression of(LogicalOperator operator, List<? extends Expression> operands) {
+        List<Expression> flattened = operands.stream()
+                .flatMap(operand -> Expressions.flatten(operand, operator).stream())
+                .toList();
+        return new CompoundExpression(operator, flattened);
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        Expressions.append(sb, this);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return Expressions.estimateSQLLength(this);
+    }
+}
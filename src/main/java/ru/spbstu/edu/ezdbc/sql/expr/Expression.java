@@ -25,20 +25,39 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
 import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
 
 public interface Expression extends SQLConvertible {
 
+    int BRACKETS_LENGTH = 2;
+
     static String toBracketedSQLStringIfNeeded(Expression expr) {
         if (expr == null) {
             return null;
         }
 
-        String sql = expr.toSQLString();
-        return (expr instanceof Identifier || expr instanceof AbstractLiteral<?>)
-                ? sql
-                : '(' + sql + ')';
+        SQLBuilder sb = SQLBuilder.inline(estimateBracketedSQLLength(expr));
+        appendBracketedIfNeeded(sb, expr);
+        return sb.toString();
+    }
+
+    static void appendBracketedIfNeeded(SQLBuilder sb, Expression expr) {
+        if (isAtomic(expr)) {
+            expr.appendTo(sb);
+        } else {
+            sb.append('(').append(expr).append(')');
+        }
+    }
+
+    static int estimateBracketedSQLLength(Expression expr) {
+        return expr.estimateSQLLength() + BRACKETS_LENGTH;
+    }
+
+    // Atomic expressions never need brackets around them
+    static boolean isAtomic(Expression expr) {
+        return expr instanceof Identifier || expr instanceof AbstractLiteral<?>;
     }
 }
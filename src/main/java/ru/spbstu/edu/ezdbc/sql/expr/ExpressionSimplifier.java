@@ -0,0 +1,319 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Rewrites a filter into a shorter canonical form with the same meaning (under SQL's three-valued logic):
+// - NOT NOT x => x, NOT (a < b) => a >= b and so on, NOT TRUE => FALSE
+// - comparisons of two numeric or timestamp literals are folded into TRUE/FALSE (NULLs and strings are left to the server, as the outcome
+//   depends on NULL semantics and collations respectively)
+// - literals are moved to the right-hand side of comparisons: 5 < id => id > 5
+// - nested AND/OR chains are flattened, duplicate operands are dropped, TRUE/FALSE operands are absorbed
+// - equalities on the same identifier within an OR chain are merged: id = 1 OR id = 2 => id IN (1, 2)
+// - operands of AND/OR are ordered by their parameterized text, so that filters built in different orders render the same
+// Since only the text is canonical, parameter order may differ from the original expression's.
+//
+// Like Expressions, the tree is walked with an explicit stack (bottom-up, AND/OR chains flattened first), so arbitrarily deep filters can't
+// overflow the stack.
+public final class ExpressionSimplifier {
+
+    private static final List<Expression> UNEXPANDED = new ArrayList<>(0); /* Compared by identity */
+
+    private ExpressionSimplifier() {
+    }
+
+    public static Expression simplify(Expression expr) {
+        Objects.requireNonNull(expr);
+
+        // Each node is expanded (its children pushed) on first sight and simplified on second, by which time its children's simplified forms
+        // are on top of the result stack. Children of an AND/OR node are its whole flattened chain, so chains don't add depth.
+        Deque<Expression> nodes = new ArrayDeque<>();
+        Deque<List<Expression>> children = new ArrayDeque<>();
+        List<Expression> results = new ArrayList<>();
+        nodes.push(expr);
+        children.push(UNEXPANDED);
+
+        while (!nodes.isEmpty()) {
+            Expression node = nodes.peek();
+            if (children.peek() == UNEXPANDED) {
+                List<Expression> nodeChildren = childrenOf(node);
+                children.pop();
+                children.push(nodeChildren);
+                for (int i = nodeChildren.size() - 1; i >= 0; i--) {
+                    nodes.push(nodeChildren.get(i));
+                    children.push(UNEXPANDED);
+                }
+                continue;
+            }
+
+            nodes.pop();
+            int childCount = children.pop().size();
+            List<Expression> simplifiedChildren = results.subList(results.size() - childCount, results.size());
+            Expression simplified = combine(node, simplifiedChildren);
+            simplifiedChildren.clear();
+            results.add(simplified);
+        }
+
+        return results.get(0);
+    }
+
+    private static List<Expression> childrenOf(Expression expr) {
+        if (expr instanceof BinaryExpression binary && isJunction(binary.operator())) {
+            return Expressions.flatten(binary, binary.operator());
+        } else if (expr instanceof CompoundExpression compound) {
+            return Expressions.flatten(compound, compound.operator());
+        } else if (expr instanceof UnaryExpression || expr instanceof BinaryExpression || expr instanceof InExpression) {
+            return Expressions.operandsOf(expr);
+        }
+        return List.of();
+    }
+
+    // Simplifies a node given its already simplified children (as listed by childrenOf)
+    private static Expression combine(Expression expr, List<Expression> children) {
+        if (expr instanceof UnaryExpression) {
+            return negate(children.get(0)); /* NOT is the only unary operator */
+        } else if (expr instanceof BinaryExpression binary) {
+            return isJunction(binary.operator())
+                    ? simplifyJunction(children, binary.operator())
+                    : simplifyComparison(binary, children.get(0), children.get(1));
+        } else if (expr instanceof CompoundExpression compound) {
+            return simplifyJunction(children, compound.operator());
+        } else if (expr instanceof InExpression in) {
+            return simplifyIn(in, children.get(0));
+        }
+
+        return expr;
+    }
+
+    private static Expression negate(Expression operand) {
+        if (operand instanceof BooleanConstant constant) {
+            return constant.negate();
+        } else if (operand instanceof UnaryExpression unary) {
+            return unary.operand();
+        } else if (operand instanceof BinaryExpression binary) {
+            LogicalOperator inverse = inverse(binary.operator());
+            if (inverse != null) {
+                return new BinaryExpression(binary.lhs(), inverse, binary.rhs());
+            }
+        }
+
+        return new UnaryExpression(LogicalOperator.NOT, operand);
+    }
+
+    private static Expression simplifyComparison(BinaryExpression binary, Expression lhs, Expression rhs) {
+        LogicalOperator operator = binary.operator();
+
+        if (lhs instanceof AbstractLiteral<?> lhsLiteral) {
+            if (rhs instanceof AbstractLiteral<?> rhsLiteral) {
+                BooleanConstant folded = fold(lhsLiteral, operator, rhsLiteral);
+                if (folded != null) {
+                    return folded;
+                }
+            } else {
+                return new BinaryExpression(rhs, mirror(operator), lhs);
+            }
+        }
+
+        return (lhs == binary.lhs() && rhs == binary.rhs()) ? binary : new BinaryExpression(lhs, operator, rhs);
+    }
+
+    private static Expression simplifyJunction(List<Expression> simplifiedOperands, LogicalOperator operator) {
+        BooleanConstant identity = (operator == LogicalOperator.AND) ? BooleanConstant.TRUE : BooleanConstant.FALSE;
+        BooleanConstant absorbing = identity.negate();
+
+        Set<Expression> operands = new LinkedHashSet<>();
+        for (Expression simplified : simplifiedOperands) {
+            if (simplified == absorbing) {
+                return absorbing;
+            } else if (simplified == identity) {
+                continue;
+            }
+
+            // Flattened once more for e.g. NOT NOT (a OR b) inside an OR chain. Already simplified, so its operands can be taken as is.
+            operands.addAll(Expressions.flatten(simplified, operator));
+        }
+
+        List<Expression> result = (operator == LogicalOperator.OR) ? mergeEqualities(operands) : new ArrayList<>(operands);
+        if (result.isEmpty()) {
+            return identity;
+        }
+
+        sortCanonically(result);
+        return join(result, operator);
+    }
+
+    // Each operand is rendered once up front, rather than on every comparison the sort makes
+    private static void sortCanonically(List<Expression> operands) {
+        List<Map.Entry<String, Expression>> keyed = new ArrayList<>(operands.size());
+        for (Expression operand : operands) {
+            keyed.add(Map.entry(ParameterizedSQL.of(operand).text(), operand));
+        }
+
+        keyed.sort(Map.Entry.comparingByKey());
+        for (int i = 0; i < keyed.size(); i++) {
+            operands.set(i, keyed.get(i).getValue());
+        }
+    }
+
+    private static Expression simplifyIn(InExpression in, Expression operand) {
+        List<AbstractLiteral<?>> values = List.copyOf(new LinkedHashSet<>(in.values()));
+
+        if (values.size() == 1) {
+            BinaryExpression equality = new BinaryExpression(operand, LogicalOperator.EQUAL_TO, values.get(0));
+            return simplifyComparison(equality, operand, values.get(0));
+        }
+        return (operand == in.operand() && values.size() == in.values().size()) ? in : new InExpression(operand, values);
+    }
+
+    // Turns "id = 1 OR id = 2 OR id IN (3, 4)" into "id IN (1, 2, 3, 4)", keeping the merged term in place of the first one
+    private static List<Expression> mergeEqualities(Set<Expression> operands) {
+        Map<Identifier, Set<AbstractLiteral<?>>> valuesByIdentifier = new LinkedHashMap<>();
+        Map<Identifier, Integer> termCounts = new LinkedHashMap<>();
+        for (Expression operand : operands) {
+            Identifier identifier = equalityTarget(operand);
+            if (identifier != null) {
+                valuesByIdentifier.computeIfAbsent(identifier, key -> new LinkedHashSet<>()).addAll(equalityValues(operand));
+                termCounts.merge(identifier, 1, Integer::sum);
+            }
+        }
+
+        List<Expression> result = new ArrayList<>(operands.size());
+        for (Expression operand : operands) {
+            Identifier identifier = equalityTarget(operand);
+            if (identifier == null || termCounts.get(identifier) < 2) {
+                result.add(operand);
+            } else {
+                Set<AbstractLiteral<?>> values = valuesByIdentifier.remove(identifier);
+                if (values != null) { /* Only the first term of each identifier is replaced, the rest are dropped */
+                    result.add(new InExpression(identifier, List.copyOf(values)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Identifier equalityTarget(Expression expr) {
+        if (expr instanceof BinaryExpression binary
+                && binary.operator() == LogicalOperator.EQUAL_TO
+                && binary.lhs() instanceof Identifier identifier
+                && binary.rhs() instanceof AbstractLiteral<?>) {
+            return identifier;
+        } else if (expr instanceof InExpression in && in.operand() instanceof Identifier identifier) {
+            return identifier;
+        }
+        return null;
+    }
+
+    private static List<AbstractLiteral<?>> equalityValues(Expression expr) {
+        return (expr instanceof InExpression in) ? in.values() : List.of((AbstractLiteral<?>) ((BinaryExpression) expr).rhs());
+    }
+
+    private static Expression join(List<Expression> operands, LogicalOperator operator) {
+        return (operands.size() == 1) ? operands.get(0) : new CompoundExpression(operator, operands);
+    }
+
+    private static BooleanConstant fold(AbstractLiteral<?> lhs, LogicalOperator operator, AbstractLiteral<?> rhs) {
+        Integer comparison = compare(lhs.getValue(), rhs.getValue());
+        if (comparison == null) {
+            return null;
+        }
+
+        int c = comparison;
+        return BooleanConstant.of(switch (operator) {
+            case EQUAL_TO -> c == 0;
+            case NOT_EQUAL_TO -> c != 0;
+            case GREATER_THAN -> c > 0;
+            case GREATER_THAN_OR_EQUAL_TO -> c >= 0;
+            case LESS_THAN -> c < 0;
+            case LESS_THAN_OR_EQUAL_TO -> c <= 0;
+            default -> throw new IllegalArgumentException("Not a comparison operator: " + operator);
+        });
+    }
+
+    // null if the outcome is up to the server
+    private static Integer compare(Object lhs, Object rhs) {
+        if (isIntegral(lhs) && isIntegral(rhs)) {
+            return Long.compare(((Number) lhs).longValue(), ((Number) rhs).longValue());
+        } else if ((lhs instanceof Double || lhs instanceof Float) && lhs.getClass() == rhs.getClass()) {
+            // Mixing float and double would compare the widened float, not the decimal text the server gets
+            double l = ((Number) lhs).doubleValue();
+            double r = ((Number) rhs).doubleValue();
+            if (Double.isNaN(l) || Double.isNaN(r)) {
+                return null;
+            }
+            return (l < r) ? -1 : ((l > r) ? 1 : 0);
+        } else if (lhs instanceof Timestamp l && rhs instanceof Timestamp r) {
+            return l.compareTo(r);
+        }
+        return null;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private static boolean isJunction(LogicalOperator operator) {
+        return operator == LogicalOperator.AND || operator == LogicalOperator.OR;
+    }
+
+    private static LogicalOperator inverse(LogicalOperator operator) {
+        return switch (operator) {
+            case EQUAL_TO -> LogicalOperator.NOT_EQUAL_TO;
+            case NOT_EQUAL_TO -> LogicalOperator.EQUAL_TO;
+            case GREATER_THAN -> LogicalOperator.LESS_THAN_OR_EQUAL_TO;
+            case GREATER_THAN_OR_EQUAL_TO -> LogicalOperator.LESS_THAN;
+            case LESS_THAN -> LogicalOperator.GREATER_THAN_OR_EQUAL_TO;
+            case LESS_THAN_OR_EQUAL_TO -> LogicalOperator.GREATER_THAN;
+            default -> null;
+        };
+    }
+
+    // Same comparison with operands swapped
+    private static LogicalOperator mirror(LogicalOperator operator) {
+        return switch (operator) {
+            case GREATER_THAN -> LogicalOperator.LESS_THAN;
+            case GREATER_THAN_OR_EQUAL_TO -> LogicalOperator.LESS_THAN_OR_EQUAL_TO;
+            case LESS_THAN -> LogicalOperator.GREATER_THAN;
+            case LESS_THAN_OR_EQUAL_TO -> LogicalOperator.GREATER_THAN_OR_EQUAL_TO;
+            default -> operator;
+        };
+    }
+}
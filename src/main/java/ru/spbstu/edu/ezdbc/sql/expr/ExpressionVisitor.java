@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import java.util.List;
+
+// Bottom-up fold over an expression tree (see Expressions#fold): every node is visited after its operands, and receives their results.
+// Traversal keeps its own stack, so trees of any depth can be visited.
+public interface ExpressionVisitor<R> {
+
+    // Identifiers, literals, constants and any expression kind not listed below
+    R visitLeaf(Expression expr);
+
+    R visitUnary(UnaryExpression expr, R operand);
+
+    R visitBinary(BinaryExpression expr, R lhs, R rhs);
+
+    R visitCompound(CompoundExpression expr, List<R> operands);
+
+    R visitIn(InExpression expr, R operand);
+
+    R visitAny(AnyExpression expr, R operand);
+}
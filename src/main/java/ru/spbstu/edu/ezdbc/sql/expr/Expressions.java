@@ -0,0 +1,255 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+// Rendering, estimation and traversal of expression trees with an explicit stack instead of recursion, so that generated filters of
+// thousands of terms (which programmatic builders tend to nest one level per term) neither overflow the stack nor take quadratic time.
+// Composite expressions delegate their appendTo/estimateSQLLength here.
+public final class Expressions {
+
+    private Expressions() {
+    }
+
+    public static void append(SQLBuilder sb, Expression root) {
+        Objects.requireNonNull(sb);
+
+        // Either constant pieces of text, operators or expressions still to be rendered, topmost first. Nothing is concatenated: operators
+        // are pushed as is between separate space tokens.
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String text) {
+                sb.append(text);
+            } else if (next instanceof Expression expr && isComposite(expr)) {
+                pushPartsOf(pending, expr);
+            } else {
+                ((SQLConvertible) next).appendTo(sb);
+            }
+        }
+    }
+
+    // Sums the same lengths a fold would, but into a primitive accumulator: every node adds its own text, operands are added as they're
+    // popped, so the order of traversal doesn't matter
+    public static int estimateSQLLength(Expression root) {
+        Objects.requireNonNull(root);
+
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(root);
+        int length = 0;
+
+        while (!pending.isEmpty()) {
+            Expression expr = pending.pop();
+            if (expr instanceof UnaryExpression unary) {
+                length += unary.operator().estimateSQLLength() + 1 + Expression.BRACKETS_LENGTH;
+                pending.push(unary.operand());
+            } else if (expr instanceof BinaryExpression binary) {
+                length += binary.operator().estimateSQLLength() + 2 + 2 * Expression.BRACKETS_LENGTH;
+                pending.push(binary.rhs());
+                pending.push(binary.lhs());
+            } else if (expr instanceof CompoundExpression compound) {
+                List<Expression> operands = compound.operands();
+                length += (operands.size() - 1) * (compound.operator().estimateSQLLength() + 2);
+                length += operands.size() * Expression.BRACKETS_LENGTH;
+                for (int i = operands.size() - 1; i >= 0; i--) {
+                    pending.push(operands.get(i));
+                }
+            } else if (expr instanceof InExpression in) {
+                length += Expression.BRACKETS_LENGTH + 6 + SQLConvertible.estimateSQLLength(in.values(), 2);
+                pending.push(in.operand());
+            } else if (expr instanceof AnyExpression any) {
+                length += Expression.BRACKETS_LENGTH + 8 + any.keys().estimateSQLLength();
+                pending.push(any.operand());
+            } else {
+                length += expr.estimateSQLLength();
+            }
+        }
+        return length;
+    }
+
+    public static <R> R fold(Expression root, ExpressionVisitor<R> visitor) {
+        Objects.requireNonNull(root);
+        Objects.requireNonNull(visitor);
+
+        // Each node is expanded (operands pushed) on first sight and visited on second, by which time its operands' results are on top of
+        // the result stack. An ArrayList is used as the latter, since results may be null.
+        Deque<Expression> nodes = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        List<R> results = new ArrayList<>();
+        nodes.push(root);
+        expanded.push(false);
+
+        while (!nodes.isEmpty()) {
+            Expression expr = nodes.peek();
+            List<Expression> operands = operandsOf(expr);
+
+            if (!expanded.peek()) {
+                expanded.pop();
+                expanded.push(true);
+                for (int i = operands.size() - 1; i >= 0; i--) {
+                    nodes.push(operands.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+
+            nodes.pop();
+            expanded.pop();
+
+            List<R> operandResults = results.subList(results.size() - operands.size(), results.size());
+            R result = visit(expr, operandResults, visitor);
+            operandResults.clear();
+            results.add(result);
+        }
+
+        return results.get(0);
+    }
+
+    // Operands of a chain of the given junction operator (compound or binary) in left-to-right order, or just expr if it isn't one
+    public static List<Expression> flatten(Expression expr, LogicalOperator operator) {
+        List<Expression> operands = new ArrayList<>();
+        Deque<Expression> stack = new ArrayDeque<>();
+        stack.push(expr);
+
+        while (!stack.isEmpty()) {
+            Expression next = stack.pop();
+            if (next instanceof BinaryExpression binary && binary.operator() == operator) {
+                stack.push(binary.rhs());
+                stack.push(binary.lhs());
+            } else if (next instanceof CompoundExpression compound && compound.operator() == operator) {
+                List<Expression> nested = compound.operands();
+                for (int i = nested.size() - 1; i >= 0; i--) {
+                    stack.push(nested.get(i));
+                }
+            } else {
+                operands.add(next);
+            }
+        }
+        return operands;
+    }
+
+    public static List<Expression> operandsOf(Expression expr) {
+        if (expr instanceof UnaryExpression unary) {
+            return List.of(unary.operand());
+        } else if (expr instanceof BinaryExpression binary) {
+            return List.of(binary.lhs(), binary.rhs());
+        } else if (expr instanceof CompoundExpression compound) {
+            return compound.operands();
+        } else if (expr instanceof InExpression in) {
+            return List.of(in.operand());
+        } else if (expr instanceof AnyExpression any) {
+            return List.of(any.operand());
+        }
+        return List.of();
+    }
+
+    private static <R> R visit(Expression expr, List<R> operands, ExpressionVisitor<R> visitor) {
+        if (expr instanceof UnaryExpression unary) {
+            return visitor.visitUnary(unary, operands.get(0));
+        } else if (expr instanceof BinaryExpression binary) {
+            return visitor.visitBinary(binary, operands.get(0), operands.get(1));
+        } else if (expr instanceof CompoundExpression compound) {
+            return visitor.visitCompound(compound, Collections.unmodifiableList(new ArrayList<>(operands))); /* May hold nulls */
+        } else if (expr instanceof InExpression in) {
+            return visitor.visitIn(in, operands.get(0));
+        } else if (expr instanceof AnyExpression any) {
+            return visitor.visitAny(any, operands.get(0));
+        }
+        return visitor.visitLeaf(expr);
+    }
+
+    private static boolean isComposite(Expression expr) {
+        return expr instanceof UnaryExpression
+                || expr instanceof BinaryExpression
+                || expr instanceof CompoundExpression
+                || expr instanceof InExpression
+                || expr instanceof AnyExpression;
+    }
+
+    // Pushes what the appendTo implementations used to produce recursively, last part first so that the first one ends up on top
+    private static void pushPartsOf(Deque<Object> pending, Expression expr) {
+        if (expr instanceof UnaryExpression unary) {
+            pushBracketedIfNeeded(pending, unary.operand());
+            pending.push(" ");
+            pending.push(unary.operator());
+        } else if (expr instanceof BinaryExpression binary) {
+            pushBracketedIfNeeded(pending, binary.rhs());
+            pushOperator(pending, binary.operator());
+            pushBracketedIfNeeded(pending, binary.lhs());
+        } else if (expr instanceof CompoundExpression compound) {
+            List<Expression> operands = compound.operands();
+            for (int i = operands.size() - 1; i >= 0; i--) {
+                pushBracketedIfNeeded(pending, operands.get(i));
+                if (i > 0) {
+                    pushOperator(pending, compound.operator());
+                }
+            }
+        } else if (expr instanceof InExpression in) {
+            pending.push(")");
+            for (int i = in.values().size() - 1; i >= 0; i--) {
+                pending.push(in.values().get(i));
+                if (i > 0) {
+                    pending.push(", ");
+                }
+            }
+            pending.push(" IN (");
+            pushBracketedIfNeeded(pending, in.operand());
+        } else if (expr instanceof AnyExpression any) {
+            pending.push(")");
+            pending.push(any.keys());
+            pending.push(" = ANY(");
+            pushBracketedIfNeeded(pending, any.operand());
+        }
+    }
+
+    private static void pushOperator(Deque<Object> pending, LogicalOperator operator) {
+        pending.push(" ");
+        pending.push(operator);
+        pending.push(" ");
+    }
+
+    private static void pushBracketedIfNeeded(Deque<Object> pending, Expression expr) {
+        if (Expression.isAtomic(expr)) {
+            pending.push(expr);
+        } else {
+            pending.push(")");
+            pending.push(expr);
+            pending.push("(");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveIntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveLongLiteral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// operand IN (value1, value2, ...)
+public record InExpression(Expression operand, List<AbstractLiteral<?>> values) implements Expression {
+
+    public InExpression {
+        Objects.requireNonNull(operand);
+
+        values = List.copyOf(values);
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("IN list must not be empty");
+        }
+    }
+
+    public static InExpression of(Expression operand, long[] keys) {
+        List<AbstractLiteral<?>> values = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            values.add(PrimitiveLongLiteral.of(key));
+        }
+        return new InExpression(operand, values);
+    }
+
+    public static InExpression of(Expression operand, int[] keys) {
+        List<AbstractLiteral<?>> values = new ArrayList<>(keys.length);
+        for (int key : keys) {
+            values.add(PrimitiveIntLiteral.of(key));
+        }
+        return new InExpression(operand, values);
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        Expressions.append(sb, this);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return Expressions.estimateSQLLength(this);
+    }
+}
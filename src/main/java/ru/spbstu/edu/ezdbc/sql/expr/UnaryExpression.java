@@ -25,6 +25,7 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
 
 import java.util.Objects;
@@ -41,7 +42,12 @@ public record UnaryExpression(LogicalOperator operator, Expression operand) impl
     }
 
     @Override
-    public String toSQLString() {
-        return operand.toSQLString() + ' ' + Expression.toBracketedSQLStringIfNeeded(operand);
+    public void appendTo(SQLBuilder sb) {
+        Expressions.append(sb, this);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return Expressions.estimateSQLLength(this);
     }
 }
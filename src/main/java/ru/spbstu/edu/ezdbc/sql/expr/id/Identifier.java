@@ -25,21 +25,47 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.id;
 
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.expr.Expression;
 import ru.spbstu.edu.ezdbc.sql.query.Selectable;
 
 import java.util.Objects;
 
-public record Identifier(String name) implements Expression, Selectable {
+// Rendered as is, unless quoted: quoted identifiers are wrapped into the rendering dialect's quotes (see SQLBuilder#appendQuoted), which
+// keeps reserved words, special characters and case intact. A quoted name is a single name, not a qualified "schema.table" one.
+public record Identifier(String name, boolean quoted) implements Expression, Selectable {
 
     public Identifier {
         Objects.requireNonNull(name, "Identifier must have a name");
         // TODO: Validate name to only contain allowed characters
     }
 
+    public Identifier(String name) {
+        this(name, false);
+    }
+
+    public static Identifier quoted(String name) {
+        return new Identifier(name, true);
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        if (quoted) {
+            sb.appendQuoted(name);
+        } else {
+            sb.append(name);
+        }
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return quoted ? (name.length() + 2) : name.length();
+    }
+
     @Override
     public String toSQLString() {
-        return name;
+        return quoted ? Dialect.GENERIC.quote(name) : name;
     }
 
     // TODO: Implement Comparable<Identifier> (case-sensitive)
@@ -25,8 +25,15 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.expr.Expression;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Objects;
+
 public abstract class AbstractLiteral<T> implements Expression {
 
     private static final String SQL_NULL_VALUE = "NULL";
@@ -34,13 +41,20 @@ public abstract class AbstractLiteral<T> implements Expression {
 
     private final T value;
     private final boolean requiresQuotes;
+    private final int sqlType;
 
-    protected AbstractLiteral(T value, boolean requiresQuotes) {
+    protected AbstractLiteral(T value, boolean requiresQuotes, int sqlType) {
         this.value = value;
         this.requiresQuotes = requiresQuotes;
+        this.sqlType = sqlType;
     }
 
-    public final T getValue() {
+    protected AbstractLiteral(T value, boolean requiresQuotes) {
+        this(value, requiresQuotes, Types.JAVA_OBJECT);
+    }
+
+    // Not final, as primitive-backed literals (see PrimitiveLiteral) keep their value elsewhere and box it on demand
+    public T getValue() {
         return value;
     }
 
@@ -48,19 +62,121 @@ public abstract class AbstractLiteral<T> implements Expression {
         return requiresQuotes;
     }
 
-    // TODO: Equals, hashCode and toString (final)
+    // One of java.sql.Types, used to bind NULLs
+    public final int getSQLType() {
+        return sqlType;
+    }
+
+    // Literals of the same class holding equal values (arrays included) are equal, which lets rendered parameter lists serve as cache keys
+    @Override
+    public final boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        return obj != null && getClass() == obj.getClass() && valueEquals((AbstractLiteral<?>) obj);
+    }
+
+    @Override
+    public final int hashCode() {
+        return 31 * getClass().hashCode() + valueHashCode();
+    }
+
+    @Override
+    public final String toString() {
+        return "%s[value=%s]".formatted(getClass().getSimpleName(), valueToString());
+    }
+
+    @Override
+    public final void appendTo(SQLBuilder sb) {
+        if (sb.isParameterized()) {
+            sb.appendParameter(this);
+        } else if (isNullValue()) {
+            sb.append(SQL_NULL_VALUE);
+        } else if (requiresQuotes) {
+            sb.append(QUOTE);
+            appendValue(sb);
+            sb.append(QUOTE);
+        } else {
+            appendValue(sb);
+        }
+    }
+
+    @Override
+    public final int estimateSQLLength() {
+        if (isNullValue()) {
+            return SQL_NULL_VALUE.length();
+        }
+
+        return requiresQuotes ? (estimateValueLength() + 2) : estimateValueLength();
+    }
 
     @Override
     public final String toSQLString() {
-        if (value == null) {
-            return SQL_NULL_VALUE;
+        return Expression.super.toSQLString();
+    }
+
+    public final void bind(PreparedStatement statement, int index) throws SQLException {
+        if (isNullValue()) {
+            statement.setNull(index, sqlType);
+        } else {
+            bindValue(statement, index);
         }
+    }
+
+    // The following are only overridden by PrimitiveLiteral, everything else goes through the *Impl methods below
+
+    protected boolean isNullValue() {
+        return value == null;
+    }
+
+    // Called with a literal of the same class only
+    protected boolean valueEquals(AbstractLiteral<?> other) {
+        return Objects.deepEquals(value, other.value);
+    }
+
+    // Only arrays need the deep* methods (wrapped, as they may be primitive), everything else is hashed and printed as is
+    protected int valueHashCode() {
+        return isArray(value) ? Arrays.deepHashCode(new Object[]{value}) : Objects.hashCode(value);
+    }
+
+    protected String valueToString() {
+        if (isArray(value)) {
+            String valueString = Arrays.deepToString(new Object[]{value});
+            return valueString.substring(1, valueString.length() - 1);
+        }
+        return String.valueOf(value);
+    }
 
-        String raw = toSQLStringImpl(value);
-        return requiresQuotes ? (QUOTE + raw + QUOTE) : raw;
+    protected void appendValue(SQLBuilder sb) {
+        appendSQLImpl(sb, value);
+    }
+
+    protected int estimateValueLength() {
+        return estimateSQLLengthImpl(value);
+    }
+
+    protected void bindValue(PreparedStatement statement, int index) throws SQLException {
+        bindImpl(statement, index, value);
     }
 
     protected String toSQLStringImpl(T value) {
         return value.toString(); // Default impl. Override for a custom conversion.
     }
+
+    protected void appendSQLImpl(SQLBuilder sb, T value) {
+        sb.append(toSQLStringImpl(value)); // Default impl. Override to skip the intermediate String.
+    }
+
+    protected int estimateSQLLengthImpl(T value) {
+        return 16; // Default impl. Override with something more precise if possible.
+    }
+
+    protected void bindImpl(PreparedStatement statement, int index, T value) throws SQLException {
+        statement.setObject(index, value); // Default impl. Override to use a typed setter.
+    }
+
+    private static boolean isArray(Object value) {
+        return value != null && value.getClass().isArray();
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+// Bound via setBoolean, which drivers map onto BIT/NUMBER(1) columns where there is no BOOLEAN type. Inlined as ANSI TRUE/FALSE though,
+// which Oracle (before 23) and SQL Server don't understand, so prefer parameterized rendering there.
+public final class BooleanLiteral extends PrimitiveLiteral<Boolean> {
+
+    public static final BooleanLiteral TRUE = new BooleanLiteral(true);
+    public static final BooleanLiteral FALSE = new BooleanLiteral(false);
+
+    private final boolean value;
+
+    private BooleanLiteral(boolean value) {
+        super(Types.BOOLEAN);
+        this.value = value;
+    }
+
+    public static BooleanLiteral of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    public boolean booleanValue() {
+        return value;
+    }
+
+    @Override
+    public Boolean getValue() {
+        return value;
+    }
+
+    @Override
+    protected boolean valueEquals(AbstractLiteral<?> other) {
+        return value == ((BooleanLiteral) other).value;
+    }
+
+    @Override
+    protected int valueHashCode() {
+        return Boolean.hashCode(value);
+    }
+
+    @Override
+    protected String valueToString() {
+        return String.valueOf(value);
+    }
+
+    @Override
+    protected void appendValue(SQLBuilder sb) {
+        sb.append(value ? "TRUE" : "FALSE");
+    }
+
+    @Override
+    protected int estimateValueLength() {
+        return 5;
+    }
+
+    @Override
+    protected void bindValue(PreparedStatement statement, int index) throws SQLException {
+        statement.setBoolean(index, value);
+    }
+}
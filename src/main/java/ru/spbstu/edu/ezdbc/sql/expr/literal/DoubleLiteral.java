@@ -25,9 +25,30 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
 public final class DoubleLiteral extends AbstractLiteral<Double> {
 
     public DoubleLiteral(Double value) {
-        super(value, false);
+        super(value, false, Types.DOUBLE);
+    }
+
+    @Override
+    protected void appendSQLImpl(SQLBuilder sb, Double value) {
+        sb.append(value.doubleValue());
+    }
+
+    @Override
+    protected int estimateSQLLengthImpl(Double value) {
+        return 24;
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, Double value) throws SQLException {
+        statement.setDouble(index, value);
     }
 }
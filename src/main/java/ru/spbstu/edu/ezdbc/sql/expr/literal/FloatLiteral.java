@@ -25,9 +25,30 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
 public final class FloatLiteral extends AbstractLiteral<Float> {
 
     public FloatLiteral(Float value) {
-        super(value, false);
+        super(value, false, Types.REAL);
+    }
+
+    @Override
+    protected void appendSQLImpl(SQLBuilder sb, Float value) {
+        sb.append(value.floatValue());
+    }
+
+    @Override
+    protected int estimateSQLLengthImpl(Float value) {
+        return 15;
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, Float value) throws SQLException {
+        statement.setFloat(index, value);
     }
 }
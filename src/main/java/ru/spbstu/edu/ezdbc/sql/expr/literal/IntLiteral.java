@@ -25,9 +25,30 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
 public final class IntLiteral extends AbstractLiteral<Integer> {
 
     public IntLiteral(Integer value) {
-        super(value, false);
+        super(value, false, Types.INTEGER);
+    }
+
+    @Override
+    protected void appendSQLImpl(SQLBuilder sb, Integer value) {
+        sb.append(value.intValue());
+    }
+
+    @Override
+    protected int estimateSQLLengthImpl(Integer value) {
+        return 11; // "-2147483648"
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, Integer value) throws SQLException {
+        statement.setInt(index, value);
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import java.sql.Timestamp;
+
+public final class Literals {
+
+    private Literals() {
+    }
+
+    // Wraps a value of one of the supported types (e.g. something read via ResultSet#getObject) into a matching literal
+    public static AbstractLiteral<?> of(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Can't infer literal type of null");
+        }
+
+        if (value instanceof Integer i) {
+            return new IntLiteral(i);
+        } else if (value instanceof Short || value instanceof Byte) {
+            return new IntLiteral(((Number) value).intValue());
+        } else if (value instanceof Long l) {
+            return new LongLiteral(l);
+        } else if (value instanceof Float f) {
+            return new FloatLiteral(f);
+        } else if (value instanceof Double d) {
+            return new DoubleLiteral(d);
+        } else if (value instanceof String s) {
+            return new StringLiteral(s);
+        } else if (value instanceof Timestamp t) {
+            return new TimestampLiteral(t);
+        }
+
+        throw new IllegalArgumentException("Unsupported literal type: " + value.getClass().getName());
+    }
+
+    // Same as of(Object), except that values of any other type are wrapped into an ObjectLiteral bound with the given java.sql.Types type
+    public static AbstractLiteral<?> of(Object value, int sqlType) {
+        if (value == null) {
+            throw new IllegalArgumentException("Can't infer literal type of null");
+        }
+
+        return isSupported(value) ? of(value) : new ObjectLiteral(value, sqlType);
+    }
+
+    private static boolean isSupported(Object value) {
+        return value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Long
+                || value instanceof Float || value instanceof Double || value instanceof String || value instanceof Timestamp;
+    }
+}
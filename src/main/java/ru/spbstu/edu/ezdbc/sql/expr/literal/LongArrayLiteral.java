@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+// A whole array of keys bound as a single parameter (see AnyExpression). Inlined as ARRAY[1, 2, 3], which is PostgreSQL syntax.
+public final class LongArrayLiteral extends AbstractLiteral<long[]> {
+
+    private static final String ELEMENT_TYPE_NAME = "bigint";
+
+    // The array is copied, so later changes to it don't affect this literal
+    public LongArrayLiteral(long[] value) {
+        super(value.clone(), false, Types.ARRAY);
+    }
+
+    public int length() {
+        return getValue().length;
+    }
+
+    @Override
+    protected void appendSQLImpl(SQLBuilder sb, long[] value) {
+        sb.append("ARRAY[");
+        for (int i = 0; i < value.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(value[i]);
+        }
+        sb.append(']');
+    }
+
+    @Override
+    protected int estimateSQLLengthImpl(long[] value) {
+        return 7 + 12 * value.length;
+    }
+
+    // createArrayOf only takes objects, so the elements get boxed once here. Still a single parameter no matter how many keys there are.
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, long[] value) throws SQLException {
+        Long[] elements = new Long[value.length];
+        for (int i = 0; i < value.length; i++) {
+            elements[i] = value[i];
+        }
+
+        // Only arrays bound to PostgreSQL's "= ANY(?)" are used, and its driver serializes the array in setArray, so it can be freed right away
+        Array array = statement.getConnection().createArrayOf(ELEMENT_TYPE_NAME, elements);
+        try {
+            statement.setArray(index, array);
+        } finally {
+            array.free();
+        }
+    }
+}
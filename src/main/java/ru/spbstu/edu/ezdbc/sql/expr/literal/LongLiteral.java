@@ -25,9 +25,30 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
 public final class LongLiteral extends AbstractLiteral<Long> {
 
     public LongLiteral(Long value) {
-        super(value, false);
+        super(value, false, Types.BIGINT);
+    }
+
+    @Override
+    protected void appendSQLImpl(SQLBuilder sb, Long value) {
+        sb.append(value.longValue());
+    }
+
+    @Override
+    protected int estimateSQLLengthImpl(Long value) {
+        return 20; // "-9223372036854775808"
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, Long value) throws SQLException {
+        statement.setLong(index, value);
     }
 }
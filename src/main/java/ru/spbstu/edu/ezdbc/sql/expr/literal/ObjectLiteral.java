@@ -0,0 +1,43 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Any value read back from the database (BigDecimal, UUID, LocalDateTime, ...) that has no dedicated literal type. Bound via setObject with
+// the column's SQL type, so the driver does the conversion. Inlined via toString(), quoted unless it's a number.
+public final class ObjectLiteral extends AbstractLiteral<Object> {
+
+    public ObjectLiteral(Object value, int sqlType) {
+        super(value, !(value instanceof Number), sqlType);
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, Object value) throws SQLException {
+        statement.setObject(index, value, getSQLType());
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public final class PrimitiveDoubleLiteral extends PrimitiveLiteral<Double> {
+
+    private static final PrimitiveDoubleLiteral ZERO = new PrimitiveDoubleLiteral(0.0);
+    private static final PrimitiveDoubleLiteral ONE = new PrimitiveDoubleLiteral(1.0);
+
+    private final double value;
+
+    private PrimitiveDoubleLiteral(double value) {
+        super(Types.DOUBLE);
+        this.value = value;
+    }
+
+    public static PrimitiveDoubleLiteral of(double value) {
+        if (value == 1.0) {
+            return ONE;
+        }
+        // -0.0 == 0.0, yet renders differently
+        return (Double.doubleToRawLongBits(value) == 0L) ? ZERO : new PrimitiveDoubleLiteral(value);
+    }
+
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public Double getValue() {
+        return value;
+    }
+
+    @Override
+    protected boolean valueEquals(AbstractLiteral<?> other) {
+        return Double.compare(value, ((PrimitiveDoubleLiteral) other).value) == 0; /* Same as Double.equals */
+    }
+
+    @Override
+    protected int valueHashCode() {
+        return Double.hashCode(value);
+    }
+
+    @Override
+    protected String valueToString() {
+        return String.valueOf(value);
+    }
+
+    @Override
+    protected void appendValue(SQLBuilder sb) {
+        sb.append(value);
+    }
+
+    @Override
+    protected int estimateValueLength() {
+        return 24;
+    }
+
+    @Override
+    protected void bindValue(PreparedStatement statement, int index) throws SQLException {
+        statement.setDouble(index, value);
+    }
+}
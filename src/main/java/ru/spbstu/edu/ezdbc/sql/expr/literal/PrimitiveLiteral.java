@@ -0,0 +1,67 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Base of literals that keep their value in a primitive field, so that creating, rendering and binding them never boxes it. Such literals
+// are never NULL (use the boxed counterparts for that). getValue() still works, but boxes on every call, so equals, hashCode and toString
+// don't go through it.
+public abstract class PrimitiveLiteral<T> extends AbstractLiteral<T> {
+
+    protected PrimitiveLiteral(int sqlType) {
+        super(null, false, sqlType);
+    }
+
+    @Override
+    public abstract T getValue();
+
+    @Override
+    protected final boolean isNullValue() {
+        return false;
+    }
+
+    @Override
+    protected abstract boolean valueEquals(AbstractLiteral<?> other);
+
+    @Override
+    protected abstract int valueHashCode();
+
+    @Override
+    protected abstract String valueToString();
+
+    @Override
+    protected abstract void appendValue(SQLBuilder sb);
+
+    @Override
+    protected abstract int estimateValueLength();
+
+    @Override
+    protected abstract void bindValue(PreparedStatement statement, int index) throws SQLException;
+}
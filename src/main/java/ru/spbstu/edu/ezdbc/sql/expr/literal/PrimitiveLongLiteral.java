@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public final class PrimitiveLongLiteral extends PrimitiveLiteral<Long> {
+
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1023;
+    private static final PrimitiveLongLiteral[] CACHE = new PrimitiveLongLiteral[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new PrimitiveLongLiteral(CACHE_LOW + i);
+        }
+    }
+
+    private final long value;
+
+    private PrimitiveLongLiteral(long value) {
+        super(Types.BIGINT);
+        this.value = value;
+    }
+
+    public static PrimitiveLongLiteral of(long value) {
+        return (value >= CACHE_LOW && value <= CACHE_HIGH) ? CACHE[(int) value - CACHE_LOW] : new PrimitiveLongLiteral(value);
+    }
+
+    public long longValue() {
+        return value;
+    }
+
+    @Override
+    public Long getValue() {
+        return value;
+    }
+
+    @Override
+    protected boolean valueEquals(AbstractLiteral<?> other) {
+        return value == ((PrimitiveLongLiteral) other).value;
+    }
+
+    @Override
+    protected int valueHashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    protected String valueToString() {
+        return String.valueOf(value);
+    }
+
+    @Override
+    protected void appendValue(SQLBuilder sb) {
+        sb.append(value);
+    }
+
+    @Override
+    protected int estimateValueLength() {
+        return 20; // "-9223372036854775808"
+    }
+
+    @Override
+    protected void bindValue(PreparedStatement statement, int index) throws SQLException {
+        statement.setLong(index, value);
+    }
+}
@@ -25,11 +25,25 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
 public final class StringLiteral extends AbstractLiteral<String> {
 
     public StringLiteral(String value) {
-        super(value, true);
+        super(value, true, Types.VARCHAR);
     }
 
     // FIXME: Overload toSQLStringImpl to validate against contained quotes, escape chars and other bullshit
+
+    @Override
+    protected int estimateSQLLengthImpl(String value) {
+        return value.length();
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, String value) throws SQLException {
+        statement.setString(index, value);
+    }
 }
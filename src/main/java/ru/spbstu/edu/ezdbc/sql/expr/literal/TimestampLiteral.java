@@ -25,11 +25,24 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.literal;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
 
 public final class TimestampLiteral extends AbstractLiteral<Timestamp> {
 
     public TimestampLiteral(Timestamp value) {
-        super(value, true);
+        super(value, true, Types.TIMESTAMP);
+    }
+
+    @Override
+    protected int estimateSQLLengthImpl(Timestamp value) {
+        return 29; // "yyyy-mm-dd hh:mm:ss.fffffffff"
+    }
+
+    @Override
+    protected void bindImpl(PreparedStatement statement, int index, Timestamp value) throws SQLException {
+        statement.setTimestamp(index, value);
     }
 }
@@ -25,6 +25,7 @@
 
 package ru.spbstu.edu.ezdbc.sql.expr.op;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
 
 public enum LogicalOperator implements SQLConvertible {
@@ -63,6 +64,16 @@ public enum LogicalOperator implements SQLConvertible {
         return type == Type.BINARY;
     }
 
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        sb.append(syntax);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return syntax.length();
+    }
+
     @Override
     public String toSQLString() {
         return syntax;
@@ -26,7 +26,9 @@
 package ru.spbstu.edu.ezdbc.sql.query;
 
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
 
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 
@@ -42,7 +44,33 @@ public abstract class AbstractModificationQuery extends AbstractSQLQuery<Integer
 
     @Override
     public final Integer execute(Statement statement) throws SQLException {
-        return statement.executeUpdate(toSQLString());
+        try {
+            return statement.executeUpdate(toSQLString());
+        } finally {
+            TableModifications.fire(getTableIdentifier());
+        }
+    }
+
+    @Override
+    public final Integer executePrepared(PreparedStatement statement) throws SQLException {
+        try {
+            return statement.executeUpdate();
+        } finally {
+            TableModifications.fire(getTableIdentifier());
+        }
+    }
+
+    // The table is captured now, so that a frozen query reports the modification of the table it was frozen for
+    @Override
+    protected final ThrowingFunction<PreparedStatement, Integer, SQLException> preparedExecutor() {
+        Identifier tableIdentifier = getTableIdentifier();
+        return statement -> {
+            try {
+                return statement.executeUpdate();
+            } finally {
+                TableModifications.fire(tableIdentifier);
+            }
+        };
     }
 
     // TODO: Equals, hashCode and toString (inheritors too)
@@ -25,10 +25,14 @@
 
 package ru.spbstu.edu.ezdbc.sql.query;
 
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
 import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Objects;
@@ -36,6 +40,7 @@ import java.util.Objects;
 public abstract class AbstractSQLQuery<R> implements SQLConvertible {
 
     private Identifier tableIdentifier;
+    private Dialect dialect = Dialect.GENERIC;
 
     protected AbstractSQLQuery(Identifier tableIdentifier) {
         setTableIdentifier(tableIdentifier);
@@ -57,6 +62,24 @@ public abstract class AbstractSQLQuery<R> implements SQLConvertible {
         return tableIdentifier.name(); // Or toSQLString?
     }
 
+    public Dialect getDialect() {
+        return dialect;
+    }
+
+    // Dialect the query is rendered in (identifier quoting, and whatever else the particular query makes use of). GENERIC by default.
+    public void setDialect(Dialect dialect) {
+        this.dialect = Objects.requireNonNull(dialect);
+    }
+
+    public final ParameterizedSQL toParameterizedSQL() {
+        return ParameterizedSQL.of(this, dialect);
+    }
+
+    @Override
+    public final String toSQLString() {
+        return toSQLString(dialect);
+    }
+
     public abstract R execute(Statement statement) throws SQLException;
 
     public R execute(Connection connection) throws SQLException {
@@ -65,5 +88,30 @@ public abstract class AbstractSQLQuery<R> implements SQLConvertible {
         }
     }
 
+    // Expects a statement prepared from toParameterizedSQL() with all of its parameters already bound
+    public abstract R executePrepared(PreparedStatement statement) throws SQLException;
+
+    public R executePrepared(Connection connection) throws SQLException {
+        try (PreparedStatement statement = toParameterizedSQL().prepare(connection)) {
+            return executePrepared(statement);
+        }
+    }
+
+    // Snapshots the current state into an immutable, thread-safe query. Later changes to this query don't affect the snapshot.
+    public final FrozenQuery<R> freeze() {
+        return new FrozenQuery<>(tableIdentifier, toParameterizedSQL(), preparedExecutor());
+    }
+
+    // Equivalent of executePrepared(Connection) that is unaffected by any later changes to this query, e.g. for running it on another thread
+    public ThrowingFunction<Connection, R, SQLException> executionSnapshot() {
+        return freeze()::execute;
+    }
+
+    // Used by frozen queries in place of executePrepared(PreparedStatement), so it must not depend on this query's (mutable) state at
+    // execution time. Override if executePrepared does.
+    protected ThrowingFunction<PreparedStatement, R, SQLException> preparedExecutor() {
+        return this::executePrepared;
+    }
+
     // TODO: Equals, hashCode and toString (inheritors too)
 }
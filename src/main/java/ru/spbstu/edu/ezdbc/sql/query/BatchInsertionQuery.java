@@ -0,0 +1,360 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Inserts many rows sharing the same column set. Execution returns one update count per row (or Statement.SUCCESS_NO_INFO where the driver
+// can't tell them apart).
+// https://www.w3schools.com/sql/sql_insert.asp
+public final class BatchInsertionQuery extends AbstractSQLQuery<int[]> {
+
+    public enum Mode {
+        // One single-row statement, executed via addBatch/executeBatch
+        JDBC_BATCH,
+        // Multi-row "VALUES (...), (...)" statements, each one as large as the parameter and dialect row limits allow
+        MULTI_ROW_VALUES;
+    }
+
+    public static final int DEFAULT_MAX_PARAMETERS = 2000; // Lowest common denominator (SQL Server allows 2100)
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final List<Identifier> columns;
+    private final List<List<AbstractLiteral<?>>> rows;
+    private Mode mode;
+    private int maxParameters;
+    private int batchSize;
+
+    public BatchInsertionQuery(Identifier tableIdentifier, List<Identifier> columns) {
+        super(tableIdentifier);
+        this.columns = List.copyOf(columns);
+        if (this.columns.isEmpty()) {
+            throw new IllegalArgumentException("No columns specified for batch insertion query");
+        }
+        this.rows = new ArrayList<>();
+        setMode(Mode.JDBC_BATCH);
+        setMaxParameters(DEFAULT_MAX_PARAMETERS);
+        setBatchSize(DEFAULT_BATCH_SIZE);
+    }
+
+    public BatchInsertionQuery(String tableName, List<Identifier> columns) {
+        this(new Identifier(tableName), columns);
+    }
+
+    public List<Identifier> getColumns() {
+        return columns;
+    }
+
+    public List<List<AbstractLiteral<?>>> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    public BatchInsertionQuery addRow(List<AbstractLiteral<?>> row) {
+        Objects.requireNonNull(row);
+        if (row.size() != columns.size()) {
+            throw new IllegalArgumentException("Row has " + row.size() + " values, but " + columns.size() + " columns were specified");
+        }
+
+        rows.add(List.copyOf(row));
+        return this;
+    }
+
+    public BatchInsertionQuery addRow(AbstractLiteral<?>... row) {
+        return addRow(Arrays.asList(row));
+    }
+
+    public void clearRows() {
+        rows.clear();
+    }
+
+    // Adopts the dialect's statement limits and preferred mode. The parameter limit can still be narrowed afterwards via setMaxParameters.
+    @Override
+    public void setDialect(Dialect dialect) {
+        super.setDialect(dialect);
+        setMode(dialect.prefersMultiRowValues() ? Mode.MULTI_ROW_VALUES : Mode.JDBC_BATCH);
+        setMaxParameters(dialect.getMaxBindParameters());
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = Objects.requireNonNull(mode);
+    }
+
+    public int getMaxParameters() {
+        return maxParameters;
+    }
+
+    // Upper bound on bind parameters per statement in MULTI_ROW_VALUES mode, capped at the dialect's limit
+    public void setMaxParameters(int maxParameters) {
+        int capped = Math.min(maxParameters, getDialect().getMaxBindParameters());
+        if (capped < columns.size()) {
+            throw new IllegalArgumentException("Parameter limit " + capped + " can't fit a single row of " + columns.size() + " columns");
+        }
+        this.maxParameters = capped;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Amount of rows sent per executeBatch call in JDBC_BATCH mode
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxRowsPerStatement() {
+        return Math.min(maxParameters / columns.size(), getDialect().getMaxRowsPerInsert());
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        appendTo(sb, rows);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return estimateSQLLength(rows);
+    }
+
+    private void appendTo(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("No rows specified for batch insertion query");
+        }
+
+        sb.append("INSERT INTO ").append(getTableIdentifier()).append(' ');
+        sb.appendPacked(columns);
+        sb.append(" VALUES ");
+
+        boolean first = true;
+        for (List<AbstractLiteral<?>> row : rows) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.appendPacked(row);
+            first = false;
+        }
+    }
+
+    private int estimateSQLLength(List<List<AbstractLiteral<?>>> rows) {
+        int length = 22 + getTableIdentifier().estimateSQLLength() + SQLConvertible.estimateSQLLength(columns, 2);
+        for (List<AbstractLiteral<?>> row : rows) {
+            length += 4 + SQLConvertible.estimateSQLLength(row, 2);
+        }
+        return length;
+    }
+
+    private String toSQLString(List<List<AbstractLiteral<?>>> rows) {
+        SQLBuilder sb = SQLBuilder.inline(estimateSQLLength(rows), getDialect());
+        appendTo(sb, rows);
+        return sb.toString();
+    }
+
+    @Override
+    public int[] execute(Statement statement) throws SQLException {
+        try {
+            return executeInline(statement);
+        } finally {
+            TableModifications.fire(getTableIdentifier());
+        }
+    }
+
+    private int[] executeInline(Statement statement) throws SQLException {
+        int[] counts = new int[rows.size()];
+
+        if (mode == Mode.MULTI_ROW_VALUES) {
+            int chunkSize = getMaxRowsPerStatement();
+            for (int start = 0; start < rows.size(); start += chunkSize) {
+                int end = Math.min(start + chunkSize, rows.size());
+                int count = statement.executeUpdate(toSQLString(rows.subList(start, end)));
+                spread(count, counts, start, end);
+            }
+            return counts;
+        }
+
+        int done = 0;
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            List<List<AbstractLiteral<?>>> batch = rows.subList(start, Math.min(start + batchSize, rows.size()));
+            for (List<AbstractLiteral<?>> row : batch) {
+                statement.addBatch(toSQLString(List.of(row)));
+            }
+            done = append(statement.executeBatch(), counts, done, batch.size());
+        }
+        return counts;
+    }
+
+    // Expects a statement prepared from toParameterizedSQL(), i.e. a single statement holding all rows
+    @Override
+    public int[] executePrepared(PreparedStatement statement) throws SQLException {
+        int[] counts = new int[rows.size()];
+        try {
+            spread(statement.executeUpdate(), counts, 0, rows.size());
+        } finally {
+            TableModifications.fire(getTableIdentifier());
+        }
+        return counts;
+    }
+
+    @Override
+    protected ThrowingFunction<PreparedStatement, int[], SQLException> preparedExecutor() {
+        int rowCount = rows.size();
+        Identifier tableIdentifier = getTableIdentifier();
+        return statement -> {
+            int[] counts = new int[rowCount];
+            try {
+                spread(statement.executeUpdate(), counts, 0, rowCount);
+            } finally {
+                TableModifications.fire(tableIdentifier);
+            }
+            return counts;
+        };
+    }
+
+    @Override
+    public int[] executePrepared(Connection connection) throws SQLException {
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("No rows specified for batch insertion query");
+        }
+
+        try {
+            return mode == Mode.MULTI_ROW_VALUES
+                    ? executePreparedMultiRow(connection)
+                    : executePreparedBatch(connection);
+        } finally {
+            TableModifications.fire(getTableIdentifier());
+        }
+    }
+
+    // A frozen query would run all rows as a single statement, so a copy is used instead to keep the chunked execution above
+    @Override
+    public ThrowingFunction<Connection, int[], SQLException> executionSnapshot() {
+        return copy()::executePrepared;
+    }
+
+    private BatchInsertionQuery copy() {
+        BatchInsertionQuery copy = new BatchInsertionQuery(getTableIdentifier(), columns);
+        copy.rows.addAll(rows); /* Rows themselves are immutable */
+        copy.setDialect(getDialect());
+        copy.setMode(mode);
+        copy.setMaxParameters(maxParameters);
+        copy.setBatchSize(batchSize);
+        return copy;
+    }
+
+    private int[] executePreparedBatch(Connection connection) throws SQLException {
+        ParameterizedSQL singleRow = ParameterizedSQL.of(new RowSubset(rows.subList(0, 1)), getDialect());
+        int[] counts = new int[rows.size()];
+        int done = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(singleRow.text())) {
+            int pending = 0;
+            for (List<AbstractLiteral<?>> row : rows) {
+                int index = 1;
+                for (AbstractLiteral<?> value : row) {
+                    value.bind(statement, index++);
+                }
+                statement.addBatch();
+
+                if (++pending == batchSize) {
+                    done = append(statement.executeBatch(), counts, done, pending);
+                    pending = 0;
+                }
+            }
+
+            if (pending > 0) {
+                append(statement.executeBatch(), counts, done, pending);
+            }
+        }
+
+        return counts;
+    }
+
+    private int[] executePreparedMultiRow(Connection connection) throws SQLException {
+        int[] counts = new int[rows.size()];
+        ChunkedExecution.execute(connection, getDialect(), rows.size(), getMaxRowsPerStatement(),
+                (start, end) -> new RowSubset(rows.subList(start, end)),
+                (start, end, count) -> spread(count, counts, start, end));
+        return counts;
+    }
+
+    // A multi-row statement only reports the total, which can only be attributed to individual rows if every row inserted exactly one row
+    private static void spread(int total, int[] counts, int start, int end) {
+        int perRow = (total == end - start) ? 1 : Statement.SUCCESS_NO_INFO;
+        Arrays.fill(counts, start, end, perRow);
+    }
+
+    // Drivers are expected to report one count per batched row. Should one report a different amount, the counts of the batch's rows are
+    // filled up with (or cut down to) what it reported, so that they never spill over into the next batch.
+    private static int append(int[] batchCounts, int[] counts, int offset, int batchRows) {
+        int reported = Math.min(batchCounts.length, batchRows);
+        System.arraycopy(batchCounts, 0, counts, offset, reported);
+        Arrays.fill(counts, offset + reported, offset + batchRows, Statement.SUCCESS_NO_INFO);
+        return offset + batchRows;
+    }
+
+    // Renders the same query restricted to a subset of rows
+    private final class RowSubset implements SQLConvertible {
+
+        private final List<List<AbstractLiteral<?>>> subset;
+
+        private RowSubset(List<List<AbstractLiteral<?>>> subset) {
+            this.subset = subset;
+        }
+
+        @Override
+        public void appendTo(SQLBuilder sb) {
+            BatchInsertionQuery.this.appendTo(sb, subset);
+        }
+
+        @Override
+        public int estimateSQLLength() {
+            return BatchInsertionQuery.this.estimateSQLLength(subset);
+        }
+    }
+
+    // TODO: Equals, hashCode and toString
+}
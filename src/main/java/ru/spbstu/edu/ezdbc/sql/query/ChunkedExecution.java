@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+// Executes a multi-row statement split into chunks of at most chunkSize rows. Full chunks all have the same shape, so they share a single
+// prepared statement; only the trailing partial chunk needs its own one.
+final class ChunkedExecution {
+
+    @FunctionalInterface
+    interface ChunkRenderer {
+
+        // Renders the statement for rows [start, end)
+        SQLConvertible render(int start, int end);
+    }
+
+    @FunctionalInterface
+    interface UpdateCountConsumer {
+
+        void accept(int start, int end, int updateCount);
+    }
+
+    private ChunkedExecution() {
+    }
+
+    static void execute(Connection connection, Dialect dialect, int rowCount, int chunkSize, ChunkRenderer renderer,
+                        UpdateCountConsumer consumer) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+
+        PreparedStatement fullChunkStatement = null;
+        try {
+            for (int start = 0; start < rowCount; start += chunkSize) {
+                int end = Math.min(start + chunkSize, rowCount);
+                ParameterizedSQL sql = ParameterizedSQL.of(renderer.render(start, end), dialect);
+
+                int count;
+                if (end - start == chunkSize) {
+                    if (fullChunkStatement == null) {
+                        fullChunkStatement = connection.prepareStatement(sql.text());
+                    }
+                    fullChunkStatement.clearParameters();
+                    sql.bind(fullChunkStatement);
+                    count = fullChunkStatement.executeUpdate();
+                } else {
+                    try (PreparedStatement statement = sql.prepare(connection)) {
+                        count = statement.executeUpdate();
+                    }
+                }
+
+                consumer.accept(start, end, count);
+            }
+        } finally {
+            if (fullChunkStatement != null) {
+                fullChunkStatement.close();
+            }
+        }
+    }
+}
@@ -25,9 +25,11 @@
 
 package ru.spbstu.edu.ezdbc.sql.query;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.expr.Expression;
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
 
+
 // https://www.w3schools.com/sql/sql_delete.asp
 public final class DeletionQuery extends AbstractModificationQuery {
 
@@ -60,16 +62,23 @@ public final class DeletionQuery extends AbstractModificationQuery {
     }
 
     @Override
-    public String toSQLString() {
-        StringBuilder sb = new StringBuilder("DELETE FROM ");
-        sb.append(getTableName());
+    public void appendTo(SQLBuilder sb) {
+        sb.append("DELETE FROM ");
+        sb.append(getTableIdentifier());
 
         if (condition != null) {
             sb.append(" WHERE ");
-            sb.append(condition.toSQLString());
+            sb.append(condition);
         }
+    }
 
-        return sb.toString();
+    @Override
+    public int estimateSQLLength() {
+        int length = 12 + getTableIdentifier().estimateSQLLength();
+        if (condition != null) {
+            length += 7 + condition.estimateSQLLength();
+        }
+        return length;
     }
 
     // TODO: Equals, hashCode and toString
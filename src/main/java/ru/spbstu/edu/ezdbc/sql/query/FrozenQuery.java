@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// Immutable snapshot of a query (see AbstractSQLQuery#freeze). The parameterized SQL is rendered once on creation, so executing it costs no
+// rendering at all and instances can be shared between threads, e.g. kept in constants as query templates. Different values can be bound to
+// the same shape via withParameters, which doesn't re-render anything either.
+public final class FrozenQuery<R> {
+
+    private final Identifier tableIdentifier;
+    private final ParameterizedSQL parameterizedSQL;
+    private final ThrowingFunction<PreparedStatement, R, SQLException> executor;
+
+    FrozenQuery(Identifier tableIdentifier, ParameterizedSQL parameterizedSQL, ThrowingFunction<PreparedStatement, R, SQLException> executor) {
+        this.tableIdentifier = Objects.requireNonNull(tableIdentifier);
+        this.parameterizedSQL = Objects.requireNonNull(parameterizedSQL);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    public Identifier getTableIdentifier() {
+        return tableIdentifier;
+    }
+
+    public ParameterizedSQL getParameterizedSQL() {
+        return parameterizedSQL;
+    }
+
+    // Same shape, different values
+    public FrozenQuery<R> withParameters(List<AbstractLiteral<?>> parameters) {
+        Objects.requireNonNull(parameters);
+        if (parameters.size() != parameterizedSQL.parameters().size()) {
+            throw new IllegalArgumentException("Query has " + parameterizedSQL.parameters().size() + " parameters, but " + parameters.size() + " were provided");
+        }
+
+        ParameterizedSQL rebound = new ParameterizedSQL(parameterizedSQL.text(), parameters);
+        return new FrozenQuery<>(tableIdentifier, rebound, executor);
+    }
+
+    public FrozenQuery<R> withParameters(AbstractLiteral<?>... parameters) {
+        return withParameters(Arrays.asList(parameters));
+    }
+
+    // Expects a statement prepared from getParameterizedSQL() with all of its parameters already bound
+    public R execute(PreparedStatement statement) throws SQLException {
+        return executor.apply(statement);
+    }
+
+    public R execute(Connection connection) throws SQLException {
+        PreparedStatement statement = parameterizedSQL.prepare(connection);
+        R result;
+        try {
+            result = executor.apply(statement);
+        } catch (SQLException | RuntimeException e) {
+            statement.close();
+            throw e;
+        }
+
+        // A ResultSet needs its statement open, so the latter is closed together with the former instead (see SelectionQuery)
+        if (result instanceof ResultSet) {
+            statement.closeOnCompletion();
+        } else {
+            statement.close();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "FrozenQuery[sql=" + parameterizedSQL.text() + ", parameters=" + parameterizedSQL.parameters().size() + "]";
+    }
+}
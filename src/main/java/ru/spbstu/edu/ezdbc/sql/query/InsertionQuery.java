@@ -25,14 +25,13 @@
 
 package ru.spbstu.edu.ezdbc.sql.query;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
 import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 public final class InsertionQuery extends AbstractModificationQuery {
 
@@ -56,23 +55,25 @@ public final class InsertionQuery extends AbstractModificationQuery {
         this.insertionMappings = Objects.requireNonNull(insertionMappings);
     }
 
+    // https://www.w3schools.com/sql/sql_insert.asp
     @Override
-    public String toSQLString() {
+    public void appendTo(SQLBuilder sb) {
         if (insertionMappings.isEmpty()) {
             throw new IllegalStateException("No columns and values specified for insertion query");
         }
 
-        String packedColumns = pack(insertionMappings.keySet());
-        String packedValues = pack(insertionMappings.values());
-        return String.format("INSERT INTO %s %s VALUES %s", getTableIdentifier().toSQLString(), packedColumns, packedValues);
+        sb.append("INSERT INTO ").append(getTableIdentifier()).append(' ');
+        sb.appendPacked(insertionMappings.keySet());
+        sb.append(" VALUES ");
+        sb.appendPacked(insertionMappings.values());
     }
 
-    // Joins a Collection of stuff into the following form: (item1, item2, item3)
-    // https://www.w3schools.com/sql/sql_insert.asp
-    private static <T extends SQLConvertible> String pack(Collection<T> items) {
-        return items.stream()
-                .map(SQLConvertible::toSQLString)
-                .collect(Collectors.joining(", ", "(", ")"));
+    @Override
+    public int estimateSQLLength() {
+        return 22
+                + getTableIdentifier().estimateSQLLength()
+                + SQLConvertible.estimateSQLLength(insertionMappings.keySet(), 2)
+                + SQLConvertible.estimateSQLLength(insertionMappings.values(), 2);
     }
 
     // TODO: Equals, hashCode and toString
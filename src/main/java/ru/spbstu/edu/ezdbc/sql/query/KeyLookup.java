@@ -0,0 +1,216 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.AnyExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.CompoundExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.Expression;
+import ru.spbstu.edu.ezdbc.sql.expr.InExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.LongArrayLiteral;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+// Fetches the rows of a selection whose key is one of the given ones, i.e. "WHERE filter AND key IN (...)", in as few round trips as the
+// dialect allows:
+// - where arrays can be bound (PostgreSQL), as "key = ANY(?)" with all keys in a single parameter
+// - elsewhere, as IN lists of up to the dialect's parameter limit (less the query's own parameters) or IN list limit, whichever is lower.
+//   A trailing partial list is padded to a power of two by repeating its last key, so that only a handful of distinct statements ever get
+//   prepared. Chunks can be fetched in parallel, each on a connection of its own (see fetchAsync).
+// Keys are deduplicated first, so no row is returned twice. Rows come in no particular order.
+public final class KeyLookup<T> {
+
+    private final SelectionQuery query;
+    private final Identifier key;
+    private final Dialect dialect;
+    private final ResultSetConverter<T> rowConverter;
+
+    public KeyLookup(SelectionQuery query, Identifier key, Dialect dialect, ResultSetConverter<T> rowConverter) {
+        this.query = Objects.requireNonNull(query);
+        this.key = Objects.requireNonNull(key);
+        this.dialect = Objects.requireNonNull(dialect);
+        this.rowConverter = Objects.requireNonNull(rowConverter);
+    }
+
+    public int getMaxKeysPerStatement() {
+        int limit = dialect.getMaxBindParameters() - query.toParameterizedSQL().parameters().size();
+        if (limit <= 0) {
+            throw new IllegalStateException("Query filter leaves no room for key parameters");
+        }
+        return Math.min(limit, dialect.getMaxInListSize());
+    }
+
+    // Statements a lookup of the given keys runs, in execution order (none for no keys)
+    public List<ParameterizedSQL> toParameterizedSQL(long[] keys) {
+        long[] distinct = distinctSorted(keys);
+        if (distinct.length == 0) {
+            return List.of();
+        }
+        if (dialect.supportsArrayParameters()) {
+            return List.of(render(new AnyExpression(key, new LongArrayLiteral(distinct))));
+        }
+
+        int chunkSize = getMaxKeysPerStatement();
+        List<ParameterizedSQL> statements = new ArrayList<>((distinct.length + chunkSize - 1) / chunkSize);
+        for (int start = 0; start < distinct.length; start += chunkSize) {
+            int end = Math.min(start + chunkSize, distinct.length);
+            statements.add(render(InExpression.of(key, padded(distinct, start, end, chunkSize))));
+        }
+        return statements;
+    }
+
+    public List<T> fetch(Connection connection, long[] keys) throws SQLException {
+        Objects.requireNonNull(connection);
+
+        List<T> rows = new ArrayList<>();
+        PreparedStatement statement = null;
+        String statementText = null;
+        try {
+            // Full chunks all have the same text, so they share a statement
+            for (ParameterizedSQL sql : toParameterizedSQL(keys)) {
+                if (!sql.text().equals(statementText)) {
+                    if (statement != null) {
+                        statement.close();
+                    }
+                    statement = connection.prepareStatement(sql.text());
+                    statementText = sql.text();
+                }
+
+                statement.clearParameters();
+                sql.bind(statement);
+                convertAll(statement, rows);
+            }
+        } finally {
+            if (statement != null) {
+                statement.close();
+            }
+        }
+        return rows;
+    }
+
+    public List<T> fetch(Connection connection, int[] keys) throws SQLException {
+        return fetch(connection, widen(keys));
+    }
+
+    // Fetches every chunk on the executor with a connection of its own, so chunks run in parallel up to the data source's capacity. Rows are
+    // combined in chunk order. The caller's executor is what bounds the fan-out, there is no default one (per-host limits are what
+    // async.AsyncQueryExecutor is for). SQLExceptions complete the future exceptionally, wrapped in a CompletionException.
+    public CompletableFuture<List<T>> fetchAsync(DataSource dataSource, Executor executor, long[] keys) {
+        Objects.requireNonNull(dataSource);
+        Objects.requireNonNull(executor);
+
+        List<ParameterizedSQL> statements = toParameterizedSQL(keys);
+        List<CompletableFuture<List<T>>> chunks = new ArrayList<>(statements.size());
+        for (ParameterizedSQL sql : statements) {
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement statement = sql.prepare(connection)) {
+                    List<T> rows = new ArrayList<>();
+                    convertAll(statement, rows);
+                    return rows;
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<T> rows = new ArrayList<>();
+            for (CompletableFuture<List<T>> chunk : chunks) {
+                rows.addAll(chunk.join());
+            }
+            return rows;
+        });
+    }
+
+    public CompletableFuture<List<T>> fetchAsync(DataSource dataSource, Executor executor, int[] keys) {
+        return fetchAsync(dataSource, executor, widen(keys));
+    }
+
+    private void convertAll(PreparedStatement statement, List<T> rows) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rows.add(rowConverter.convert(rs));
+            }
+        }
+    }
+
+    private ParameterizedSQL render(Expression keyPredicate) {
+        Expression filter = query.getFilter();
+        filter = (filter == null) ? keyPredicate : CompoundExpression.and(filter, keyPredicate);
+
+        SelectionQuery chunkQuery = new SelectionQuery(query.getTableIdentifier());
+        chunkQuery.setSelections(query.getSelections());
+        chunkQuery.setFilter(filter);
+        chunkQuery.setDialect(dialect);
+        return chunkQuery.toParameterizedSQL();
+    }
+
+    // keys[start, end) padded with its last key up to the next power of two, but no further than the chunk size
+    private static long[] padded(long[] keys, int start, int end, int chunkSize) {
+        int count = end - start;
+        int paddedCount = (count == 1) ? 1 : Math.min(Integer.highestOneBit(count - 1) << 1, chunkSize);
+
+        long[] chunk = Arrays.copyOfRange(keys, start, start + paddedCount);
+        Arrays.fill(chunk, count, paddedCount, keys[end - 1]);
+        return chunk;
+    }
+
+    private static long[] distinctSorted(long[] keys) {
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+
+        int length = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[length++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, length);
+    }
+
+    private static long[] widen(int[] keys) {
+        long[] widened = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            widened[i] = keys[i];
+        }
+        return widened;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.CompoundExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.Expression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.Literals;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+import ru.spbstu.edu.ezdbc.url.Protocol;
+import ru.spbstu.edu.ezdbc.util.UncheckedSQLException;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingConsumer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Scans a (potentially huge) selection in chunks via keyset pagination, i.e. "WHERE key > last ORDER BY key LIMIT n" repeated until a short
+// chunk comes back. Every chunk is a short query of its own, so no long-running cursor is held, and the scan can be resumed from the last
+// seen key (see getLastKey/resumeAfter) after a failure.
+// The key must be unique and NOT NULL, and must be among the selected columns. Rows are converted one at a time by rowConverter.
+public final class KeysetScanner<T> {
+
+    private final SelectionQuery query;
+    private final Identifier key;
+    private final int chunkSize;
+    private final Dialect dialect;
+    private final ResultSetConverter<T> rowConverter;
+
+    private AbstractLiteral<?> lastKey;
+
+    public KeysetScanner(SelectionQuery query, Identifier key, int chunkSize, Dialect dialect, ResultSetConverter<T> rowConverter) {
+        this.query = Objects.requireNonNull(query);
+        this.key = Objects.requireNonNull(key);
+        this.dialect = Objects.requireNonNull(dialect);
+        this.rowConverter = Objects.requireNonNull(rowConverter);
+
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public KeysetScanner(SelectionQuery query, Identifier key, int chunkSize, Protocol protocol, ResultSetConverter<T> rowConverter) {
+        this(query, key, chunkSize, Dialect.of(protocol), rowConverter);
+    }
+
+    // Key of the last row returned so far, or null if nothing was scanned yet
+    public AbstractLiteral<?> getLastKey() {
+        return lastKey;
+    }
+
+    // Continues scanning after the given key (or from the very beginning if null)
+    public void resumeAfter(AbstractLiteral<?> lastKey) {
+        this.lastKey = lastKey;
+    }
+
+    public void forEachChunk(Connection connection, ThrowingConsumer<List<T>, SQLException> chunkConsumer) throws SQLException {
+        Objects.requireNonNull(chunkConsumer);
+
+        try (ChunkIterator chunks = new ChunkIterator(connection)) {
+            while (chunks.hasNextChunk()) {
+                chunkConsumer.consume(chunks.nextChunk());
+            }
+        }
+    }
+
+    // Lazy stream of chunks. Closing the stream releases the statement held between chunks. SQLExceptions are rethrown as
+    // UncheckedSQLException.
+    public Stream<List<T>> stream(Connection connection) {
+        ChunkIterator chunks = new ChunkIterator(connection);
+
+        Iterator<List<T>> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return chunks.hasNextChunk();
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+
+            @Override
+            public List<T> next() {
+                try {
+                    return chunks.nextChunk();
+                } catch (SQLException e) {
+                    throw new UncheckedSQLException(e);
+                }
+            }
+        };
+
+        Spliterator<List<T>> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                chunks.close();
+            } catch (SQLException e) {
+                throw new UncheckedSQLException(e);
+            }
+        });
+    }
+
+    private ParameterizedSQL renderChunkQuery() {
+        Expression filter = query.getFilter();
+        if (lastKey != null) {
+            Expression lowerBound = new BinaryExpression(key, LogicalOperator.GREATER_THAN, lastKey);
+            filter = (filter == null) ? lowerBound : CompoundExpression.and(filter, lowerBound);
+        }
+
+        SelectionQuery chunkQuery = new SelectionQuery(query.getTableIdentifier());
+        chunkQuery.setSelections(query.getSelections());
+        chunkQuery.setFilter(filter);
+        chunkQuery.setDialect(dialect);
+
+        return ParameterizedSQL.of(new SQLConvertible() {
+            @Override
+            public void appendTo(SQLBuilder sb) {
+                sb.append(chunkQuery).append(" ORDER BY ").append(key);
+                dialect.appendLimitClause(sb, chunkSize);
+            }
+
+            @Override
+            public int estimateSQLLength() {
+                return chunkQuery.estimateSQLLength() + key.estimateSQLLength() + 48;
+            }
+        }, dialect);
+    }
+
+    // Every chunk but the first one (unless resumed) has the same shape, so one statement is kept around and reused for all of them
+    private final class ChunkIterator implements AutoCloseable {
+
+        private final Connection connection;
+        private PreparedStatement statement;
+        private String statementText;
+        private List<T> pending;
+        private boolean exhausted;
+
+        private ChunkIterator(Connection connection) {
+            this.connection = Objects.requireNonNull(connection);
+        }
+
+        boolean hasNextChunk() throws SQLException {
+            if (pending == null && !exhausted) {
+                pending = fetchChunk();
+                if (pending.size() < chunkSize) {
+                    exhausted = true;
+                }
+                if (pending.isEmpty()) {
+                    pending = null;
+                }
+            }
+            return pending != null;
+        }
+
+        List<T> nextChunk() throws SQLException {
+            if (!hasNextChunk()) {
+                throw new NoSuchElementException();
+            }
+
+            List<T> chunk = pending;
+            pending = null;
+            return chunk;
+        }
+
+        private List<T> fetchChunk() throws SQLException {
+            ParameterizedSQL sql = renderChunkQuery();
+            if (!sql.text().equals(statementText)) {
+                close();
+                statement = connection.prepareStatement(sql.text());
+                statementText = sql.text();
+            }
+
+            statement.clearParameters();
+            sql.bind(statement);
+
+            List<T> chunk = new ArrayList<>(chunkSize);
+            Object lastKeyValue = null;
+            int keyType = Types.OTHER;
+            try (ResultSet rs = statement.executeQuery()) {
+                int keyIndex = 0;
+                while (rs.next()) {
+                    if (keyIndex == 0) {
+                        keyIndex = rs.findColumn(key.name());
+                        keyType = rs.getMetaData().getColumnType(keyIndex);
+                    }
+                    chunk.add(rowConverter.convert(rs));
+                    lastKeyValue = rs.getObject(keyIndex);
+                }
+            }
+
+            // Keys of types without a dedicated literal (BigDecimal for Oracle NUMBER, UUID, ...) are bound back via setObject
+            if (lastKeyValue != null) {
+                lastKey = Literals.of(lastKeyValue, keyType);
+            }
+            return chunk;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (statement != null) {
+                PreparedStatement toClose = statement;
+                statement = null;
+                statementText = null;
+                toClose.close();
+            }
+        }
+    }
+}
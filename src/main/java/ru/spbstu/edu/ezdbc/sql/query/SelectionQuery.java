@@ -25,23 +25,30 @@
 
 package ru.spbstu.edu.ezdbc.sql.query;
 
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
 import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
 import ru.spbstu.edu.ezdbc.sql.expr.Expression;
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.util.UncheckedSQLException;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 // https://www.w3schools.com/sql/sql_select.asp
 public final class SelectionQuery extends AbstractSQLQuery<ResultSet> {
 
     private static final String WILDCARD_SYNTAX = "*";
 
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
     private List<Selectable> selections;
     private Expression filter;
 
@@ -78,22 +85,30 @@ public final class SelectionQuery extends AbstractSQLQuery<ResultSet> {
     }
 
     @Override
-    public String toSQLString() {
-        String joinedSelections = (selections == null || selections.isEmpty()) ? WILDCARD_SYNTAX : selections.stream()
-                .map(SQLConvertible::toSQLString)
-                .collect(Collectors.joining(", "));
+    public void appendTo(SQLBuilder sb) {
+        sb.append("SELECT ");
+        if (selections == null || selections.isEmpty()) {
+            sb.append(WILDCARD_SYNTAX);
+        } else {
+            sb.appendJoined(selections, ", ");
+        }
 
-        StringBuilder sb = new StringBuilder("SELECT ")
-                .append(joinedSelections)
-                .append(" FROM ")
-                .append(getTableName());
+        sb.append(" FROM ").append(getTableIdentifier());
 
         if (filter != null) {
             sb.append(" WHERE ");
-            sb.append(filter.toSQLString());
+            sb.append(filter);
         }
+    }
 
-        return sb.toString();
+    @Override
+    public int estimateSQLLength() {
+        int length = 13 + getTableIdentifier().estimateSQLLength();
+        length += (selections == null || selections.isEmpty()) ? WILDCARD_SYNTAX.length() : SQLConvertible.estimateSQLLength(selections, 2);
+        if (filter != null) {
+            length += 7 + filter.estimateSQLLength();
+        }
+        return length;
     }
 
     @Override
@@ -105,10 +120,84 @@ public final class SelectionQuery extends AbstractSQLQuery<ResultSet> {
     @Override
     public ResultSet execute(Connection connection) throws SQLException {
         // Do NOT use try-with-resources because else ResultSet closes as well. This is not the case for modification queries, so we
-        // override the default behaviour specifically for SelectionQuery instead of changing it for everyone.
+        // override the default behaviour specifically for SelectionQuery instead of changing it for everyone. The statement is closed
+        // together with its ResultSet instead.
         Statement statement = connection.createStatement();
+        statement.closeOnCompletion();
         return execute(statement);
     }
 
+    @Override
+    public ResultSet executePrepared(PreparedStatement statement) throws SQLException {
+        return statement.executeQuery();
+    }
+
+    @Override
+    public ResultSet executePrepared(Connection connection) throws SQLException {
+        // Same as above
+        PreparedStatement statement = toParameterizedSQL().prepare(connection);
+        statement.closeOnCompletion();
+        return executePrepared(statement);
+    }
+
+    public <T> Stream<T> stream(Connection connection, ResultSetConverter<T> rowConverter) throws SQLException {
+        return stream(connection, rowConverter, DEFAULT_FETCH_SIZE, false);
+    }
+
+    // Streams the result row by row (rowConverter is applied to each row separately) over a forward-only, read-only cursor. Closing the stream
+    // closes the ResultSet and the statement, plus the connection if requested. Note that some drivers (e.g. PostgreSQL) only honor the fetch
+    // size with auto-commit disabled, and buffer the entire result otherwise.
+    public <T> Stream<T> stream(Connection connection, ResultSetConverter<T> rowConverter, int fetchSize, boolean closeConnection) throws SQLException {
+        Objects.requireNonNull(connection);
+        Objects.requireNonNull(rowConverter);
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("Invalid fetch size: " + fetchSize);
+        }
+
+        PreparedStatement statement = null;
+        ResultSet rs;
+        try {
+            statement = toParameterizedSQL().prepare(connection, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            rs = statement.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeAll(e, statement, closeConnection ? connection : null);
+            throw e;
+        }
+
+        PreparedStatement finalStatement = statement;
+        return rowConverter.stream(rs).onClose(() -> {
+            // The ResultSet is already closed by now (its close action was registered first)
+            Exception failure = closeAll(null, finalStatement, closeConnection ? connection : null);
+            if (failure instanceof SQLException e) {
+                throw new UncheckedSQLException(e);
+            } else if (failure instanceof RuntimeException e) {
+                throw e;
+            } else if (failure != null) {
+                throw new IllegalStateException(failure);
+            }
+        });
+    }
+
+    // Closes the provided resources in order, skipping nulls. Close failures are added to the provided failure as suppressed; without one,
+    // the first close failure becomes it. Returns the failure.
+    private static Exception closeAll(Exception failure, AutoCloseable... closeables) {
+        for (AutoCloseable closeable : closeables) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure;
+    }
+
     // TODO: Equals, hashCode and toString
 }
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Global registry of listeners that get notified whenever a query executed through this library (possibly) modifies a table, e.g. to
+// invalidate cached results. Listeners are called on the executing thread right after execution, even a failed one, and must not throw.
+//
+// Listeners added via addListener stay registered until removed. Those added via addWeakListener are only referenced weakly, so an owner
+// that is never closed (e.g. a forgotten cache) isn't kept alive by the registry: the owner must hold the listener itself, and once both
+// become unreachable the registration is dropped on its own.
+public final class TableModifications {
+
+    private static final List<Consumer<Identifier>> LISTENERS = new CopyOnWriteArrayList<>();
+    private static final List<WeakReference<Consumer<Identifier>>> WEAK_LISTENERS = new CopyOnWriteArrayList<>();
+
+    private TableModifications() {
+    }
+
+    public static void addListener(Consumer<Identifier> listener) {
+        LISTENERS.add(Objects.requireNonNull(listener, "Listener is null"));
+    }
+
+    public static void addWeakListener(Consumer<Identifier> listener) {
+        WEAK_LISTENERS.add(new WeakReference<>(Objects.requireNonNull(listener, "Listener is null")));
+    }
+
+    public static boolean removeListener(Consumer<Identifier> listener) {
+        boolean removed = LISTENERS.remove(listener);
+        if (!removed && listener != null) {
+            for (WeakReference<Consumer<Identifier>> reference : WEAK_LISTENERS) {
+                if (listener.equals(reference.get())) {
+                    removed = WEAK_LISTENERS.remove(reference);
+                    break;
+                }
+            }
+        }
+        return removed;
+    }
+
+    static void fire(Identifier tableIdentifier) {
+        for (Consumer<Identifier> listener : LISTENERS) {
+            listener.accept(tableIdentifier);
+        }
+        for (WeakReference<Consumer<Identifier>> reference : WEAK_LISTENERS) {
+            Consumer<Identifier> listener = reference.get();
+            if (listener != null) {
+                listener.accept(tableIdentifier);
+            } else {
+                WEAK_LISTENERS.remove(reference); /* Its owner is gone */
+            }
+        }
+    }
+}
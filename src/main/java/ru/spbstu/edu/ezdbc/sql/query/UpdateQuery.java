@@ -25,13 +25,14 @@
 
 package ru.spbstu.edu.ezdbc.sql.query;
 
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
 import ru.spbstu.edu.ezdbc.sql.expr.Expression;
 import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
 import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
 
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 // https://www.w3schools.com/sql/sql_update.asp
 public final class UpdateQuery extends AbstractModificationQuery {
@@ -76,31 +77,39 @@ public final class UpdateQuery extends AbstractModificationQuery {
     }
 
     @Override
-    public String toSQLString() {
+    public void appendTo(SQLBuilder sb) {
         if (updateMappings.isEmpty()) {
             throw new IllegalStateException("No columns and values specified for update query");
         }
 
-        StringBuilder sb = new StringBuilder("UPDATE ");
-        sb.append(getTableName());
+        sb.append("UPDATE ");
+        sb.append(getTableIdentifier());
         sb.append(" SET ");
 
-        String joinedPairs = updateMappings.entrySet()
-                .stream()
-                .map(entry -> {
-                    Identifier column = entry.getKey();
-                    AbstractLiteral<?> value = entry.getValue();
-                    return column.toSQLString() + '=' + value.toSQLString();
-                })
-                .collect(Collectors.joining(", "));
-        sb.append(joinedPairs);
+        boolean first = true;
+        for (Map.Entry<Identifier, AbstractLiteral<?>> entry : updateMappings.entrySet()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue());
+            first = false;
+        }
 
         if (condition != null) {
             sb.append(" WHERE ");
-            sb.append(condition.toSQLString());
+            sb.append(condition);
         }
+    }
 
-        return sb.toString();
+    @Override
+    public int estimateSQLLength() {
+        int length = 12 + getTableIdentifier().estimateSQLLength()
+                + SQLConvertible.estimateSQLLength(updateMappings.keySet(), 3)
+                + SQLConvertible.estimateSQLLength(updateMappings.values(), 0);
+        if (condition != null) {
+            length += 7 + condition.estimateSQLLength();
+        }
+        return length;
     }
 
     // TODO: Equals, hashCode and toString
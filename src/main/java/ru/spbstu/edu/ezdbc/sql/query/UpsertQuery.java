@@ -0,0 +1,392 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.SQLBuilder;
+import ru.spbstu.edu.ezdbc.sql.SQLConvertible;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.util.fn.ThrowingFunction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Inserts rows, updating the existing ones whose key columns match, in a single round trip. Renders as whatever the dialect offers:
+// - PostgreSQL: INSERT ... ON CONFLICT (keys) DO UPDATE SET c = EXCLUDED.c
+// - MySQL: INSERT ... ON DUPLICATE KEY UPDATE c = VALUES(c) (any unique key counts as a conflict there, not just the given one)
+// - SQL Server, Oracle, Redshift and GENERIC (standard SQL:2003): MERGE INTO ... USING (rows) src ON (keys match) WHEN MATCHED ... WHEN NOT MATCHED ...
+// - Redshift without update columns: INSERT ... SELECT ... WHERE NOT EXISTS (keys match), as its MERGE requires a WHEN MATCHED clause
+// Key columns must be covered by a unique constraint, and rows executed together must have distinct keys. Without update columns, existing
+// rows are left untouched. Execution returns the total update count as reported by the driver (MySQL counts an updated row twice).
+public final class UpsertQuery extends AbstractModificationQuery {
+
+    private static final String SOURCE_ALIAS = "src";
+
+    private final List<Identifier> columns;
+    private final List<Identifier> keyColumns;
+    private final List<List<AbstractLiteral<?>>> rows;
+    private List<Identifier> updateColumns;
+
+    public UpsertQuery(Identifier tableIdentifier, List<Identifier> columns, List<Identifier> keyColumns, Dialect dialect) {
+        super(tableIdentifier);
+        this.columns = List.copyOf(columns);
+        this.keyColumns = List.copyOf(keyColumns);
+        this.rows = new ArrayList<>();
+
+        if (this.keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("No key columns specified for upsert query");
+        }
+        if (!this.columns.containsAll(this.keyColumns)) {
+            throw new IllegalArgumentException("Key columns " + this.keyColumns + " must be among inserted columns " + this.columns);
+        }
+
+        setUpdateColumns(this.columns.stream().filter(column -> !this.keyColumns.contains(column)).toList());
+        setDialect(dialect);
+    }
+
+    public UpsertQuery(String tableName, List<Identifier> columns, List<Identifier> keyColumns, Dialect dialect) {
+        this(new Identifier(tableName), columns, keyColumns, dialect);
+    }
+
+    // A single row must fit into the dialect's bind parameter limit, otherwise no statement could hold it
+    @Override
+    public void setDialect(Dialect dialect) {
+        if (columns.size() > dialect.getMaxBindParameters()) {
+            throw new IllegalArgumentException("Parameter limit " + dialect.getMaxBindParameters() + " of " + dialect + " can't fit a single row of "
+                    + columns.size() + " columns");
+        }
+        super.setDialect(dialect);
+    }
+
+    public List<Identifier> getColumns() {
+        return columns;
+    }
+
+    public List<Identifier> getKeyColumns() {
+        return keyColumns;
+    }
+
+    public List<Identifier> getUpdateColumns() {
+        return updateColumns;
+    }
+
+    // Columns overwritten on conflict (all non-key columns by default)
+    public void setUpdateColumns(List<Identifier> updateColumns) {
+        List<Identifier> copy = List.copyOf(updateColumns);
+        for (Identifier column : copy) {
+            if (!columns.contains(column) || keyColumns.contains(column)) {
+                throw new IllegalArgumentException("Update column " + column + " must be an inserted non-key column");
+            }
+        }
+        this.updateColumns = copy;
+    }
+
+    public List<List<AbstractLiteral<?>>> getRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+    public UpsertQuery addRow(List<AbstractLiteral<?>> row) {
+        Objects.requireNonNull(row);
+        if (row.size() != columns.size()) {
+            throw new IllegalArgumentException("Row has " + row.size() + " values, but " + columns.size() + " columns were specified");
+        }
+
+        rows.add(List.copyOf(row));
+        return this;
+    }
+
+    public UpsertQuery addRow(AbstractLiteral<?>... row) {
+        return addRow(Arrays.asList(row));
+    }
+
+    public void clearRows() {
+        rows.clear();
+    }
+
+    // Amount of rows executePrepared(Connection) puts into a single statement
+    public int getMaxRowsPerStatement() {
+        Dialect dialect = getDialect();
+        int byParameters = dialect.getMaxBindParameters() / columns.size();
+        return hasSelectSource() ? byParameters : Math.min(byParameters, dialect.getMaxRowsPerInsert());
+    }
+
+    @Override
+    public void appendTo(SQLBuilder sb) {
+        appendTo(sb, rows);
+    }
+
+    @Override
+    public int estimateSQLLength() {
+        return estimateSQLLength(rows);
+    }
+
+    // Unlike execute(Statement) and frozen copies, splits the rows into as many statements as the dialect's limits require
+    @Override
+    public Integer executePrepared(Connection connection) throws SQLException {
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("No rows specified for upsert query");
+        }
+
+        try {
+            return executeChunked(connection);
+        } finally {
+            TableModifications.fire(getTableIdentifier());
+        }
+    }
+
+    @Override
+    public ThrowingFunction<Connection, Integer, SQLException> executionSnapshot() {
+        return copy()::executePrepared;
+    }
+
+    private UpsertQuery copy() {
+        UpsertQuery copy = new UpsertQuery(getTableIdentifier(), columns, keyColumns, getDialect());
+        copy.rows.addAll(rows); /* Rows themselves are immutable */
+        copy.setUpdateColumns(updateColumns);
+        return copy;
+    }
+
+    private int executeChunked(Connection connection) throws SQLException {
+        int[] total = new int[1];
+        ChunkedExecution.execute(connection, getDialect(), rows.size(), getMaxRowsPerStatement(),
+                (start, end) -> new RowSubset(rows.subList(start, end)),
+                (start, end, count) -> total[0] += count);
+        return total[0];
+    }
+
+    private void appendTo(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("No rows specified for upsert query");
+        }
+
+        switch (getDialect()) {
+            case POSTGRESQL -> appendOnConflict(sb, rows);
+            case MYSQL -> appendOnDuplicateKey(sb, rows);
+            case REDSHIFT -> {
+                if (updateColumns.isEmpty()) {
+                    appendInsertMissing(sb, rows);
+                } else {
+                    appendMerge(sb, rows);
+                }
+            }
+            case SQL_SERVER, ORACLE, GENERIC -> appendMerge(sb, rows);
+        }
+    }
+
+    private void appendInsert(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        sb.append("INSERT INTO ").append(getTableIdentifier()).append(' ');
+        sb.appendPacked(columns);
+        sb.append(" VALUES ");
+        appendRows(sb, rows);
+    }
+
+    private void appendOnConflict(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        appendInsert(sb, rows);
+        sb.append(" ON CONFLICT ").appendPacked(keyColumns);
+        if (updateColumns.isEmpty()) {
+            sb.append(" DO NOTHING");
+            return;
+        }
+
+        sb.append(" DO UPDATE SET ");
+        for (int i = 0; i < updateColumns.size(); i++) {
+            Identifier column = updateColumns.get(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(column).append(" = EXCLUDED.").append(column);
+        }
+    }
+
+    private void appendOnDuplicateKey(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        appendInsert(sb, rows);
+        sb.append(" ON DUPLICATE KEY UPDATE ");
+        if (updateColumns.isEmpty()) {
+            // No-op assignment, so that conflicting rows are skipped without INSERT IGNORE swallowing unrelated errors
+            Identifier key = keyColumns.get(0);
+            sb.append(key).append(" = ").append(key);
+            return;
+        }
+
+        for (int i = 0; i < updateColumns.size(); i++) {
+            Identifier column = updateColumns.get(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(column).append(" = VALUES(").append(column).append(')');
+        }
+    }
+
+    private void appendMerge(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        Identifier table = getTableIdentifier();
+
+        sb.append("MERGE INTO ").append(table).append(" USING (");
+        if (hasSelectSource()) {
+            appendSelectSource(sb, rows);
+            sb.append(") ").append(SOURCE_ALIAS);
+        } else {
+            sb.append("VALUES ");
+            appendRows(sb, rows);
+            sb.append(") AS ").append(SOURCE_ALIAS).append(' ').appendPacked(columns);
+        }
+
+        sb.append(" ON (");
+        appendKeysMatch(sb);
+        sb.append(')');
+
+        if (!updateColumns.isEmpty()) {
+            sb.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.size(); i++) {
+                Identifier column = updateColumns.get(i);
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(column).append(" = ").append(SOURCE_ALIAS).append('.').append(column);
+            }
+        }
+
+        sb.append(" WHEN NOT MATCHED THEN INSERT ").appendPacked(columns).append(" VALUES (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(SOURCE_ALIAS).append('.').append(columns.get(i));
+        }
+        sb.append(')');
+
+        if (getDialect() == Dialect.SQL_SERVER) {
+            sb.append(';'); /* T-SQL insists on MERGE being terminated */
+        }
+    }
+
+    private void appendInsertMissing(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        Identifier table = getTableIdentifier();
+
+        sb.append("INSERT INTO ").append(table).append(' ').appendPacked(columns).append(" SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(SOURCE_ALIAS).append('.').append(columns.get(i));
+        }
+        sb.append(" FROM (");
+        appendSelectSource(sb, rows);
+        sb.append(") ").append(SOURCE_ALIAS);
+
+        sb.append(" WHERE NOT EXISTS (SELECT 1 FROM ").append(table).append(" WHERE ");
+        appendKeysMatch(sb);
+        sb.append(')');
+    }
+
+    private void appendKeysMatch(SQLBuilder sb) {
+        Identifier table = getTableIdentifier();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            Identifier key = keyColumns.get(i);
+            if (i > 0) {
+                sb.append(" AND ");
+            }
+            sb.append(table).append('.').append(key).append(" = ").append(SOURCE_ALIAS).append('.').append(key);
+        }
+    }
+
+    // SELECT ? AS a, ? AS b UNION ALL SELECT ?, ? ... for databases that can't use VALUES as a derived table
+    private void appendSelectSource(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        boolean first = true;
+        for (List<AbstractLiteral<?>> row : rows) {
+            if (!first) {
+                sb.append(" UNION ALL ");
+            }
+            sb.append("SELECT ");
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(row.get(i));
+                if (first) {
+                    sb.append(" AS ").append(columns.get(i));
+                }
+            }
+            if (getDialect() == Dialect.ORACLE) {
+                sb.append(" FROM dual");
+            }
+            first = false;
+        }
+    }
+
+    private static void appendRows(SQLBuilder sb, List<List<AbstractLiteral<?>>> rows) {
+        boolean first = true;
+        for (List<AbstractLiteral<?>> row : rows) {
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.appendPacked(row);
+            first = false;
+        }
+    }
+
+    private boolean hasSelectSource() {
+        return getDialect() == Dialect.ORACLE || getDialect() == Dialect.REDSHIFT;
+    }
+
+    private int estimateSQLLength(List<List<AbstractLiteral<?>>> rows) {
+        int length = 96 + 2 * getTableIdentifier().estimateSQLLength()
+                + 3 * SQLConvertible.estimateSQLLength(columns, 8)
+                + 2 * SQLConvertible.estimateSQLLength(keyColumns, 8)
+                + 2 * SQLConvertible.estimateSQLLength(updateColumns, 16);
+        for (List<AbstractLiteral<?>> row : rows) {
+            length += 20 + SQLConvertible.estimateSQLLength(row, 2);
+        }
+        return length;
+    }
+
+    // Renders the same query restricted to a subset of rows
+    private final class RowSubset implements SQLConvertible {
+
+        private final List<List<AbstractLiteral<?>>> subset;
+
+        private RowSubset(List<List<AbstractLiteral<?>>> subset) {
+            this.subset = subset;
+        }
+
+        @Override
+        public void appendTo(SQLBuilder sb) {
+            UpsertQuery.this.appendTo(sb, subset);
+        }
+
+        @Override
+        public int estimateSQLLength() {
+            return UpsertQuery.this.estimateSQLLength(subset);
+        }
+    }
+
+    // TODO: Equals, hashCode and toString
+}
@@ -29,6 +29,7 @@ import com.google.common.base.CharMatcher;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -89,6 +90,35 @@ public final class URLBuilder {
         propertyDelimiter = "&";
     }
 
+    private URLBuilder(URLBuilder other) {
+        protocol = other.protocol;
+        protocolSuffix = other.protocolSuffix;
+        hosts = new LinkedList<>(other.hosts);
+        schemaName = other.schemaName;
+
+        propertyListPrefix = other.propertyListPrefix;
+        properties = new LinkedHashMap<>(other.properties);
+        propertyDelimiter = other.propertyDelimiter;
+    }
+
+    /**
+     * Returns a new builder with the same configuration as this one. The two builders are independent afterwards.
+     *
+     * @return a copy of this builder (never {@code null})
+     */
+    public URLBuilder copy() {
+        return new URLBuilder(this);
+    }
+
+    /**
+     * Returns the JDBC protocol.
+     *
+     * @return the protocol (never {@code null})
+     */
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
     /**
      * Sets the JDBC protocol.
      *
@@ -176,6 +206,25 @@ public final class URLBuilder {
         return this;
     }
 
+    /**
+     * Removes all previously added hosts.
+     *
+     * @return a reference to this object
+     */
+    public URLBuilder clearHosts() {
+        hosts.clear();
+        return this;
+    }
+
+    /**
+     * Returns the hosts added so far, in insertion order.
+     *
+     * @return an unmodifiable view of the hosts (never {@code null})
+     */
+    public List<Host> getHosts() {
+        return Collections.unmodifiableList(hosts);
+    }
+
     /**
      * Sets the schema name. It is possible (and recommended) to use {@code null} to indicate "no specific schema", which is allowed by some
      * databases. The name must not be blank otherwise.
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.async;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.url.Host;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AsyncQueryExecutorTests {
+
+    private static final Host HOST = new Host("example.com");
+
+    @Test
+    void rejectsInvalidLimit() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new AsyncQueryExecutor(0));
+    }
+
+    @Test
+    void respectsPerHostLimit() {
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        AsyncQueryExecutor executorUnderTest = new AsyncQueryExecutor(threads, 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executorUnderTest.submit(HOST, fakeDataSource(), connection -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return 1;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        threads.shutdown();
+
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+        assertThat(executorUnderTest.getRunningQueryCount(HOST)).isZero();
+    }
+
+    @Test
+    void queuesTasksBeyondLimitWithoutOccupyingThreads() {
+        List<Runnable> submitted = new ArrayList<>();
+        AsyncQueryExecutor executorUnderTest = new AsyncQueryExecutor(submitted::add, 2);
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int value = i;
+            futures.add(executorUnderTest.submit(HOST, fakeDataSource(), connection -> value));
+        }
+        assertThat(submitted).hasSize(2);
+
+        for (int i = 0; i < submitted.size(); i++) {
+            submitted.get(i).run(); /* Each one hands over its permit to the next queued task */
+        }
+        assertThat(submitted).hasSize(5);
+        assertThat(futures).extracting(CompletableFuture::join).containsExactly(0, 1, 2, 3, 4);
+        assertThat(executorUnderTest.getRunningQueryCount(HOST)).isZero();
+    }
+
+    @Test
+    void propagatesSQLExceptions() {
+        AsyncQueryExecutor executorUnderTest = new AsyncQueryExecutor(1);
+        CompletableFuture<Object> future = executorUnderTest.submit(HOST, fakeDataSource(), connection -> {
+            throw new SQLException("Boom");
+        });
+
+        assertThatExceptionOfType(CompletionException.class)
+                .isThrownBy(future::join)
+                .withCauseInstanceOf(SQLException.class);
+    }
+
+    private static DataSource fakeDataSource() {
+        return FakeJdbc.dataSource(FakeJdbc.connection((method, args) -> null));
+    }
+}
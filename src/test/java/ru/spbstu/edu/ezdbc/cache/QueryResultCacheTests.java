@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+import ru.spbstu.edu.ezdbc.sql.query.DeletionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.FrozenQuery;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+
+import java.lang.ref.WeakReference;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class QueryResultCacheTests {
+
+    private static final Identifier ID = new Identifier("id");
+
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private final ResultSetConverter<Integer> converter = rs -> queryCount.get();
+
+    private Connection connection;
+    private QueryResultCache cacheUnderTest;
+
+    @BeforeEach
+    void recreateCacheUnderTest() {
+        connection = fakeConnection();
+        cacheUnderTest = new QueryResultCache(2, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void closeCacheUnderTest() {
+        cacheUnderTest.close();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new QueryResultCache(0, Duration.ofMinutes(1)));
+        assertThatIllegalArgumentException().isThrownBy(() -> new QueryResultCache(1, Duration.ZERO));
+    }
+
+    @Test
+    void unclosedCacheCanBeCollected() throws InterruptedException {
+        WeakReference<QueryResultCache> reference = new WeakReference<>(new QueryResultCache());
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(reference.get()).isNull();
+    }
+
+    @Test
+    void cachesByBoundValues() throws SQLException {
+        assertThat(cacheUnderTest.get(connection, userById(1), converter)).isEqualTo(1);
+        assertThat(cacheUnderTest.get(connection, userById(1), converter)).isEqualTo(1);
+        assertThat(cacheUnderTest.get(connection, userById(2), converter)).isEqualTo(2);
+
+        assertThat(queryCount).hasValue(2);
+        assertThat(cacheUnderTest.getHitCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.getHitRatio()).isEqualTo(1.0 / 3.0);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws SQLException {
+        cacheUnderTest.get(connection, userById(1), converter);
+        cacheUnderTest.get(connection, userById(2), converter);
+        cacheUnderTest.get(connection, userById(1), converter);
+        cacheUnderTest.get(connection, userById(3), converter);
+
+        assertThat(cacheUnderTest.size()).isEqualTo(2);
+        assertThat(cacheUnderTest.getEvictionCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.get(connection, userById(1), converter)).isEqualTo(1);
+    }
+
+    @Test
+    void invalidatesOnModificationOfSameTable() throws SQLException {
+        cacheUnderTest.get(connection, userById(1), converter);
+
+        new DeletionQuery("orders").executePrepared(connection);
+        assertThat(cacheUnderTest.getInvalidationCount()).isZero();
+
+        new DeletionQuery("users").executePrepared(connection);
+        assertThat(cacheUnderTest.getInvalidationCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.get(connection, userById(1), converter)).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatesTableFrozenQueryWasFrozenFor() throws SQLException {
+        cacheUnderTest.get(connection, userById(1), converter);
+
+        DeletionQuery deletion = new DeletionQuery("users");
+        FrozenQuery<Integer> frozen = deletion.freeze();
+        deletion.setTableIdentifier(new Identifier("orders"));
+        frozen.execute(connection);
+
+        assertThat(cacheUnderTest.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheResultLoadedDuringInvalidateAll() throws SQLException {
+        ResultSetConverter<Integer> invalidatingConverter = rs -> {
+            cacheUnderTest.invalidateAll();
+            return queryCount.get();
+        };
+
+        assertThat(cacheUnderTest.get(connection, userById(1), invalidatingConverter)).isEqualTo(1);
+        assertThat(cacheUnderTest.size()).isZero();
+    }
+
+    private static SelectionQuery userById(int id) {
+        SelectionQuery query = new SelectionQuery("users");
+        query.setFilter(new BinaryExpression(ID, LogicalOperator.EQUAL_TO, new IntLiteral(id)));
+        return query;
+    }
+
+    private Connection fakeConnection() {
+        ResultSet resultSet = FakeJdbc.resultSet((method, args) -> null);
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> switch (method) {
+            case "executeQuery" -> {
+                queryCount.incrementAndGet();
+                yield resultSet;
+            }
+            case "executeUpdate" -> 1;
+            default -> null;
+        });
+        return FakeJdbc.connection(statement, null);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ConnectionPoolTests {
+
+    private List<FakeConnection> opened;
+    private ConnectionPool poolUnderTest;
+
+    @BeforeEach
+    void recreatePoolUnderTest() {
+        opened = Collections.synchronizedList(new ArrayList<>());
+        PoolSettings settings = PoolSettings.DEFAULT.withMaxSize(2).withBorrowTimeout(Duration.ofMillis(50));
+        poolUnderTest = new ConnectionPool(this::openConnection, settings);
+    }
+
+    @AfterEach
+    void closePoolUnderTest() {
+        poolUnderTest.close();
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThatIllegalArgumentException().isThrownBy(() -> PoolSettings.DEFAULT.withMaxSize(0));
+        assertThatIllegalArgumentException().isThrownBy(() -> PoolSettings.DEFAULT.withMinIdle(PoolSettings.DEFAULT.maxSize() + 1));
+        assertThatIllegalArgumentException().isThrownBy(() -> PoolSettings.DEFAULT.withIdleTimeout(Duration.ZERO));
+    }
+
+    @Test
+    void reusesReturnedConnections() throws SQLException {
+        poolUnderTest.getConnection().close();
+        poolUnderTest.getConnection().close();
+
+        assertThat(opened).hasSize(1);
+        assertThat(opened.get(0).closed).isFalse();
+        assertThat(poolUnderTest.getMetrics().borrowCount()).isEqualTo(2);
+    }
+
+    @Test
+    void closedLeaseRejectsUse() throws SQLException {
+        Connection connection = poolUnderTest.getConnection();
+        connection.close();
+
+        assertThat(connection.isClosed()).isTrue();
+        assertThatExceptionOfType(SQLException.class).isThrownBy(connection::createStatement);
+    }
+
+    @Test
+    void timesOutWhenSaturated() throws SQLException {
+        Connection first = poolUnderTest.getConnection();
+        Connection second = poolUnderTest.getConnection();
+
+        assertThatExceptionOfType(SQLTimeoutException.class).isThrownBy(poolUnderTest::getConnection);
+
+        PoolMetrics metrics = poolUnderTest.getMetrics();
+        assertThat(metrics.saturation()).isEqualTo(1.0);
+        assertThat(metrics.timeoutCount()).isEqualTo(1);
+
+        first.close();
+        second.close();
+    }
+
+    @Test
+    void replacesInvalidConnections() throws SQLException {
+        poolUnderTest.getConnection().close();
+        opened.get(0).valid = false;
+
+        poolUnderTest.getConnection().close();
+
+        assertThat(opened).hasSize(2);
+        assertThat(opened.get(0).closed).isTrue();
+    }
+
+    @Test
+    void restoresSessionStateChangedByBorrower() throws SQLException {
+        Connection connection = poolUnderTest.getConnection();
+        connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        connection.setSchema("audit");
+        connection.close();
+
+        assertThat(opened).singleElement().satisfies(fake -> {
+            assertThat(fake.isolation).isEqualTo(Connection.TRANSACTION_READ_COMMITTED);
+            assertThat(fake.schema).isEqualTo("public");
+        });
+    }
+
+    @Test
+    @Timeout(10)
+    void topUpCountsTowardsMaxSize() throws Exception {
+        CountDownLatch opening = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PoolSettings settings = PoolSettings.DEFAULT.withMaxSize(1).withMinIdle(1).withBorrowTimeout(Duration.ofMillis(50));
+        ConnectionPool pool = new ConnectionPool(() -> {
+            opening.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); /* close() interrupts housekeeping */
+            }
+            return openConnection();
+        }, settings);
+
+        try {
+            opening.await(); /* Housekeeping is now opening the only connection the pool may have */
+            assertThatExceptionOfType(SQLTimeoutException.class).isThrownBy(pool::getConnection);
+        } finally {
+            release.countDown();
+            pool.close();
+        }
+        assertThat(opened).hasSizeLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void rejectsLoginTimeout() throws SQLException {
+        poolUnderTest.setLoginTimeout(0);
+
+        assertThatExceptionOfType(SQLFeatureNotSupportedException.class).isThrownBy(() -> poolUnderTest.setLoginTimeout(5));
+        assertThat(poolUnderTest.getLoginTimeout()).isZero();
+    }
+
+    @Test
+    void closingPoolClosesIdleConnections() throws SQLException {
+        poolUnderTest.getConnection().close();
+        poolUnderTest.close();
+
+        assertThat(opened.get(0).closed).isTrue();
+        assertThatExceptionOfType(SQLException.class).isThrownBy(poolUnderTest::getConnection);
+    }
+
+    private Connection openConnection() {
+        FakeConnection fake = new FakeConnection();
+        opened.add(fake);
+        return FakeJdbc.connection((method, args) -> switch (method) {
+            case "isValid" -> fake.valid;
+            case "isClosed" -> fake.closed;
+            case "close" -> fake.closed = true;
+            case "getAutoCommit" -> true;
+            case "isReadOnly" -> false;
+            case "getTransactionIsolation" -> fake.isolation;
+            case "setTransactionIsolation" -> fake.isolation = (int) args[0];
+            case "getHoldability" -> ResultSet.HOLD_CURSORS_OVER_COMMIT;
+            case "getSchema" -> fake.schema;
+            case "setSchema" -> fake.schema = (String) args[0];
+            case "getNetworkTimeout" -> 0;
+            default -> null;
+        });
+    }
+
+    private static final class FakeConnection {
+
+        boolean valid = true;
+        boolean closed;
+        int isolation = Connection.TRANSACTION_READ_COMMITTED;
+        String schema = "public";
+    }
+}
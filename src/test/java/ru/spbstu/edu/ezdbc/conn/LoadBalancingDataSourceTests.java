@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.url.Host;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LoadBalancingDataSourceTests {
+
+    private static final Host FAST = new Host("fast");
+    private static final Host BROKEN = new Host("broken");
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new LoadBalancingDataSource(Map.of(), LoadBalancingDataSource.DEFAULT_EWMA_ALPHA));
+        assertThatIllegalArgumentException().isThrownBy(() -> new LoadBalancingDataSource(Map.of(FAST, dataSource(false)), 0.0));
+    }
+
+    @Test
+    void tracksInFlightLeases() throws SQLException {
+        LoadBalancingDataSource balancer = new LoadBalancingDataSource(Map.of(FAST, dataSource(false)), 0.5);
+
+        Connection connection = balancer.getConnection();
+        assertThat(balancer.getEndpointStats().get(0).inFlight()).isEqualTo(1);
+
+        connection.close();
+        connection.close();
+
+        LoadBalancingDataSource.EndpointStats stats = balancer.getEndpointStats().get(0);
+        assertThat(stats.inFlight()).isZero();
+        assertThat(stats.requestCount()).isEqualTo(1);
+        assertThat(stats.ewmaLatencyNanos()).isPositive();
+    }
+
+    @Test
+    void samplesTimeToAcquireRatherThanHoldTime() throws Exception {
+        LoadBalancingDataSource balancer = new LoadBalancingDataSource(Map.of(FAST, dataSource(false)), 1.0);
+
+        long start = System.nanoTime();
+        Connection connection = balancer.getConnection();
+        long acquired = System.nanoTime() - start;
+        assertThat(balancer.getEndpointStats().get(0).ewmaLatencyNanos()).isPositive().isLessThanOrEqualTo(acquired);
+
+        Thread.sleep(50);
+        connection.close();
+
+        assertThat(balancer.getEndpointStats().get(0).ewmaLatencyNanos()).isLessThanOrEqualTo(acquired);
+    }
+
+    @Test
+    void failsOverAndAvoidsBrokenEndpoint() throws SQLException {
+        Map<Host, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(BROKEN, dataSource(true));
+        dataSources.put(FAST, dataSource(false));
+        LoadBalancingDataSource balancer = new LoadBalancingDataSource(dataSources, 0.5);
+
+        for (int i = 0; i < 20; i++) {
+            balancer.getConnection().close();
+        }
+
+        // The broken endpoint is penalized on its first failure and never wins a comparison afterwards
+        assertThat(balancer.getEndpointStats().get(0).requestCount()).isLessThanOrEqualTo(1);
+        assertThat(balancer.getEndpointStats().get(1).requestCount()).isEqualTo(20);
+    }
+
+    @Test
+    void doesNotPenalizeFailedWorkButFallsBackOnConnectFailure() {
+        Map<Host, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(BROKEN, dataSource(true));
+        dataSources.put(FAST, dataSource(false));
+        LoadBalancingDataSource balancer = new LoadBalancingDataSource(dataSources, 0.5);
+
+        for (int i = 0; i < 10; i++) {
+            assertThatExceptionOfType(SQLException.class).isThrownBy(() -> balancer.execute(connection -> {
+                throw new SQLException("Syntax error");
+            })).withMessage("Syntax error");
+        }
+
+        LoadBalancingDataSource.EndpointStats fast = balancer.getEndpointStats().get(1);
+        assertThat(fast.requestCount()).isEqualTo(10);
+        assertThat(fast.inFlight()).isZero();
+        assertThat(fast.ewmaLatencyNanos()).isPositive().isLessThan(LoadBalancingDataSource.FAILURE_PENALTY_NANOS);
+    }
+
+    private static DataSource dataSource(boolean broken) {
+        return FakeJdbc.dataSource((method, args) -> {
+            if (!method.equals("getConnection")) {
+                return null;
+            }
+            if (broken) {
+                throw new SQLException("Connection refused");
+            }
+            return FakeJdbc.connection((m, a) -> null);
+        });
+    }
+}
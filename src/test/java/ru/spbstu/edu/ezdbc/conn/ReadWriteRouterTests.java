@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+import ru.spbstu.edu.ezdbc.sql.query.DeletionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ReadWriteRouterTests {
+
+    private static final ResultSetConverter<Boolean> ANY_CONVERTER = rs -> true;
+
+    private final AtomicInteger primaryConnections = new AtomicInteger();
+    private final AtomicInteger replicaConnections = new AtomicInteger();
+
+    @Test
+    void rejectsSelectionsWithoutConverter() {
+        ReadWriteRouter routerUnderTest = new ReadWriteRouter(dataSource(primaryConnections), dataSource(replicaConnections), Duration.ZERO);
+        assertThatIllegalArgumentException().isThrownBy(() -> routerUnderTest.execute(new SelectionQuery("users")));
+    }
+
+    @Test
+    void routesReadsToReplicasAndWritesToPrimary() throws SQLException {
+        ReadWriteRouter routerUnderTest = new ReadWriteRouter(dataSource(primaryConnections), dataSource(replicaConnections), Duration.ZERO);
+
+        routerUnderTest.execute(new SelectionQuery("users"), ANY_CONVERTER);
+        routerUnderTest.execute(new DeletionQuery("users"));
+        routerUnderTest.execute(new SelectionQuery("users"), ANY_CONVERTER);
+
+        assertThat(replicaConnections).hasValue(2);
+        assertThat(primaryConnections).hasValue(1);
+        assertThat(routerUnderTest.getWriteCount()).isEqualTo(1);
+    }
+
+    @Test
+    void readsStickToPrimaryAfterWrite() throws SQLException {
+        ReadWriteRouter routerUnderTest = new ReadWriteRouter(dataSource(primaryConnections), dataSource(replicaConnections), Duration.ofMinutes(1));
+        ReadWriteRouter.Session session = routerUnderTest.openSession();
+
+        session.execute(new DeletionQuery("users"));
+        session.execute(new SelectionQuery("users"), ANY_CONVERTER);
+        routerUnderTest.execute(new SelectionQuery("users"), ANY_CONVERTER); // The thread hasn't written anything by itself
+
+        assertThat(primaryConnections).hasValue(2);
+        assertThat(replicaConnections).hasValue(1);
+        assertThat(routerUnderTest.getPrimaryReadCount()).isEqualTo(1);
+    }
+
+    private static DataSource dataSource(AtomicInteger connectionCount) {
+        ResultSet resultSet = FakeJdbc.resultSet((method, args) -> null);
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> switch (method) {
+            case "executeQuery" -> resultSet;
+            case "executeUpdate" -> 1;
+            default -> null;
+        });
+        Connection connection = FakeJdbc.connection(statement, null);
+        return FakeJdbc.dataSource((method, args) -> {
+            connectionCount.incrementAndGet();
+            return connection;
+        });
+    }
+}
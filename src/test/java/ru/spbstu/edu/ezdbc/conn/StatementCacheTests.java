@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.conn;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+class StatementCacheTests {
+
+    private Set<PreparedStatement> closedStatements;
+    private StatementCache cacheUnderTest;
+
+    @BeforeEach
+    void recreateCacheUnderTest() {
+        closedStatements = new HashSet<>();
+        cacheUnderTest = new StatementCache(fakeConnection(), 2);
+    }
+
+    @Test
+    void rejectsInvalidConstructorArgs() {
+        assertThatNullPointerException().isThrownBy(() -> new StatementCache(null));
+        assertThatIllegalArgumentException().isThrownBy(() -> new StatementCache(fakeConnection(), 0));
+    }
+
+    @Test
+    void reusesStatementsForSameText() throws SQLException {
+        PreparedStatement first = cacheUnderTest.prepare("SELECT 1");
+        PreparedStatement second = cacheUnderTest.prepare("SELECT 1");
+
+        assertThat(second).isSameAs(first);
+        assertThat(cacheUnderTest.getHitCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsAndClosesLeastRecentlyUsed() throws SQLException {
+        PreparedStatement a = cacheUnderTest.prepare("A");
+        PreparedStatement b = cacheUnderTest.prepare("B");
+        cacheUnderTest.prepare("A"); /* Makes B the least recently used one */
+        cacheUnderTest.prepare("C");
+
+        assertThat(closedStatements).containsExactly(b);
+        assertThat(cacheUnderTest.prepare("A")).isSameAs(a);
+        assertThat(cacheUnderTest.getEvictionCount()).isEqualTo(1);
+        assertThat(cacheUnderTest.size()).isEqualTo(2);
+    }
+
+    @Test
+    void closeClosesEverything() throws SQLException {
+        PreparedStatement a = cacheUnderTest.prepare("A");
+        PreparedStatement b = cacheUnderTest.prepare("B");
+        cacheUnderTest.close();
+
+        assertThat(closedStatements).containsExactlyInAnyOrder(a, b);
+        assertThat(cacheUnderTest.size()).isZero();
+    }
+
+    private Connection fakeConnection() {
+        return FakeJdbc.connection((method, args) -> {
+            if (method.equals("prepareStatement")) {
+                return fakeStatement();
+            }
+            throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private PreparedStatement fakeStatement() {
+        PreparedStatement[] self = new PreparedStatement[1];
+        self[0] = FakeJdbc.preparedStatement((method, args) -> switch (method) {
+            case "close" -> closedStatements.add(self[0]);
+            case "isClosed" -> closedStatements.contains(self[0]);
+            default -> throw new UnsupportedOperationException(method);
+        });
+        return self[0];
+    }
+}
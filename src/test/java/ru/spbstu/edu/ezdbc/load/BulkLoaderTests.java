@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+import ru.spbstu.edu.ezdbc.rs.consume.DelimitedExporter;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class BulkLoaderTests {
+
+    private static final Identifier TABLE = new Identifier("events");
+    private static final List<Identifier> COLUMNS = List.of(new Identifier("id"), new Identifier("name"), new Identifier("at"));
+    private static final List<FieldType> TYPES = List.of(FieldType.LONG, FieldType.STRING, FieldType.TIMESTAMP);
+
+    @TempDir
+    Path dir;
+
+    private final List<List<Object>> inserted = new ArrayList<>();
+    private final List<LoadStats> progress = new ArrayList<>();
+    private int commitCount;
+    private int rollbackCount;
+
+    @Test
+    void loadsCSVInBatchesWithPeriodicCommits() throws IOException, SQLException {
+        Path file = write("""
+                id,name,at\r
+                1,plain,2022-03-04 05:06:07\r
+                2,"quoted, with ""quotes""
+                and a line break",\r
+                3,"",2022-03-04 05:06:07.5\r
+                \r
+                -4,юникод,
+                5,last,2022-01-01 00:00:00""");
+        BulkLoader.Settings settings = BulkLoader.Settings.DEFAULT
+                .withBatchSize(2)
+                .withCommitInterval(3)
+                .withBufferSize(16)
+                .withProgressListener(progress::add);
+
+        LoadStats stats = new BulkLoader(TABLE, COLUMNS, TYPES, settings).load(fakeConnection(), file);
+
+        assertThat(stats.rowCount()).isEqualTo(5);
+        assertThat(stats.batchCount()).isEqualTo(3);
+        assertThat(commitCount).isEqualTo(2);
+        assertThat(progress).last().isEqualTo(stats);
+        assertThat(inserted).containsExactly(
+                List.of(1L, "plain", Timestamp.valueOf("2022-03-04 05:06:07")),
+                Arrays.asList(2L, "quoted, with \"quotes\"\nand a line break", null),
+                Arrays.asList(3L, "", Timestamp.valueOf("2022-03-04 05:06:07.5")),
+                Arrays.asList(-4L, "юникод", null),
+                List.of(5L, "last", Timestamp.valueOf("2022-01-01 00:00:00"))
+        );
+    }
+
+    @Test
+    void loadsTSV() throws IOException, SQLException {
+        Path file = write("1\ta\\tb\\\\c\t\\N\n2\t\t\\N\n3\t\\\\N\t\\N\n");
+        BulkLoader.Settings settings = BulkLoader.Settings.DEFAULT.withFormat(DelimitedExporter.Format.TSV).withSkipHeader(false);
+
+        new BulkLoader(TABLE, COLUMNS, TYPES, settings).load(fakeConnection(), file);
+
+        assertThat(inserted).containsExactly(
+                Arrays.asList(1L, "a\tb\\c", null),
+                Arrays.asList(2L, "", null),
+                Arrays.asList(3L, "\\N", null)
+        );
+    }
+
+    @Test
+    void keepsEmptyTSVLinesAsEmptyStrings() throws IOException, SQLException {
+        Path file = write("a\n\nb\n");
+        BulkLoader.Settings settings = BulkLoader.Settings.DEFAULT.withFormat(DelimitedExporter.Format.TSV).withSkipHeader(false);
+
+        new BulkLoader(TABLE, COLUMNS.subList(1, 2), TYPES.subList(1, 2), settings).load(fakeConnection(), file);
+
+        assertThat(inserted).containsExactly(List.of("a"), List.of(""), List.of("b"));
+    }
+
+    @Test
+    void bindsTypedFields() throws IOException, SQLException {
+        List<Identifier> columns = List.of(new Identifier("amount"), new Identifier("flag"), new Identifier("day"), new Identifier("at"),
+                new Identifier("uuid"));
+        List<FieldType> types = List.of(FieldType.DECIMAL, FieldType.BOOLEAN, FieldType.DATE, FieldType.TIME, FieldType.OTHER);
+        Path file = write("12345678901234567890.125,true,2022-03-04,05:06:07.25,0f8fad5b-d9cb-469f-a165-70867728950e\n,f,,,\n");
+        BulkLoader.Settings settings = BulkLoader.Settings.DEFAULT.withSkipHeader(false);
+
+        new BulkLoader(TABLE, columns, types, settings).load(fakeConnection(), file);
+
+        assertThat(inserted).containsExactly(
+                List.of(new BigDecimal("12345678901234567890.125"), true, Date.valueOf("2022-03-04"), LocalTime.of(5, 6, 7, 250_000_000),
+                        "0f8fad5b-d9cb-469f-a165-70867728950e"),
+                Arrays.asList(null, false, null, null, null)
+        );
+        assertThat(FieldType.of(Types.NUMERIC)).isEqualTo(FieldType.DECIMAL);
+        assertThat(FieldType.of(Types.OTHER)).isEqualTo(FieldType.OTHER);
+        assertThat(FieldType.of(Types.NVARCHAR)).isEqualTo(FieldType.STRING);
+    }
+
+    @Test
+    void resolvesTypesWithEscapedTableNameInSchema() throws SQLException {
+        List<Object[]> lookups = new ArrayList<>();
+        DatabaseMetaData metaData = FakeJdbc.proxy(DatabaseMetaData.class, (method, args) -> switch (method) {
+            case "getSearchStringEscape" -> "\\";
+            case "getColumns" -> {
+                lookups.add(args);
+                yield FakeResultSets.of(List.of("COLUMN_NAME", "DATA_TYPE"), List.of(List.of("ID", Types.BIGINT), List.of("NAME", Types.VARCHAR)));
+            }
+            default -> null;
+        });
+        Connection connection = FakeJdbc.connection((method, args) -> switch (method) {
+            case "getMetaData" -> metaData;
+            case "getSchema" -> "public";
+            default -> null;
+        });
+
+        List<FieldType> types = BulkLoader.resolveTypes(connection, new Identifier("my_events"), List.of(new Identifier("name"), new Identifier("id")));
+
+        assertThat(types).containsExactly(FieldType.STRING, FieldType.LONG);
+        assertThat(lookups).hasSize(1);
+        assertThat(lookups.get(0)).containsExactly(null, "public", "my\\_events", null);
+    }
+
+    @Test
+    void rollsBackOnInvalidRecord() throws IOException {
+        Path file = write("id,name,at\n1,a,\nnot a number,b,\n");
+        BulkLoader loader = new BulkLoader(TABLE, COLUMNS, TYPES, BulkLoader.Settings.DEFAULT);
+
+        assertThatIllegalStateException()
+                .isThrownBy(() -> loader.load(fakeConnection(), file))
+                .withMessageContaining("record 3");
+        assertThat(rollbackCount).isEqualTo(1);
+        assertThat(commitCount).isZero();
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(dir.resolve("data.csv"), content, StandardCharsets.UTF_8);
+    }
+
+    private Connection fakeConnection() {
+        Object[] current = new Object[8];
+        int[] columnCount = {0};
+        int[] pending = {0};
+
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> {
+            if (method.startsWith("set")) {
+                columnCount[0] = Math.max(columnCount[0], (int) args[0]);
+                current[(int) args[0] - 1] = method.equals("setNull") ? null : args[1];
+                return null;
+            }
+            return switch (method) {
+                case "addBatch" -> {
+                    inserted.add(Arrays.asList(Arrays.copyOf(current, columnCount[0])));
+                    pending[0]++;
+                    yield null;
+                }
+                case "executeBatch" -> {
+                    int[] counts = new int[pending[0]];
+                    Arrays.fill(counts, 1);
+                    pending[0] = 0;
+                    yield counts;
+                }
+                default -> null;
+            };
+        });
+
+        return FakeJdbc.connection((method, args) -> switch (method) {
+            case "prepareStatement" -> statement;
+            case "getAutoCommit" -> true;
+            case "commit" -> {
+                commitCount++;
+                yield null;
+            }
+            case "rollback" -> {
+                rollbackCount++;
+                yield null;
+            }
+            default -> null;
+        });
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+// Proxy-based fakes of JDBC interfaces, each answering by method name via a handler. Identity-based equals/hashCode/toString come for free,
+// and whatever the handler answers null with (including unknown methods) returns the default value of the method's return type, so handlers
+// only need to cover what the code under test actually looks at.
+public final class FakeJdbc {
+
+    @FunctionalInterface
+    public interface Handler {
+
+        // Arguments are never null (an empty array for no-arg methods)
+        Object handle(String method, Object[] args) throws Throwable;
+    }
+
+    private static final Object[] NO_ARGS = {};
+
+    private FakeJdbc() {
+    }
+
+    public static <T> T proxy(Class<T> type, Handler handler) {
+        Object fake = Proxy.newProxyInstance(FakeJdbc.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals" -> {
+                    if (method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                }
+                case "hashCode" -> {
+                    if (method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                }
+                case "toString" -> {
+                    if (method.getParameterCount() == 0) {
+                        return "Fake" + type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                    }
+                }
+                default -> {
+                }
+            }
+
+            Object result = handler.handle(method.getName(), (args != null) ? args : NO_ARGS);
+            return (result == null) ? defaultValue(method.getReturnType()) : result;
+        });
+        return type.cast(fake);
+    }
+
+    public static Connection connection(Handler handler) {
+        return proxy(Connection.class, handler);
+    }
+
+    // Hands out the provided statement for every prepareStatement call, recording the SQL (if a list is provided)
+    public static Connection connection(PreparedStatement statement, List<String> prepared) {
+        return connection((method, args) -> {
+            if (method.equals("prepareStatement")) {
+                if (prepared != null) {
+                    prepared.add((String) args[0]);
+                }
+                return statement;
+            }
+            return null;
+        });
+    }
+
+    public static Statement statement(Handler handler) {
+        return proxy(Statement.class, handler);
+    }
+
+    public static PreparedStatement preparedStatement(Handler handler) {
+        return proxy(PreparedStatement.class, handler);
+    }
+
+    public static ResultSet resultSet(Handler handler) {
+        return proxy(ResultSet.class, handler);
+    }
+
+    public static DataSource dataSource(Handler handler) {
+        return proxy(DataSource.class, handler);
+    }
+
+    // Hands out the provided connection for every getConnection call
+    public static DataSource dataSource(Connection connection) {
+        return dataSource((method, args) -> method.equals("getConnection") ? connection : null);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        return switch (type.getName()) {
+            case "boolean" -> false;
+            case "byte" -> (byte) 0;
+            case "short" -> (short) 0;
+            case "char" -> '\0';
+            case "int" -> 0;
+            case "long" -> 0L;
+            case "float" -> 0.0f;
+            default -> 0.0;
+        };
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
+
+// In-memory, forward-only ResultSets backed by rows of plain values, with just enough of the JDBC contract for tests
+public final class FakeResultSets {
+
+    private FakeResultSets() {
+    }
+
+    public static ResultSet of(List<String> labels, List<List<Object>> rows) {
+        return of(labels, null, rows);
+    }
+
+    // Types are java.sql.Types reported by the metadata (may be null if the code under test doesn't need them, they are all OTHER then)
+    public static ResultSet of(List<String> labels, List<Integer> types, List<List<Object>> rows) {
+        ClassLoader loader = FakeResultSets.class.getClassLoader();
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(loader, new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getColumnCount" -> labels.size();
+                    case "getColumnLabel", "getColumnName" -> labels.get((int) args[0] - 1);
+                    case "getColumnType" -> (types == null) ? Types.OTHER : types.get((int) args[0] - 1);
+                    case "getPrecision", "getScale" -> 0;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        int[] cursor = {-1};
+        boolean[] state = {false, false}; /* wasNull, closed */
+        return (ResultSet) Proxy.newProxyInstance(loader, new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            String name = method.getName();
+            switch (name) {
+                case "next" -> {
+                    return ++cursor[0] < rows.size();
+                }
+                case "getMetaData" -> {
+                    return metaData;
+                }
+                case "wasNull" -> {
+                    return state[0];
+                }
+                case "close" -> {
+                    state[1] = true;
+                    return null;
+                }
+                case "isClosed" -> {
+                    return state[1];
+                }
+                case "findColumn" -> {
+                    return indexOf(labels, (String) args[0]);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                }
+            }
+
+            if (!name.startsWith("get") || args == null) {
+                throw new UnsupportedOperationException(name);
+            }
+            if (state[1]) {
+                throw new SQLException("ResultSet is closed");
+            }
+
+            int column = (args[0] instanceof String label) ? indexOf(labels, label) : (int) args[0];
+            Object value = rows.get(cursor[0]).get(column - 1);
+            state[0] = (value == null);
+            return convert(value, method.getReturnType(), (args.length > 1) ? (Class<?>) args[1] : null);
+        });
+    }
+
+    private static int indexOf(List<String> labels, String label) throws SQLException {
+        for (int i = 0; i < labels.size(); i++) {
+            if (labels.get(i).equalsIgnoreCase(label)) {
+                return i + 1;
+            }
+        }
+        throw new SQLException("No such column: " + label.toLowerCase(Locale.ROOT));
+    }
+
+    private static Object convert(Object value, Class<?> returnType, Class<?> requestedType) {
+        if (value == null) {
+            return switch (returnType.getName()) {
+                case "boolean" -> false;
+                case "byte" -> (byte) 0;
+                case "short" -> (short) 0;
+                case "int" -> 0;
+                case "long" -> 0L;
+                case "float" -> 0.0f;
+                case "double" -> 0.0;
+                default -> null;
+            };
+        }
+
+        if (value instanceof Number number) {
+            return switch (returnType.getName()) {
+                case "byte" -> number.byteValue();
+                case "short" -> number.shortValue();
+                case "int" -> number.intValue();
+                case "long" -> number.longValue();
+                case "float" -> number.floatValue();
+                case "double" -> number.doubleValue();
+                case "java.math.BigDecimal" -> new BigDecimal(number.toString());
+                case "java.lang.String" -> number.toString();
+                default -> (requestedType == Long.class) ? (Object) number.longValue()
+                        : (requestedType == Integer.class) ? (Object) number.intValue()
+                        : (requestedType == Double.class) ? (Object) number.doubleValue()
+                        : value;
+            };
+        }
+
+        return (returnType == String.class) ? value.toString() : value;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.columnar;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarConverterTests {
+
+    @Test
+    void picksColumnTypesFromMetadata() throws SQLException {
+        ResultSet rs = FakeResultSets.of(
+                List.of("id", "amount", "status", "created_at"),
+                List.of(Types.BIGINT, Types.DOUBLE, Types.VARCHAR, Types.TIMESTAMP),
+                List.of(
+                        List.of(1L, 2.5, "NEW", "2022-01-01"),
+                        Arrays.asList(2L, null, "PAID", null),
+                        List.of(3L, 4.0, "NEW", "2022-01-03")
+                ));
+
+        ColumnarTable table = new ColumnarConverter(1).convert(rs);
+
+        assertThat(table.getRowCount()).isEqualTo(3);
+        assertThat(table.getLongColumn("ID").stream().sum()).isEqualTo(6L);
+
+        DoubleColumn amounts = table.getDoubleColumn("amount");
+        assertThat(amounts.isNull(1)).isTrue();
+        assertThat(amounts.getNullCount()).isEqualTo(1);
+        assertThat(amounts.stream().sum()).isEqualTo(6.5);
+
+        StringColumn statuses = table.getStringColumn("status");
+        assertThat(statuses.getDictionary()).containsExactly("NEW", "PAID");
+        assertThat(statuses.getCode(2)).isEqualTo(statuses.getCode(0));
+
+        assertThat(table.getColumn("created_at")).isInstanceOf(ObjectColumn.class);
+        assertThat(table.getObjectColumn("created_at").getObject(1)).isNull();
+    }
+
+    @Test
+    void growsPastInitialCapacity() throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(Arrays.asList(i, (i % 100 == 0) ? null : "v" + (i % 10)));
+        }
+        ResultSet rs = FakeResultSets.of(List.of("n", "s"), List.of(Types.INTEGER, Types.VARCHAR), rows);
+
+        ColumnarTable table = new ColumnarConverter(0).convert(rs);
+
+        IntColumn numbers = table.getIntColumn("n");
+        assertThat(numbers.size()).isEqualTo(1000);
+        assertThat(numbers.getInt(999)).isEqualTo(999);
+        assertThat(numbers.getNullCount()).isZero();
+
+        StringColumn strings = table.getStringColumn("s");
+        assertThat(strings.getNullCount()).isEqualTo(10);
+        assertThat(strings.isNull(900)).isTrue();
+        assertThat(strings.getString(901)).isEqualTo("v1");
+        assertThat(strings.getDictionary()).hasSize(10);
+    }
+
+    @Test
+    void countsDictionaryStringsInFootprint() throws SQLException {
+        String longValue = "x".repeat(10_000);
+        ResultSet rs = FakeResultSets.of(List.of("s"), List.of(Types.VARCHAR), List.of(List.of(longValue), List.of(longValue)));
+
+        StringColumn strings = new ColumnarConverter(0).convert(rs).getStringColumn("s");
+
+        assertThat(strings.getDictionary()).containsExactly(longValue);
+        assertThat(strings.estimateFootprintBytes()).isGreaterThan(longValue.length());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.consume;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DelimitedExporterTests {
+
+    private static final List<String> LABELS = List.of("id", "name", "created_at");
+    private static final List<Integer> TYPES = List.of(Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP);
+
+    @Test
+    void writesRFC4180CSV() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, TYPES, List.of(
+                List.of(-1L, "plain", Timestamp.valueOf("2022-03-04 05:06:07")),
+                Arrays.asList(2L, "needs \"quotes\", and\ncommas", Timestamp.valueOf("2022-03-04 05:06:07.25")),
+                Arrays.asList(3L, "юникод 🙂", null)
+        ));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new DelimitedExporter(Channels.newChannel(out), DelimitedExporter.Format.CSV).consume(rs);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,name,created_at\r
+                -1,plain,2022-03-04 05:06:07\r
+                2,"needs ""quotes"", and
+                commas",2022-03-04 05:06:07.25\r
+                3,юникод 🙂,\r
+                """);
+    }
+
+    @Test
+    void escapesTSVAcrossFlushes() throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Arrays.asList((long) i, "a\tb\\c", null));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DelimitedExporter exporter = new DelimitedExporter(Channels.newChannel(out), DelimitedExporter.Format.TSV, false, false, 64);
+
+        exporter.consume(FakeResultSets.of(LABELS, TYPES, rows));
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(100);
+        assertThat(lines.get(99)).isEqualTo("99\ta\\tb\\\\c\t\\N");
+        assertThat(exporter.getRowCount()).isEqualTo(100);
+        assertThat(exporter.getByteCount()).isEqualTo(out.size());
+    }
+
+    @Test
+    void distinguishesEmptyStringsFromNulls() throws SQLException {
+        List<List<Object>> rows = List.of(Arrays.asList(1L, "", null), Arrays.asList(2L, null, null));
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        ByteArrayOutputStream tsv = new ByteArrayOutputStream();
+
+        new DelimitedExporter(Channels.newChannel(csv), DelimitedExporter.Format.CSV, false, false, 1024).consume(FakeResultSets.of(LABELS, TYPES, rows));
+        new DelimitedExporter(Channels.newChannel(tsv), DelimitedExporter.Format.TSV, false, false, 1024).consume(FakeResultSets.of(LABELS, TYPES, rows));
+
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo("1,\"\",\r\n2,,\r\n");
+        assertThat(tsv.toString(StandardCharsets.UTF_8)).isEqualTo("1\t\t\\N\n2\t\\N\t\\N\n");
+    }
+
+    @Test
+    void padsYearsToFourDigits() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, TYPES, List.of(Arrays.asList(1L, "x", Timestamp.valueOf("0042-01-02 03:04:05"))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new DelimitedExporter(Channels.newChannel(out), DelimitedExporter.Format.TSV, false, false, 1024).consume(rs);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("1\tx\t0042-01-02 03:04:05\n");
+    }
+
+    @Test
+    void gzipsWithoutClosingChannel() throws SQLException, IOException {
+        ResultSet rs = FakeResultSets.of(LABELS, TYPES, List.of(Arrays.asList(1L, "x", null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new DelimitedExporter(Channels.newChannel(out), DelimitedExporter.Format.CSV, true, true, 1024).consume(rs);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("id,name,created_at\r\n1,x,\r\n");
+        }
+    }
+}
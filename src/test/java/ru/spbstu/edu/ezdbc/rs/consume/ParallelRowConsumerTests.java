@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.consume;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+import ru.spbstu.edu.ezdbc.rs.convert.ResultSetConverter;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ParallelRowConsumerTests {
+
+    private static final ResultSetConverter<Integer> ID_SNAPSHOTTER = rs -> rs.getInt(1);
+
+    private ExecutorService threads;
+    private ParallelRowConsumer.Settings settings;
+
+    @BeforeEach
+    void createThreads() {
+        threads = Executors.newFixedThreadPool(4);
+        settings = ParallelRowConsumer.Settings.DEFAULT.withParallelism(4).withQueueCapacity(8).withExecutor(threads);
+    }
+
+    @AfterEach
+    void shutDownThreads() {
+        threads.shutdown();
+    }
+
+    @Test
+    void completesInRowOrder() throws SQLException {
+        List<Integer> completed = new ArrayList<>();
+
+        new ParallelRowConsumer<>(ID_SNAPSHOTTER, id -> {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            return id * 10;
+        }, completed::add, settings.withCompletion(ParallelRowConsumer.Completion.ORDERED)).consume(ids(100));
+
+        assertThat(completed).hasSize(100).isSorted().startsWith(0, 10, 20);
+    }
+
+    @Test
+    void boundsRowsInFlight() throws SQLException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+
+        ResultSetConverter<Integer> countingSnapshotter = rs -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return rs.getInt(1);
+        };
+        ParallelRowConsumer.of(countingSnapshotter, id -> {
+            Thread.sleep(1);
+            processed.incrementAndGet();
+            inFlight.decrementAndGet();
+        }, settings).consume(ids(100));
+
+        assertThat(processed).hasValue(100);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(settings.queueCapacity() + 1); /* Plus the row being snapshotted */
+    }
+
+    @Test
+    void failsFastWithoutErrorHandler() {
+        ParallelRowConsumer<Integer, Void> consumer = ParallelRowConsumer.of(ID_SNAPSHOTTER, id -> {
+            if (id == 42) {
+                throw new IllegalStateException("Boom");
+            }
+        }, settings);
+
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(() -> consumer.consume(ids(1000)))
+                .withCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void reportsErrorsToHandlerAndGoesOn() throws SQLException {
+        List<Exception> errors = new ArrayList<>();
+        AtomicInteger processed = new AtomicInteger();
+
+        ParallelRowConsumer.of(ID_SNAPSHOTTER, id -> {
+            if (id % 10 == 0) {
+                throw new IllegalStateException("Boom");
+            }
+            processed.incrementAndGet();
+        }, settings.withErrorHandler(errors::add)).consume(ids(100));
+
+        assertThat(errors).hasSize(10);
+        assertThat(processed).hasValue(90);
+    }
+
+    @Test
+    @Timeout(10)
+    void stopsOnProcessorErrorWithoutStallingOrderedCompletion() {
+        ParallelRowConsumer<Integer, Integer> consumer = new ParallelRowConsumer<>(ID_SNAPSHOTTER, id -> {
+            if (id == 3) {
+                throw new AssertionError("Boom");
+            }
+            return id;
+        }, id -> {
+        }, settings.withCompletion(ParallelRowConsumer.Completion.ORDERED).withQueueCapacity(2));
+
+        assertThatExceptionOfType(AssertionError.class).isThrownBy(() -> consumer.consume(ids(1000))).withMessage("Boom");
+    }
+
+    @Test
+    @Timeout(10)
+    void stopsWhenErrorHandlerThrows() {
+        ParallelRowConsumer<Integer, Void> consumer = ParallelRowConsumer.of(ID_SNAPSHOTTER, id -> {
+            throw new IllegalStateException("Boom");
+        }, settings.withErrorHandler(e -> {
+            throw new IllegalArgumentException("Handler failed", e);
+        }));
+
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(() -> consumer.consume(ids(1000)))
+                .withCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ResultSet ids(int count) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(List.of(i));
+        }
+        return FakeResultSets.of(List.of("id"), rows);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.consume;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ResultSetPrinterTests {
+
+    private static final List<String> LABELS = List.of("ID", "Name", "email");
+
+    @Test
+    void printsRowsByResolvedIndices() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, List.of(
+                List.of(1, "Alice", "alice@example.org"),
+                Arrays.asList(2, "Bob", null)
+        ));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+        new ResultSetPrinter(out, String::valueOf, ", ", "[", "]", "email", "id").consume(rs);
+
+        assertThat(bytes.toString(StandardCharsets.UTF_8).lines()).containsExactly("[alice@example.org, 1]", "[null, 2]");
+    }
+
+    @Test
+    void resolvesIndicesOncePerResultSet() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, List.of(List.of(1, "Alice", "a"), List.of(2, "Bob", "b")));
+        List<int[]> seen = new ArrayList<>();
+
+        new PerRowResultSetConsumer(List.of("name", "ID"), (resultSet, columnIndices) -> seen.add(columnIndices)).consume(rs);
+
+        assertThat(seen).hasSize(2);
+        assertThat(seen.get(0)).containsExactly(2, 1).isSameAs(seen.get(1));
+    }
+
+    @Test
+    void rejectsUnknownLabels() {
+        ResultSet rs = FakeResultSets.of(LABELS, List.of(List.of(1, "Alice", "a")));
+        PerRowResultSetConsumer consumer = new PerRowResultSetConsumer(List.of("phone"), (resultSet, columnIndices) -> {
+        });
+
+        assertThatExceptionOfType(SQLException.class).isThrownBy(() -> consumer.consume(rs));
+    }
+}
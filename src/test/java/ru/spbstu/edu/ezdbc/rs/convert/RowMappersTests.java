@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.convert;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RowMappersTests {
+
+    private static final List<String> LABELS = List.of("USER_ID", "name", "balance", "referrer_id");
+
+    @Test
+    void mapsRecordsByLabel() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, List.of(
+                List.of(1, "Alice", 10.5, 7L),
+                Arrays.asList(2, "Bob", 0.0, null)
+        ));
+
+        List<User> users = RowMappers.ofRecord(User.class).stream(rs).toList();
+
+        assertThat(users).containsExactly(new User(1, "Alice", 10.5, 7L), new User(2, "Bob", 0.0, null));
+    }
+
+    @Test
+    void mapsBeansSkippingUnknownProperties() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, List.of(List.of(3, "Carol", 1.0, 1L)));
+        rs.next();
+
+        UserBean bean = RowMappers.ofBean(UserBean.class).convert(rs);
+
+        assertThat(bean.getUserId()).isEqualTo(3);
+        assertThat(bean.getName()).isEqualTo("Carol");
+        assertThat(bean.getNickname()).isNull();
+    }
+
+    @Test
+    void reusesPlansPerColumnLayoutAcrossResultSets() throws SQLException {
+        ResultSetConverter<User> mapper = RowMappers.ofRecord(User.class);
+        List<String> reordered = List.of("name", "referrer_id", "USER_ID", "balance");
+
+        List<User> first = mapper.stream(FakeResultSets.of(LABELS, List.of(List.of(1, "Alice", 10.5, 7L)))).toList();
+        List<User> other = mapper.stream(FakeResultSets.of(reordered, List.of(List.of("Bob", 8L, 2, 0.5)))).toList();
+        List<User> again = mapper.stream(FakeResultSets.of(LABELS, List.of(List.of(3, "Carol", 1.0, 9L)))).toList();
+
+        assertThat(first).containsExactly(new User(1, "Alice", 10.5, 7L));
+        assertThat(other).containsExactly(new User(2, "Bob", 0.5, 8L));
+        assertThat(again).containsExactly(new User(3, "Carol", 1.0, 9L));
+    }
+
+    @Test
+    void rejectsRecordsWithUnmappedComponents() throws SQLException {
+        ResultSet rs = FakeResultSets.of(List.of("user_id"), List.of(List.of(1)));
+        rs.next();
+
+        assertThatExceptionOfType(SQLException.class).isThrownBy(() -> RowMappers.ofRecord(User.class).convert(rs));
+    }
+
+    @Test
+    void rejectsNullForPrimitiveProperties() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, List.of(Arrays.asList(null, "Dave", 1.0, 1L)));
+        rs.next();
+
+        assertThatExceptionOfType(SQLException.class)
+                .isThrownBy(() -> RowMappers.ofRecord(User.class).convert(rs))
+                .withMessageContaining("userId");
+    }
+
+    @Test
+    void picksOverloadedSetterMatchingGetter() throws SQLException {
+        ResultSet rs = FakeResultSets.of(List.of("code"), List.of(List.of(42)));
+        rs.next();
+
+        assertThat(RowMappers.ofBean(CodeBean.class).convert(rs).getCode()).isEqualTo(42);
+        assertThatIllegalArgumentException().isThrownBy(() -> RowMappers.ofBean(AmbiguousBean.class));
+    }
+
+    public record User(int userId, String name, double balance, Long referrerId) {
+    }
+
+    public static final class UserBean {
+
+        private int userId;
+        private String name;
+        private String nickname;
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public void setUserId(int userId) {
+            this.userId = userId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public void setNickname(String nickname) {
+            this.nickname = nickname;
+        }
+    }
+
+    public static final class CodeBean {
+
+        private int code;
+
+        public int getCode() {
+            return code;
+        }
+
+        public void setCode(int code) {
+            this.code = code;
+        }
+
+        public void setCode(String code) {
+            this.code = Integer.parseInt(code);
+        }
+    }
+
+    public static final class AmbiguousBean {
+
+        public void setCode(int code) {
+        }
+
+        public void setCode(String code) {
+        }
+    }
+}
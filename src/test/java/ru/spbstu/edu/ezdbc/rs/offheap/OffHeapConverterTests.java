@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.rs.offheap;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class OffHeapConverterTests {
+
+    private static final List<String> LABELS = List.of("id", "name", "score", "active");
+    private static final List<Integer> TYPES = List.of(Types.BIGINT, Types.VARCHAR, Types.DOUBLE, Types.BOOLEAN);
+
+    @Test
+    void readsRowsSequentiallyAndRandomly() throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rows.add(Arrays.asList((long) i, (i % 7 == 0) ? null : "имя_" + i, i * 0.5, i % 2 == 0));
+        }
+        ResultSet rs = FakeResultSets.of(LABELS, TYPES, rows);
+
+        try (OffHeapResultBuffer buffer = new OffHeapConverter(1024).convert(rs); RowCursor cursor = buffer.cursor()) {
+            assertThat(buffer.getRowCount()).isEqualTo(500);
+            assertThat(buffer.getPageCount()).isGreaterThan(1);
+            assertThat(buffer.findColumn("SCORE")).isEqualTo(3);
+
+            long idSum = 0;
+            while (cursor.next()) {
+                idSum += cursor.getLong(1);
+            }
+            assertThat(idSum).isEqualTo(499L * 500 / 2);
+
+            cursor.moveTo(123);
+            assertThat(cursor.getString(2)).isEqualTo("имя_123");
+            assertThat(cursor.getDouble(3)).isEqualTo(61.5);
+            assertThat(cursor.getBoolean(4)).isFalse();
+
+            cursor.moveTo(7);
+            assertThat(cursor.isNull(2)).isTrue();
+            assertThat(cursor.getString(2)).isNull();
+            assertThat(cursor.getDouble(3)).isEqualTo(3.5);
+        }
+    }
+
+    @Test
+    void keepsRowsLargerThanPage() throws SQLException {
+        String longName = "x".repeat(5000);
+        ResultSet rs = FakeResultSets.of(LABELS, TYPES, List.of(List.of(1L, longName, 1.0, true)));
+
+        try (OffHeapResultBuffer buffer = new OffHeapConverter(1024).convert(rs); RowCursor cursor = buffer.cursor()) {
+            assertThat(cursor.moveTo(0).getString(2)).isEqualTo(longName);
+        }
+    }
+
+    @Test
+    void rejectsUseAfterClose() throws SQLException {
+        ResultSet rs = FakeResultSets.of(LABELS, TYPES, List.of(List.of(1L, "a", 1.0, true)));
+        OffHeapResultBuffer buffer = new OffHeapConverter().convert(rs);
+        RowCursor cursor = buffer.cursor().moveTo(0);
+
+        buffer.close();
+
+        assertThatIllegalStateException().isThrownBy(() -> cursor.getLong(1));
+        assertThatIllegalStateException().isThrownBy(buffer::cursor);
+        assertThat(buffer.getAllocatedBytes()).isPositive();
+
+        cursor.close();
+        assertThat(buffer.getAllocatedBytes()).isZero();
+    }
+
+    @Test
+    void failsCleanlyWhenClosedDuringReads() throws Exception {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(Arrays.asList((long) i, "name_" + i, i * 0.5, true));
+        }
+        OffHeapResultBuffer buffer = new OffHeapConverter(1024).convert(FakeResultSets.of(LABELS, TYPES, rows));
+
+        List<Thread> readers = new ArrayList<>();
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        CountDownLatch reading = new CountDownLatch(4);
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try (RowCursor cursor = buffer.cursor()) {
+                    reading.countDown();
+                    while (true) {
+                        for (int row = 0; row < 1000; row++) {
+                            cursor.moveTo(row).getString(2);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        reading.await();
+        buffer.close();
+        for (Thread reader : readers) {
+            reader.join(10_000);
+        }
+
+        assertThat(failures).hasSize(4).allSatisfy(e -> assertThat(e).isInstanceOf(IllegalStateException.class));
+        assertThat(buffer.getAllocatedBytes()).isZero();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+import ru.spbstu.edu.ezdbc.sql.query.BatchInsertionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.DeletionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+import ru.spbstu.edu.ezdbc.url.Protocol;
+import ru.spbstu.edu.ezdbc.url.URLBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class DialectTests {
+
+    @ParameterizedTest
+    @EnumSource(Protocol.class)
+    void everyProtocolHasDialect(Protocol protocol) {
+        assertThat(Dialect.of(protocol)).isNotNull().isNotEqualTo(Dialect.GENERIC);
+    }
+
+    @Test
+    void rendersLimitClausePerDialect() {
+        assertThat(limitClause(Dialect.POSTGRESQL, 10, 0)).isEqualTo(" LIMIT 10");
+        assertThat(limitClause(Dialect.MYSQL, 10, 20)).isEqualTo(" LIMIT 10 OFFSET 20");
+        assertThat(limitClause(Dialect.ORACLE, 10, 0)).isEqualTo(" FETCH FIRST 10 ROWS ONLY");
+        assertThat(limitClause(Dialect.ORACLE, 10, 20)).isEqualTo(" OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY");
+        assertThat(limitClause(Dialect.SQL_SERVER, 10, 0)).isEqualTo(" OFFSET 0 ROWS FETCH NEXT 10 ROWS ONLY");
+        assertThatIllegalArgumentException().isThrownBy(() -> limitClause(Dialect.GENERIC, 0, 0));
+    }
+
+    @Test
+    void quotesIdentifiers() {
+        assertThat(Dialect.MYSQL.quote("order")).isEqualTo("`order`");
+        assertThat(Dialect.POSTGRESQL.quote("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+        assertThat(Dialect.SQL_SERVER.quote("a]b")).isEqualTo("[a]]b]");
+    }
+
+    @Test
+    void queriesQuoteIdentifiersInTheirDialect() {
+        Identifier order = Identifier.quoted("order");
+        SelectionQuery selection = new SelectionQuery(Identifier.quoted("user"));
+        selection.setSelections(order, new Identifier("id"));
+        DeletionQuery deletion = new DeletionQuery(Identifier.quoted("user"), new BinaryExpression(order, LogicalOperator.EQUAL_TO, new IntLiteral(1)));
+
+        assertThat(selection.toSQLString()).isEqualTo("SELECT \"order\", id FROM \"user\"");
+
+        selection.setDialect(Dialect.MYSQL);
+        deletion.setDialect(Dialect.SQL_SERVER);
+        assertThat(selection.toSQLString()).isEqualTo("SELECT `order`, id FROM `user`");
+        assertThat(deletion.toParameterizedSQL().text()).isEqualTo("DELETE FROM [user] WHERE [order] = ?");
+    }
+
+    @Test
+    void batchInsertionRespectsDialectLimits() {
+        BatchInsertionQuery query = new BatchInsertionQuery("t", List.of(new Identifier("a"), new Identifier("b")));
+
+        query.setDialect(Dialect.SQL_SERVER);
+        assertThat(query.getMode()).isEqualTo(BatchInsertionQuery.Mode.MULTI_ROW_VALUES);
+        assertThat(query.getMaxRowsPerStatement()).isEqualTo(1000);
+
+        query.setDialect(Dialect.ORACLE);
+        assertThat(query.getMode()).isEqualTo(BatchInsertionQuery.Mode.JDBC_BATCH);
+        assertThat(query.getMaxRowsPerStatement()).isEqualTo(1);
+
+        query.setDialect(Dialect.POSTGRESQL);
+        assertThat(query.getMaxRowsPerStatement()).isEqualTo(32_767 / 2);
+    }
+
+    @Test
+    void leavesSQLServerDriverItsOwnParameters() {
+        List<Identifier> columns = List.of(new Identifier("a"), new Identifier("b"), new Identifier("c"));
+        BatchInsertionQuery query = new BatchInsertionQuery("t", columns);
+        query.setDialect(Dialect.SQL_SERVER);
+
+        assertThat(query.getMaxRowsPerStatement() * columns.size()).isLessThanOrEqualTo(2098);
+    }
+
+    @Test
+    void appliesBulkProperties() {
+        URLBuilder builder = Dialect.MYSQL.applyBulkProperties(new URLBuilder(Protocol.MYSQL));
+
+        assertThat(builder.build()).contains("rewriteBatchedStatements=true");
+    }
+
+    private static String limitClause(Dialect dialect, int limit, long offset) {
+        SQLBuilder sb = SQLBuilder.inline(64);
+        dialect.appendLimitClause(sb, limit, offset);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql;
+
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.UnaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+import ru.spbstu.edu.ezdbc.sql.query.BatchInsertionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.DeletionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.FrozenQuery;
+import ru.spbstu.edu.ezdbc.sql.query.InsertionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.SelectionQuery;
+import ru.spbstu.edu.ezdbc.sql.query.UpdateQuery;
+
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class ParameterizedSQLTests {
+
+    private static final Identifier ID = new Identifier("id");
+    private static final Identifier NAME = new Identifier("name");
+
+    @Nested
+    @Order(1)
+    class ExpressionRendering {
+
+        @Test
+        void literalsBecomePlaceholdersInOrder() {
+            IntLiteral one = new IntLiteral(1);
+            StringLiteral bob = new StringLiteral("Bob");
+            BinaryExpression expr = new BinaryExpression(
+                    new BinaryExpression(ID, LogicalOperator.EQUAL_TO, one),
+                    LogicalOperator.OR,
+                    new BinaryExpression(NAME, LogicalOperator.EQUAL_TO, bob)
+            );
+
+            ParameterizedSQL sql = ParameterizedSQL.of(expr);
+
+            assertThat(sql.text()).isEqualTo("(id = ?) OR (name = ?)");
+            assertThat(sql.parameters()).containsExactly(one, bob);
+        }
+
+        @Test
+        void unaryExpressionRendersOperator() {
+            UnaryExpression expr = new UnaryExpression(LogicalOperator.NOT, new BinaryExpression(ID, LogicalOperator.EQUAL_TO, new IntLiteral(1)));
+
+            assertThat(expr.toSQLString()).isEqualTo("NOT (id = 1)");
+            assertThat(ParameterizedSQL.of(expr).text()).isEqualTo("NOT (id = ?)");
+        }
+    }
+
+    @Nested
+    @Order(2)
+    class QueryRendering {
+
+        @Test
+        void selectionQueriesOfSameShapeShareText() {
+            SelectionQuery first = new SelectionQuery("users");
+            first.setFilter(new BinaryExpression(ID, LogicalOperator.EQUAL_TO, new IntLiteral(1)));
+            SelectionQuery second = new SelectionQuery("users");
+            second.setFilter(new BinaryExpression(ID, LogicalOperator.EQUAL_TO, new IntLiteral(2)));
+
+            assertThat(first.toParameterizedSQL().text())
+                    .isEqualTo(second.toParameterizedSQL().text())
+                    .isEqualTo("SELECT * FROM users WHERE id = ?");
+        }
+
+        @Test
+        void insertionQueryBindsValuesInColumnOrder() {
+            Map<Identifier, AbstractLiteral<?>> mappings = new LinkedHashMap<>();
+            mappings.put(ID, new IntLiteral(7));
+            mappings.put(NAME, new StringLiteral("Alice"));
+
+            ParameterizedSQL sql = new InsertionQuery("users", mappings).toParameterizedSQL();
+
+            assertThat(sql.text()).isEqualTo("INSERT INTO users (id, name) VALUES (?, ?)");
+            assertThat(sql.parameters()).containsExactlyElementsOf(mappings.values());
+        }
+
+        @Test
+        void updateQueryBindsAssignmentsBeforeCondition() {
+            StringLiteral name = new StringLiteral("Alice");
+            IntLiteral id = new IntLiteral(7);
+            UpdateQuery query = new UpdateQuery("users", Map.of(NAME, name), new BinaryExpression(ID, LogicalOperator.EQUAL_TO, id));
+
+            ParameterizedSQL sql = query.toParameterizedSQL();
+
+            assertThat(sql.text()).isEqualTo("UPDATE users SET name=? WHERE id = ?");
+            assertThat(sql.parameters()).containsExactly(name, id);
+        }
+
+        @Test
+        void deletionQueryWithoutConditionHasNoParameters() {
+            ParameterizedSQL sql = new DeletionQuery("users").toParameterizedSQL();
+
+            assertThat(sql.text()).isEqualTo("DELETE FROM users");
+            assertThat(sql.parameters()).isEmpty();
+        }
+    }
+
+    @Nested
+    @Order(3)
+    class BatchInsertionRendering {
+
+        @Test
+        void rendersMultiRowValues() {
+            BatchInsertionQuery query = new BatchInsertionQuery("users", List.of(ID, NAME))
+                    .addRow(new IntLiteral(1), new StringLiteral("Alice"))
+                    .addRow(new IntLiteral(2), new StringLiteral("Bob"));
+
+            assertThat(query.toSQLString()).isEqualTo("INSERT INTO users (id, name) VALUES (1, 'Alice'), (2, 'Bob')");
+            assertThat(query.toParameterizedSQL().text()).isEqualTo("INSERT INTO users (id, name) VALUES (?, ?), (?, ?)");
+            assertThat(query.toParameterizedSQL().parameters()).hasSize(4);
+        }
+
+        @Test
+        void rejectsRowsOfWrongWidth() {
+            BatchInsertionQuery query = new BatchInsertionQuery("users", List.of(ID, NAME));
+
+            assertThatIllegalArgumentException().isThrownBy(() -> query.addRow(new IntLiteral(1)));
+        }
+
+        @Test
+        void fitsRowsUnderParameterLimit() {
+            BatchInsertionQuery query = new BatchInsertionQuery("users", List.of(ID, NAME));
+            query.setMaxParameters(7);
+
+            assertThat(query.getMaxRowsPerStatement()).isEqualTo(3);
+            assertThatIllegalArgumentException().isThrownBy(() -> query.setMaxParameters(1));
+        }
+    }
+
+    @Nested
+    @Order(4)
+    class Freezing {
+
+        @Test
+        void frozenQueryIgnoresLaterChanges() {
+            IntLiteral one = new IntLiteral(1);
+            SelectionQuery query = new SelectionQuery("users");
+            query.setFilter(new BinaryExpression(ID, LogicalOperator.EQUAL_TO, one));
+
+            FrozenQuery<ResultSet> frozen = query.freeze();
+            query.setFilter(null);
+            query.setTableIdentifier(new Identifier("accounts"));
+
+            assertThat(frozen.getParameterizedSQL().text()).isEqualTo("SELECT * FROM users WHERE id = ?");
+            assertThat(frozen.getParameterizedSQL().parameters()).containsExactly(one);
+        }
+
+        @Test
+        void reboundQueryKeepsShape() {
+            SelectionQuery query = new SelectionQuery("users");
+            query.setFilter(new BinaryExpression(ID, LogicalOperator.EQUAL_TO, new IntLiteral(1)));
+            FrozenQuery<ResultSet> frozen = query.freeze();
+
+            IntLiteral two = new IntLiteral(2);
+            FrozenQuery<ResultSet> rebound = frozen.withParameters(two);
+
+            assertThat(rebound.getParameterizedSQL().text()).isEqualTo(frozen.getParameterizedSQL().text());
+            assertThat(rebound.getParameterizedSQL().parameters()).containsExactly(two);
+            assertThatIllegalArgumentException().isThrownBy(() -> frozen.withParameters(two, two));
+        }
+    }
+}
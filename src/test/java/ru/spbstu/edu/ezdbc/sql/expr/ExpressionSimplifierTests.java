@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.AND;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.EQUAL_TO;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.GREATER_THAN;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.LESS_THAN;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.NOT;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.NOT_EQUAL_TO;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.OR;
+
+class ExpressionSimplifierTests {
+
+    private static final Identifier ID = new Identifier("id");
+    private static final Identifier NAME = new Identifier("name");
+
+    @Test
+    void removesDoubleNegationAndInvertsComparisons() {
+        Expression expr = new UnaryExpression(NOT, new UnaryExpression(NOT, new BinaryExpression(ID, EQUAL_TO, new IntLiteral(1))));
+        assertThat(simplified(expr)).isEqualTo("id = 1");
+
+        assertThat(simplified(new UnaryExpression(NOT, new BinaryExpression(ID, LESS_THAN, new IntLiteral(1))))).isEqualTo("id >= 1");
+    }
+
+    @Test
+    void foldsLiteralComparisons() {
+        Expression alwaysTrue = new BinaryExpression(new IntLiteral(1), LESS_THAN, new IntLiteral(2));
+        Expression filter = new BinaryExpression(alwaysTrue, AND, new BinaryExpression(NAME, EQUAL_TO, new StringLiteral("Bob")));
+
+        assertThat(simplified(filter)).isEqualTo("name = 'Bob'");
+        assertThat(ExpressionSimplifier.simplify(new BinaryExpression(filter, AND, new UnaryExpression(NOT, alwaysTrue))))
+                .isEqualTo(BooleanConstant.FALSE);
+        assertThat(ExpressionSimplifier.simplify(new BinaryExpression(new StringLiteral("a"), EQUAL_TO, new StringLiteral("A"))))
+                .isInstanceOf(BinaryExpression.class); /* Collation-dependent */
+    }
+
+    @Test
+    void movesLiteralsToTheRight() {
+        assertThat(simplified(new BinaryExpression(new IntLiteral(5), LESS_THAN, ID))).isEqualTo("id > 5");
+    }
+
+    @Test
+    void flattensDeduplicatesAndOrdersJunctions() {
+        Expression a = new BinaryExpression(NAME, EQUAL_TO, new StringLiteral("Bob"));
+        Expression b = new BinaryExpression(ID, GREATER_THAN, new IntLiteral(3));
+        Expression first = new BinaryExpression(new BinaryExpression(a, AND, b), AND, a);
+        Expression second = new BinaryExpression(b, AND, a);
+
+        assertThat(ParameterizedSQL.of(ExpressionSimplifier.simplify(first)))
+                .isEqualTo(ParameterizedSQL.of(ExpressionSimplifier.simplify(second)));
+        assertThat(simplified(first)).isEqualTo("(id > 3) AND (name = 'Bob')");
+    }
+
+    @Test
+    void mergesEqualitiesIntoInList() {
+        Expression expr = chain(OR, 2000);
+
+        assertThat(simplified(expr)).startsWith("id IN (0, 1, 2, ").endsWith(", 1999)");
+    }
+
+    @Test
+    void keepsUnrelatedDisjuncts() {
+        Expression expr = new BinaryExpression(
+                new BinaryExpression(new BinaryExpression(ID, EQUAL_TO, new IntLiteral(1)), OR, new BinaryExpression(NAME, EQUAL_TO, new StringLiteral("x"))),
+                OR,
+                new BinaryExpression(ID, EQUAL_TO, new IntLiteral(1)));
+
+        assertThat(simplified(expr)).isEqualTo("(id = 1) OR (name = 'x')");
+    }
+
+    @Test
+    void simplifiesDeepTreesWithoutRecursion() {
+        Expression expr = ID;
+        for (int i = 0; i < 100_000; i++) {
+            expr = new UnaryExpression(NOT, new BinaryExpression(expr, EQUAL_TO, NAME));
+        }
+
+        Expression simplified = ExpressionSimplifier.simplify(expr);
+        assertThat(simplified).isInstanceOfSatisfying(BinaryExpression.class, binary -> assertThat(binary.operator()).isEqualTo(NOT_EQUAL_TO));
+        assertThat(simplified.toSQLString()).startsWith("(".repeat(99_999) + "id <> name) <> name)");
+    }
+
+    private static Expression chain(LogicalOperator operator, int length) {
+        Expression expr = new BinaryExpression(ID, EQUAL_TO, new IntLiteral(0));
+        for (int i = 1; i < length; i++) {
+            expr = new BinaryExpression(expr, operator, new BinaryExpression(ID, EQUAL_TO, new IntLiteral(i)));
+        }
+        return expr;
+    }
+
+    private static String simplified(Expression expr) {
+        return ExpressionSimplifier.simplify(expr).toSQLString();
+    }
+}
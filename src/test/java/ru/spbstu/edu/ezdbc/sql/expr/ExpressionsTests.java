@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.AbstractLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveIntLiteral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.AND;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.EQUAL_TO;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.NOT;
+import static ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator.OR;
+
+class ExpressionsTests {
+
+    private static final Identifier ID = new Identifier("id");
+
+    @Test
+    void rendersCompoundExpressionsFlat() {
+        Expression a = new BinaryExpression(ID, EQUAL_TO, PrimitiveIntLiteral.of(1));
+        Expression b = new BinaryExpression(ID, EQUAL_TO, PrimitiveIntLiteral.of(2));
+        Expression c = new UnaryExpression(NOT, new Identifier("deleted"));
+
+        CompoundExpression expr = CompoundExpression.and(CompoundExpression.or(a, b), new BinaryExpression(c, AND, a));
+
+        assertThat(expr.operands()).hasSize(3);
+        assertThat(expr.toSQLString()).isEqualTo("((id = 1) OR (id = 2)) AND (NOT deleted) AND (id = 1)");
+        assertThat(ParameterizedSQL.of(expr).parameters()).hasSize(3);
+        assertThatIllegalArgumentException().isThrownBy(() -> new CompoundExpression(EQUAL_TO, List.of(a)));
+    }
+
+    @Test
+    void rendersDeepTreesWithoutRecursion() {
+        Expression expr = equality(0);
+        for (int i = 1; i < 100_000; i++) {
+            expr = new BinaryExpression(expr, OR, equality(i));
+        }
+
+        String sql = expr.toSQLString();
+        assertThat(sql).startsWith("(".repeat(99_998) + "(id = 0) OR (id = 1)").endsWith("OR (id = 99999)");
+        assertThat(expr.estimateSQLLength()).isGreaterThanOrEqualTo(sql.length());
+    }
+
+    @Test
+    void foldsBottomUp() {
+        Expression expr = CompoundExpression.or(
+                equality(1),
+                new UnaryExpression(NOT, new InExpression(ID, List.of(PrimitiveIntLiteral.of(2), PrimitiveIntLiteral.of(3)))));
+
+        int literals = Expressions.fold(expr, new ExpressionVisitor<Integer>() {
+            @Override
+            public Integer visitLeaf(Expression leaf) {
+                return (leaf instanceof AbstractLiteral<?>) ? 1 : 0;
+            }
+
+            @Override
+            public Integer visitUnary(UnaryExpression unary, Integer operand) {
+                return operand;
+            }
+
+            @Override
+            public Integer visitBinary(BinaryExpression binary, Integer lhs, Integer rhs) {
+                return lhs + rhs;
+            }
+
+            @Override
+            public Integer visitCompound(CompoundExpression compound, List<Integer> operands) {
+                return operands.stream().mapToInt(Integer::intValue).sum();
+            }
+
+            @Override
+            public Integer visitIn(InExpression in, Integer operand) {
+                return operand + in.values().size();
+            }
+
+            @Override
+            public Integer visitAny(AnyExpression any, Integer operand) {
+                return operand + 1;
+            }
+        });
+
+        assertThat(literals).isEqualTo(3);
+    }
+
+    @Test
+    void passesNullOperandResultsToCompoundVisit() {
+        Expression expr = CompoundExpression.and(equality(1), equality(2));
+
+        List<Object> seen = Expressions.fold(expr, new ExpressionVisitor<List<Object>>() {
+            @Override
+            public List<Object> visitLeaf(Expression leaf) {
+                return null;
+            }
+
+            @Override
+            public List<Object> visitUnary(UnaryExpression unary, List<Object> operand) {
+                return null;
+            }
+
+            @Override
+            public List<Object> visitBinary(BinaryExpression binary, List<Object> lhs, List<Object> rhs) {
+                return null;
+            }
+
+            @Override
+            public List<Object> visitCompound(CompoundExpression compound, List<List<Object>> operands) {
+                return Collections.unmodifiableList(new ArrayList<>(operands));
+            }
+
+            @Override
+            public List<Object> visitIn(InExpression in, List<Object> operand) {
+                return null;
+            }
+
+            @Override
+            public List<Object> visitAny(AnyExpression any, List<Object> operand) {
+                return null;
+            }
+        });
+
+        assertThat(seen).containsExactly(null, null);
+    }
+
+    private static Expression equality(int value) {
+        return new BinaryExpression(ID, EQUAL_TO, PrimitiveIntLiteral.of(value));
+    }
+}
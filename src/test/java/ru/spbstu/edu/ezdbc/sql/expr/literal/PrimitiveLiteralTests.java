@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.expr.literal;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrimitiveLiteralTests {
+
+    @Test
+    void cachesSmallValues() {
+        assertThat(PrimitiveIntLiteral.of(42)).isSameAs(PrimitiveIntLiteral.of(42));
+        assertThat(PrimitiveLongLiteral.of(-1)).isSameAs(PrimitiveLongLiteral.of(-1));
+        assertThat(PrimitiveIntLiteral.of(1 << 20)).isNotSameAs(PrimitiveIntLiteral.of(1 << 20)).isEqualTo(PrimitiveIntLiteral.of(1 << 20));
+        assertThat(PrimitiveDoubleLiteral.of(-0.0)).isNotSameAs(PrimitiveDoubleLiteral.of(0.0));
+        assertThat(BooleanLiteral.of(true)).isSameAs(BooleanLiteral.TRUE);
+    }
+
+    @Test
+    void rendersLikeBoxedCounterparts() {
+        assertThat(PrimitiveIntLiteral.of(-7).toSQLString()).isEqualTo(new IntLiteral(-7).toSQLString());
+        assertThat(PrimitiveLongLiteral.of(Long.MIN_VALUE).toSQLString()).isEqualTo(new LongLiteral(Long.MIN_VALUE).toSQLString());
+        assertThat(PrimitiveDoubleLiteral.of(2.5).toSQLString()).isEqualTo(new DoubleLiteral(2.5).toSQLString());
+        assertThat(BooleanLiteral.FALSE.toSQLString()).isEqualTo("FALSE");
+
+        BinaryExpression expr = new BinaryExpression(new Identifier("id"), LogicalOperator.EQUAL_TO, PrimitiveLongLiteral.of(5));
+        assertThat(ParameterizedSQL.of(expr).text()).isEqualTo("id = ?");
+    }
+
+    @Test
+    void comparesAndPrintsLikeBoxedValues() {
+        assertThat(PrimitiveLongLiteral.of(1L << 40))
+                .isEqualTo(PrimitiveLongLiteral.of(1L << 40))
+                .isNotEqualTo(PrimitiveIntLiteral.of(0))
+                .hasSameHashCodeAs(PrimitiveLongLiteral.of(1L << 40))
+                .hasToString("PrimitiveLongLiteral[value=1099511627776]");
+        assertThat(PrimitiveDoubleLiteral.of(Double.NaN)).isEqualTo(PrimitiveDoubleLiteral.of(Double.NaN));
+        assertThat(PrimitiveDoubleLiteral.of(-0.0)).isNotEqualTo(PrimitiveDoubleLiteral.of(0.0));
+        assertThat(BooleanLiteral.TRUE).isNotEqualTo(BooleanLiteral.FALSE).hasToString("BooleanLiteral[value=true]");
+    }
+
+    @Test
+    void bindsWithTypedSetters() throws Exception {
+        List<String> calls = new ArrayList<>();
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> {
+            calls.add(method + ":" + args[1]);
+            return null;
+        });
+
+        PrimitiveIntLiteral.of(1).bind(statement, 1);
+        PrimitiveLongLiteral.of(2).bind(statement, 2);
+        PrimitiveDoubleLiteral.of(3.5).bind(statement, 3);
+        BooleanLiteral.TRUE.bind(statement, 4);
+
+        assertThat(calls).containsExactly("setInt:1", "setLong:2", "setDouble:3.5", "setBoolean:true");
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.PrimitiveIntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class BatchInsertionQueryTests {
+
+    private static final List<Identifier> COLUMNS = List.of(new Identifier("id"), new Identifier("name"));
+
+    private final List<String> prepared = new ArrayList<>();
+    private final List<String> executions = new ArrayList<>(); /* "<statement number>:<rows>" per execution */
+    private int closeCount;
+
+    @Test
+    void rejectsEmptyColumnList() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new BatchInsertionQuery("users", List.of()));
+    }
+
+    @Test
+    void sendsJDBCBatchesOfBatchSizeOverOneStatement() throws SQLException {
+        BatchInsertionQuery query = queryWithRows(5);
+        query.setMode(BatchInsertionQuery.Mode.JDBC_BATCH);
+        query.setBatchSize(2);
+
+        int[] counts = query.executePrepared(fakeConnection());
+
+        assertThat(prepared).containsExactly("INSERT INTO users (id, name) VALUES (?, ?)");
+        assertThat(executions).containsExactly("1:2", "1:2", "1:1");
+        assertThat(counts).containsExactly(1, 1, 1, 1, 1);
+        assertThat(closeCount).isEqualTo(1);
+    }
+
+    @Test
+    void sharesFullChunkStatementAndPreparesTrailingChunkSeparately() throws SQLException {
+        BatchInsertionQuery query = queryWithRows(5);
+        query.setMode(BatchInsertionQuery.Mode.MULTI_ROW_VALUES);
+        query.setMaxParameters(4);
+
+        int[] counts = query.executePrepared(fakeConnection());
+
+        assertThat(query.getMaxRowsPerStatement()).isEqualTo(2);
+        assertThat(prepared).containsExactly(
+                "INSERT INTO users (id, name) VALUES (?, ?), (?, ?)",
+                "INSERT INTO users (id, name) VALUES (?, ?)"
+        );
+        assertThat(executions).containsExactly("1:2", "1:2", "2:1");
+        assertThat(counts).containsExactly(1, 1, 1, 1, 1);
+        assertThat(closeCount).isEqualTo(2);
+    }
+
+    @Test
+    void capsParameterLimitAtDialect() {
+        BatchInsertionQuery query = queryWithRows(1);
+        query.setDialect(Dialect.SQL_SERVER);
+
+        query.setMaxParameters(10_000);
+        assertThat(query.getMaxParameters()).isEqualTo(Dialect.SQL_SERVER.getMaxBindParameters());
+
+        query.setMaxParameters(100);
+        assertThat(query.getMaxParameters()).isEqualTo(100);
+    }
+
+    @Test
+    void keepsCountsWithinBatchWhenDriverMiscounts() throws SQLException {
+        BatchInsertionQuery query = queryWithRows(5);
+        query.setBatchSize(2);
+        int[][] reported = {{1, 1, 1}, {}, {1}};
+        int[] executed = {0};
+        Statement statement = FakeJdbc.statement((method, args) -> method.equals("executeBatch") ? reported[executed[0]++] : null);
+
+        int[] counts = query.execute(statement);
+
+        assertThat(counts).containsExactly(1, 1, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, 1);
+    }
+
+    private static BatchInsertionQuery queryWithRows(int rowCount) {
+        BatchInsertionQuery query = new BatchInsertionQuery("users", COLUMNS);
+        for (int i = 1; i <= rowCount; i++) {
+            query.addRow(PrimitiveIntLiteral.of(i), new StringLiteral("user" + i));
+        }
+        return query;
+    }
+
+    // Every statement counts the rows bound to it (one per COLUMNS.size() parameters), and reports one inserted row for each
+    private Connection fakeConnection() {
+        return FakeJdbc.connection((method, args) -> {
+            if (!method.equals("prepareStatement")) {
+                return null;
+            }
+            prepared.add((String) args[0]);
+            int statementNumber = prepared.size();
+            int[] bound = {0};
+            List<Integer> batch = new ArrayList<>();
+
+            return FakeJdbc.preparedStatement((name, a) -> {
+                if (name.startsWith("set") && a.length >= 2 && a[0] instanceof Integer) {
+                    bound[0]++;
+                    return null;
+                }
+                return switch (name) {
+                    case "clearParameters" -> {
+                        bound[0] = 0;
+                        yield null;
+                    }
+                    case "executeUpdate" -> {
+                        int rows = bound[0] / COLUMNS.size();
+                        executions.add(statementNumber + ":" + rows);
+                        yield rows;
+                    }
+                    case "addBatch" -> {
+                        batch.add(bound[0] / COLUMNS.size());
+                        bound[0] = 0;
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        executions.add(statementNumber + ":" + batch.size());
+                        int[] counts = batch.stream().mapToInt(Integer::intValue).toArray();
+                        batch.clear();
+                        yield counts;
+                    }
+                    case "close" -> {
+                        closeCount++;
+                        yield null;
+                    }
+                    default -> null;
+                };
+            });
+        });
+    }
+}
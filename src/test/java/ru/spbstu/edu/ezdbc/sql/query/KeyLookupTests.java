@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.ParameterizedSQL;
+import ru.spbstu.edu.ezdbc.sql.expr.BinaryExpression;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.LongArrayLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.op.LogicalOperator;
+
+import javax.sql.DataSource;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyLookupTests {
+
+    private static final Identifier ID = new Identifier("id");
+
+    @Test
+    void bindsSingleArrayOnPostgreSQL() {
+        List<ParameterizedSQL> statements = lookup(Dialect.POSTGRESQL).toParameterizedSQL(new long[]{3, 1, 2, 3});
+
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0).text()).isEqualTo("SELECT * FROM users WHERE (status = ?) AND (id = ANY(?))");
+        assertThat(statements.get(0).parameters().get(1))
+                .isEqualTo(new LongArrayLiteral(new long[]{1, 2, 3}))
+                .hasSameHashCodeAs(new LongArrayLiteral(new long[]{1, 2, 3}))
+                .hasToString("LongArrayLiteral[value=[1, 2, 3]]");
+    }
+
+    @Test
+    void freesBoundArray() throws SQLException {
+        List<String> calls = new ArrayList<>();
+
+        Array array = FakeJdbc.proxy(Array.class, (method, args) -> {
+            calls.add(method);
+            return null;
+        });
+        Connection connection = FakeJdbc.connection((method, args) -> method.equals("createArrayOf") ? array : null);
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> {
+            if (method.equals("getConnection")) {
+                return connection;
+            }
+            calls.add(method);
+            return null;
+        });
+
+        new LongArrayLiteral(new long[]{1, 2}).bind(statement, 1);
+
+        assertThat(calls).containsExactly("setArray", "free");
+    }
+
+    @Test
+    void padsInListToPowerOfTwo() {
+        List<ParameterizedSQL> statements = lookup(Dialect.MYSQL).toParameterizedSQL(new long[]{5, 6, 7});
+
+        assertThat(statements).singleElement().satisfies(sql -> {
+            assertThat(sql.text()).isEqualTo("SELECT * FROM users WHERE (status = ?) AND (id IN (?, ?, ?, ?))");
+            assertThat(sql.parameters()).hasSize(5);
+        });
+    }
+
+    @Test
+    void splitsUnderParameterLimit() {
+        KeyLookup<Long> lookup = lookup(Dialect.SQL_SERVER);
+        List<ParameterizedSQL> statements = lookup.toParameterizedSQL(LongStream.range(0, 5000).toArray());
+
+        assertThat(lookup.getMaxKeysPerStatement()).isEqualTo(2097);
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0).text()).isEqualTo(statements.get(1).text());
+        assertThat(statements.get(2).parameters()).hasSize(1 + 1024); /* 806 keys padded */
+    }
+
+    @Test
+    void keepsInListsWithinOracleLimit() {
+        KeyLookup<Long> lookup = lookup(Dialect.ORACLE);
+        List<ParameterizedSQL> statements = lookup.toParameterizedSQL(LongStream.range(0, 2500).toArray());
+
+        assertThat(lookup.getMaxKeysPerStatement()).isEqualTo(1000);
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0).parameters()).hasSize(1 + 1000);
+        assertThat(statements.get(2).parameters()).hasSize(1 + 512); /* 500 keys padded */
+    }
+
+    @Test
+    void fetchesChunksInParallel() throws Exception {
+        AtomicInteger connections = new AtomicInteger();
+        List<String> prepared = Collections.synchronizedList(new ArrayList<>());
+        DataSource dataSource = fakeDataSource(connections, prepared);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Long> rows = lookup(Dialect.SQL_SERVER).fetchAsync(dataSource, executor, LongStream.range(0, 5000).toArray()).get();
+
+            assertThat(rows).containsExactly(1L, 1L, 1L);
+            assertThat(connections).hasValue(3);
+            assertThat(prepared).hasSize(3);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static KeyLookup<Long> lookup(Dialect dialect) {
+        SelectionQuery query = new SelectionQuery("users");
+        query.setFilter(new BinaryExpression(new Identifier("status"), LogicalOperator.EQUAL_TO, new StringLiteral("active")));
+        return new KeyLookup<>(query, ID, dialect, rs -> rs.getLong(1));
+    }
+
+    private static DataSource fakeDataSource(AtomicInteger connections, List<String> prepared) {
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> method.equals("executeQuery")
+                ? FakeResultSets.of(List.of("id"), List.of(List.of(1L)))
+                : null);
+        Connection connection = FakeJdbc.connection(statement, prepared);
+
+        return FakeJdbc.dataSource((method, args) -> {
+            if (method.equals("getConnection")) {
+                connections.incrementAndGet();
+                return connection;
+            }
+            return null;
+        });
+    }
+}
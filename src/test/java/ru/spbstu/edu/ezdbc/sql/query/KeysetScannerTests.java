@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.rs.FakeResultSets;
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.ObjectLiteral;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeysetScannerTests {
+
+    private static final Identifier ID = new Identifier("id");
+
+    private final List<String> prepared = new ArrayList<>();
+    private final List<List<Object>> bindings = new ArrayList<>();
+
+    @Test
+    void scansLongKeysInChunks() {
+        List<List<Object>> rows = List.of(List.of(1L), List.of(2L), List.of(3L), List.of(4L), List.of(5L));
+        KeysetScanner<Long> scanner = new KeysetScanner<>(new SelectionQuery("orders"), ID, 2, Dialect.POSTGRESQL, rs -> rs.getLong(1));
+
+        try (Stream<List<Long>> chunks = scanner.stream(fakeConnection(rows, Types.BIGINT))) {
+            assertThat(chunks).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        }
+
+        assertThat(prepared).containsExactly(
+                "SELECT * FROM orders ORDER BY id LIMIT 2",
+                "SELECT * FROM orders WHERE id > ? ORDER BY id LIMIT 2");
+        assertThat(bindings).containsExactly(List.of(), List.of(2L), List.of(4L));
+    }
+
+    @Test
+    void bindsKeysWithoutDedicatedLiteralViaSetObject() throws SQLException {
+        List<List<Object>> rows = List.of(List.of(new BigDecimal("10")), List.of(new BigDecimal("20")), List.of(new BigDecimal("30")));
+        KeysetScanner<BigDecimal> scanner = new KeysetScanner<>(new SelectionQuery("orders"), ID, 2, Dialect.ORACLE, rs -> rs.getBigDecimal(1));
+        List<List<BigDecimal>> chunks = new ArrayList<>();
+
+        scanner.forEachChunk(fakeConnection(rows, Types.NUMERIC), chunks::add);
+
+        assertThat(chunks).containsExactly(List.of(new BigDecimal("10"), new BigDecimal("20")), List.of(new BigDecimal("30")));
+        assertThat(bindings.get(1)).containsExactly(new BigDecimal("20"), Types.NUMERIC);
+        assertThat(scanner.getLastKey()).isEqualTo(new ObjectLiteral(new BigDecimal("30"), Types.NUMERIC));
+    }
+
+    // Serves the rows after the bound key (or from the start), at most LIMIT of them, and records every setX call per execution
+    private Connection fakeConnection(List<List<Object>> rows, int keyType) {
+        List<Object> current = new ArrayList<>();
+
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> {
+            if (method.startsWith("set")) {
+                current.addAll(List.of(args).subList(1, args.length));
+                return null;
+            }
+            return switch (method) {
+                case "clearParameters" -> {
+                    current.clear();
+                    yield null;
+                }
+                case "executeQuery" -> {
+                    bindings.add(List.copyOf(current));
+                    String text = prepared.get(prepared.size() - 1);
+                    int limit = Integer.parseInt(text.replaceAll("\\D+$", "").replaceAll(".*\\D", ""));
+                    int start = current.isEmpty() ? 0 : indexAfter(rows, current.get(0));
+                    yield FakeResultSets.of(List.of("id"), List.of(keyType), rows.subList(start, Math.min(start + limit, rows.size())));
+                }
+                default -> null;
+            };
+        });
+        return FakeJdbc.connection(statement, prepared);
+    }
+
+    private static int indexAfter(List<List<Object>> rows, Object key) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).get(0).equals(key)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalStateException("Unknown key " + key);
+    }
+}
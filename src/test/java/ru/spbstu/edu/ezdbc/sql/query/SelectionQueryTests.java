@@ -0,0 +1,113 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.util.UncheckedSQLException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class SelectionQueryTests {
+
+    private static final int ROW_COUNT = 5;
+
+    private final List<String> closed = new ArrayList<>();
+
+    @Test
+    void closesResultSetAndStatementWhenClosedEarly() throws SQLException {
+        try (Stream<Integer> stream = new SelectionQuery("users").stream(fakeConnection(-1), rs -> rs.getInt(1))) {
+            assertThat(stream.findFirst()).contains(1);
+            assertThat(closed).isEmpty();
+        }
+
+        assertThat(closed).containsExactly("ResultSet", "PreparedStatement");
+    }
+
+    @Test
+    void closesConnectionLastIfRequested() throws SQLException {
+        try (Stream<Integer> stream = new SelectionQuery("users").stream(fakeConnection(-1), rs -> rs.getInt(1), 2, true)) {
+            assertThat(stream).containsExactly(1, 2, 3, 4, 5);
+        }
+
+        assertThat(closed).containsExactly("ResultSet", "PreparedStatement", "Connection");
+    }
+
+    @Test
+    void rethrowsFailureMidStreamAndStillCloses() throws SQLException {
+        try (Stream<Integer> stream = new SelectionQuery("users").stream(fakeConnection(3), rs -> rs.getInt(1), 2, true)) {
+            Iterator<Integer> iterator = stream.iterator();
+            assertThat(iterator.next()).isEqualTo(1);
+            assertThat(iterator.next()).isEqualTo(2);
+            assertThatExceptionOfType(UncheckedSQLException.class)
+                    .isThrownBy(iterator::next)
+                    .withCauseInstanceOf(SQLException.class);
+        }
+
+        assertThat(closed).containsExactly("ResultSet", "PreparedStatement", "Connection");
+    }
+
+    // Serves ids 1..ROW_COUNT, failing on moving to the provided (1-based) row, if any
+    private Connection fakeConnection(int failingRow) {
+        int[] cursor = {0};
+        ResultSet rs = FakeJdbc.resultSet((method, args) -> switch (method) {
+            case "next" -> {
+                if (++cursor[0] == failingRow) {
+                    throw new SQLException("Connection reset");
+                }
+                yield cursor[0] <= ROW_COUNT;
+            }
+            case "getInt" -> cursor[0];
+            case "close" -> close("ResultSet");
+            default -> null;
+        });
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> switch (method) {
+            case "executeQuery" -> rs;
+            case "close" -> close("PreparedStatement");
+            default -> null;
+        });
+        return FakeJdbc.connection((method, args) -> switch (method) {
+            case "prepareStatement" -> statement;
+            case "close" -> close("Connection");
+            default -> null;
+        });
+    }
+
+    private Object close(String resource) {
+        closed.add(resource);
+        return null;
+    }
+}
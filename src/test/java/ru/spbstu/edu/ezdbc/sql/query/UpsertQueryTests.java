@@ -0,0 +1,160 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2022 Maxim Altoukhov
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ */
+
+package ru.spbstu.edu.ezdbc.sql.query;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.edu.ezdbc.rs.FakeJdbc;
+import ru.spbstu.edu.ezdbc.sql.Dialect;
+import ru.spbstu.edu.ezdbc.sql.expr.id.Identifier;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.IntLiteral;
+import ru.spbstu.edu.ezdbc.sql.expr.literal.StringLiteral;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class UpsertQueryTests {
+
+    private static final Identifier ID = new Identifier("id");
+    private static final Identifier NAME = new Identifier("name");
+
+    @Test
+    void rendersOnConflictForPostgreSQL() {
+        UpsertQuery query = twoRows(Dialect.POSTGRESQL);
+
+        assertThat(query.toParameterizedSQL().text())
+                .isEqualTo("INSERT INTO users (id, name) VALUES (?, ?), (?, ?) ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name");
+        assertThat(query.toParameterizedSQL().parameters()).hasSize(4);
+    }
+
+    @Test
+    void rendersOnDuplicateKeyForMySQL() {
+        assertThat(twoRows(Dialect.MYSQL).toSQLString())
+                .isEqualTo("INSERT INTO users (id, name) VALUES (1, 'Alice'), (2, 'Bob') ON DUPLICATE KEY UPDATE name = VALUES(name)");
+    }
+
+    @Test
+    void rendersMergeForSQLServer() {
+        assertThat(twoRows(Dialect.SQL_SERVER).toParameterizedSQL().text()).isEqualTo(
+                "MERGE INTO users USING (VALUES (?, ?), (?, ?)) AS src (id, name) ON (users.id = src.id)"
+                        + " WHEN MATCHED THEN UPDATE SET name = src.name"
+                        + " WHEN NOT MATCHED THEN INSERT (id, name) VALUES (src.id, src.name);");
+    }
+
+    @Test
+    void rendersMergeFromDualForOracle() {
+        assertThat(twoRows(Dialect.ORACLE).toParameterizedSQL().text()).isEqualTo(
+                "MERGE INTO users USING (SELECT ? AS id, ? AS name FROM dual UNION ALL SELECT ?, ? FROM dual) src ON (users.id = src.id)"
+                        + " WHEN MATCHED THEN UPDATE SET name = src.name"
+                        + " WHEN NOT MATCHED THEN INSERT (id, name) VALUES (src.id, src.name)");
+    }
+
+    @Test
+    void insertsOnlyWithoutUpdateColumns() {
+        UpsertQuery query = twoRows(Dialect.POSTGRESQL);
+        query.setUpdateColumns(List.of());
+
+        assertThat(query.toParameterizedSQL().text()).endsWith("ON CONFLICT (id) DO NOTHING");
+
+        query.setDialect(Dialect.GENERIC);
+        assertThat(query.toParameterizedSQL().text()).isEqualTo(
+                "MERGE INTO users USING (VALUES (?, ?), (?, ?)) AS src (id, name) ON (users.id = src.id)"
+                        + " WHEN NOT MATCHED THEN INSERT (id, name) VALUES (src.id, src.name)");
+    }
+
+    @Test
+    void insertsMissingRowsWithoutMergeForRedshiftWithoutUpdateColumns() {
+        UpsertQuery query = twoRows(Dialect.REDSHIFT);
+        assertThat(query.toParameterizedSQL().text()).contains(" WHEN MATCHED THEN UPDATE SET name = src.name");
+
+        query.setUpdateColumns(List.of());
+        assertThat(query.toParameterizedSQL().text()).isEqualTo(
+                "INSERT INTO users (id, name) SELECT src.id, src.name FROM (SELECT ? AS id, ? AS name UNION ALL SELECT ?, ?) src"
+                        + " WHERE NOT EXISTS (SELECT 1 FROM users WHERE users.id = src.id)");
+    }
+
+    @Test
+    void rejectsInvalidColumns() {
+        assertThatIllegalArgumentException().isThrownBy(() -> new UpsertQuery("users", List.of(NAME), List.of(ID), Dialect.MYSQL));
+        assertThatIllegalArgumentException().isThrownBy(() -> new UpsertQuery("users", List.of(ID, NAME), List.of(), Dialect.MYSQL));
+        assertThatIllegalArgumentException().isThrownBy(() -> twoRows(Dialect.MYSQL).setUpdateColumns(List.of(ID)));
+    }
+
+    @Test
+    void rejectsRowsWiderThanParameterLimit() {
+        List<Identifier> columns = new ArrayList<>();
+        for (int i = 0; i <= Dialect.SQL_SERVER.getMaxBindParameters(); i++) {
+            columns.add(new Identifier("c" + i));
+        }
+
+        assertThatIllegalArgumentException().isThrownBy(() -> new UpsertQuery("wide", columns, columns.subList(0, 1), Dialect.SQL_SERVER));
+        assertThatIllegalArgumentException().isThrownBy(() -> new UpsertQuery("wide", columns, columns.subList(0, 1), Dialect.MYSQL)
+                .setDialect(Dialect.SQL_SERVER));
+    }
+
+    @Test
+    void splitsRowsByParameterLimit() throws SQLException {
+        UpsertQuery query = new UpsertQuery("users", List.of(ID, NAME), List.of(ID), Dialect.SQL_SERVER);
+        for (int i = 0; i < 2500; i++) {
+            query.addRow(new IntLiteral(i), new StringLiteral("user" + i));
+        }
+        List<String> prepared = new ArrayList<>();
+
+        int total = query.executePrepared(fakeConnection(prepared));
+
+        assertThat(query.getMaxRowsPerStatement()).isEqualTo(1000);
+        assertThat(total).isEqualTo(2500);
+        assertThat(prepared).hasSize(2); /* Two full chunks share a statement, the remaining 500 rows get their own */
+    }
+
+    private static UpsertQuery twoRows(Dialect dialect) {
+        return new UpsertQuery("users", List.of(ID, NAME), List.of(ID), dialect)
+                .addRow(new IntLiteral(1), new StringLiteral("Alice"))
+                .addRow(new IntLiteral(2), new StringLiteral("Bob"));
+    }
+
+    private static Connection fakeConnection(List<String> prepared) {
+        int[] bound = {0};
+        PreparedStatement statement = FakeJdbc.preparedStatement((method, args) -> {
+            if (method.startsWith("set")) {
+                bound[0]++;
+                return null;
+            }
+            if (method.equals("executeUpdate")) {
+                int rows = bound[0] / 2;
+                bound[0] = 0;
+                return rows;
+            }
+            return null;
+        });
+        return FakeJdbc.connection(statement, prepared);
+    }
+}
@@ -282,4 +282,24 @@ class URLBuilderTests {
             return Stream.of(arg1, arg2, arg3, arg4, arg5);
         }
     }
+
+    @Nested
+    @Order(3)
+    class Copying {
+
+        @Test
+        void copyIsEqualButIndependent() {
+            URLBuilder original = new URLBuilder(Protocol.POSTGRESQL)
+                    .addHosts(new Host("example.org"), new Host("example.com"))
+                    .setSchemaName("test_db")
+                    .setProperty("ssl", true);
+
+            URLBuilder copy = original.copy();
+            assertThat(copy).isEqualTo(original);
+
+            copy.clearHosts().addHost(new Host("example.net"));
+            assertThat(copy.build()).isEqualTo("jdbc:postgresql://example.net/test_db?ssl=true");
+            assertThat(original.getHosts()).containsExactly(new Host("example.org"), new Host("example.com"));
+        }
+    }
 }